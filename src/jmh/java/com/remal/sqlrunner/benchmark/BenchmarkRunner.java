@@ -0,0 +1,152 @@
+package com.remal.sqlrunner.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Runs the benchmarks, publishes the results as JSON and compares the scores
+ * to a baseline. The scores of the run are saved next to the JSON result in
+ * the format of the baseline, so an accepted run can be copied over the
+ * baseline. The process exits with a non-zero code if a score got worse by
+ * more than the threshold, this fails the Maven build.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class BenchmarkRunner {
+
+    private static final String SCORES_FILE = "jmh-scores.properties";
+    private static final int REGRESSION_EXIT_CODE = 1;
+
+    /**
+     * The entry point.
+     *
+     * @param args the benchmarks to run as regular expression, path to the JSON result,
+     *             path to the baseline and the allowed regression in percent
+     * @throws RunnerException if the benchmarks can not be run
+     * @throws IOException if the scores can not be read or written
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args[0];
+        Path resultFile = Paths.get(args[1]);
+        Path baselineFile = Paths.get(args[2]);
+        double threshold = Double.parseDouble(args[3]);
+
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Properties scores = new Properties();
+        Properties higherIsBetter = new Properties();
+        for (RunResult result : results) {
+            String key = getKey(result.getParams());
+            scores.setProperty(key, String.valueOf(result.getPrimaryResult().getScore()));
+            higherIsBetter.setProperty(key, String.valueOf(result.getParams().getMode() == Mode.Throughput));
+        }
+
+        Path scoresFile = resultFile.resolveSibling(SCORES_FILE);
+        try (OutputStream out = Files.newOutputStream(scoresFile)) {
+            scores.store(out, "JMH scores, copy this file over the baseline to accept them");
+        }
+        System.out.println("benchmark results: " + resultFile + ", scores: " + scoresFile);
+
+        List<String> regressions = new ArrayList<>();
+        if (Files.exists(baselineFile)) {
+            Properties baseline = new Properties();
+            try (InputStream in = Files.newInputStream(baselineFile)) {
+                baseline.load(in);
+            }
+            regressions = getRegressions(scores, higherIsBetter, baseline, threshold);
+        } else {
+            System.out.println("no baseline found at " + baselineFile + ", the scores are not compared");
+        }
+
+        for (String regression : regressions) {
+            System.out.println("REGRESSION: " + regression);
+        }
+        if (!regressions.isEmpty()) {
+            System.exit(REGRESSION_EXIT_CODE);
+        }
+    }
+
+    /**
+     * Builds the identifier of a benchmark run from the name of the benchmark,
+     * its parameters and its mode.
+     *
+     * @param params parameters of the run
+     * @return the identifier
+     */
+    private static String getKey(BenchmarkParams params) {
+        StringBuilder key = new StringBuilder(params.getBenchmark());
+        String separator = "[";
+        for (String name : new TreeSet<>(params.getParamsKeys())) {
+            key.append(separator).append(name).append('=').append(params.getParam(name));
+            separator = ",";
+        }
+        if (!params.getParamsKeys().isEmpty()) {
+            key.append(']');
+        }
+
+        return key.append(':').append(params.getMode().shortLabel()).toString();
+    }
+
+    /**
+     * Compares the scores to the baseline. Benchmarks that are missing from
+     * the baseline are not compared.
+     *
+     * @param scores the scores of the current run
+     * @param higherIsBetter tells for each score whether a higher score is better, e.g. throughput
+     * @param baseline the accepted scores
+     * @param threshold allowed regression in percent
+     * @return description of the scores that got worse by more than the threshold
+     */
+    private static List<String> getRegressions(Properties scores, Properties higherIsBetter, Properties baseline,
+                                               double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (String key : new TreeSet<>(scores.stringPropertyNames())) {
+            String baselineScore = baseline.getProperty(key);
+            if (Objects.nonNull(baselineScore)) {
+                double expected = Double.parseDouble(baselineScore);
+                double actual = Double.parseDouble(scores.getProperty(key));
+                double change = (actual - expected) / expected * 100;
+                double regression = Boolean.parseBoolean(higherIsBetter.getProperty(key)) ? -change : change;
+                if (regression > threshold) {
+                    regressions.add(String.format("%s: %.3f -> %.3f (%.1f%% worse, allowed: %.1f%%)",
+                            key, expected, actual, regression, threshold));
+                }
+            }
+        }
+
+        return regressions;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private BenchmarkRunner() {
+    }
+}
@@ -0,0 +1,375 @@
+package com.remal.sqlrunner.benchmark;
+
+import com.remal.sqlrunner.SqlStatementExecutor;
+import com.remal.sqlrunner.connection.ConnectionPools;
+import com.remal.sqlrunner.domain.Dialect;
+import com.remal.sqlrunner.domain.ExitCode;
+import com.remal.sqlrunner.domain.OutputFormat;
+import com.remal.sqlrunner.domain.StatementType;
+import com.remal.sqlrunner.util.SqlStatementClassifier;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end execution of SQL statements against an embedded in-memory H2
+ * database: classification, batching, the connection pool and the output
+ * writers are all on the path, only the network of a real database is
+ * missing.
+ *
+ * <p>The mixed script benchmark compares the JDBC calls, i.e. the round trips
+ * to a database server, of the statement classifier with the former dispatch
+ * that sent every statement with executeQuery and repeated it with
+ * executeUpdate when the driver refused it as not a query.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExecutionBenchmark {
+
+    static final String JDBC_URL = "jdbc:h2:mem:sqlrunner;DB_CLOSE_DELAY=-1";
+    static final String USER = "sa";
+    static final byte[] PASSWORD = new byte[0];
+    static final String CREATE_TABLE = "CREATE TABLE customer (id BIGINT PRIMARY KEY, "
+            + "name VARCHAR(100), balance DECIMAL(12, 2), created TIMESTAMP)";
+    static final String DROP_TABLE = "DROP TABLE customer";
+
+    /**
+     * H2 error code of executeQuery called with a statement that is not a
+     * query, the counterpart of the Oracle message the former dispatch
+     * checked.
+     */
+    private static final int NOT_A_QUERY_ERROR_CODE = 90002;
+
+    /**
+     * The database with an empty table and the script that fills it.
+     */
+    @State(Scope.Benchmark)
+    public static class InsertState {
+
+        @Param({"1000", "10000"})
+        private int statements;
+
+        @Param({"1", "100"})
+        private int batchSize;
+
+        private List<String> script;
+
+        /**
+         * Creates the table and the script.
+         *
+         * @throws SQLException if the table can not be created
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            executeDirectly(CREATE_TABLE);
+            script = new ArrayList<>();
+            script.add("DELETE FROM customer");
+            for (int i = 0; i < statements; i++) {
+                script.add(SyntheticData.getInsert(i));
+            }
+            script.add("COMMIT");
+        }
+
+        /**
+         * Drops the table and closes the pooled connections.
+         *
+         * @throws SQLException if the table can not be dropped
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            ConnectionPools.closeAll();
+            executeDirectly(DROP_TABLE);
+        }
+    }
+
+    /**
+     * The database with a filled table.
+     */
+    @State(Scope.Benchmark)
+    public static class QueryState {
+
+        @Param({"10000", "100000"})
+        private int rows;
+
+        @Param({"TEXT", "CSV"})
+        private OutputFormat format;
+
+        /**
+         * Creates and fills the table.
+         *
+         * @throws SQLException if the table can not be filled
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            executeDirectly(CREATE_TABLE);
+            executeDirectly(String.format("INSERT INTO customer SELECT x, 'customer ' || x, x / 100.0, "
+                    + "TIMESTAMP '2021-03-03 10:15:30' FROM SYSTEM_RANGE(1, %d)", rows));
+        }
+
+        /**
+         * Drops the table and closes the pooled connections.
+         *
+         * @throws SQLException if the table can not be dropped
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            ConnectionPools.closeAll();
+            executeDirectly(DROP_TABLE);
+        }
+    }
+
+    /**
+     * The database with an empty table, a mixed script of queries, DML and
+     * DDL statements and the way the JDBC call of a statement is chosen.
+     */
+    @State(Scope.Benchmark)
+    public static class MixedScriptState {
+
+        @Param({"1000"})
+        private int statements;
+
+        @Param({"CLASSIFIER", "EXCEPTION_FALLBACK"})
+        private String dispatch;
+
+        private List<String> script;
+        private Connection connection;
+
+        /**
+         * Creates the table, the script and the connection.
+         *
+         * @throws SQLException if the table can not be created
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            executeDirectly(CREATE_TABLE);
+            script = new ArrayList<>();
+            script.add("DELETE FROM customer");
+            script.add("CREATE INDEX customer_name ON customer (name)");
+            for (int i = 0; i < statements; i++) {
+                switch (i % 4) {
+                    case 0:
+                        script.add(SyntheticData.getInsert(i));
+                        break;
+
+                    case 1:
+                        script.add("SELECT * FROM customer WHERE id = " + (i - 1));
+                        break;
+
+                    case 2:
+                        script.add("UPDATE customer SET balance = balance + 1 WHERE id = " + (i - 2));
+                        break;
+
+                    default:
+                        script.add("WITH recent AS (SELECT id FROM customer WHERE id > " + (i - 100)
+                                + ") SELECT COUNT(*) FROM recent");
+                }
+            }
+            script.add("DROP INDEX customer_name");
+            connection = DriverManager.getConnection(JDBC_URL, USER, "");
+        }
+
+        /**
+         * Closes the connection and drops the table.
+         *
+         * @throws SQLException if the table can not be dropped
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+            executeDirectly(DROP_TABLE);
+        }
+    }
+
+    /**
+     * The JDBC calls of the mixed script, reported next to the time of the
+     * benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+
+        /**
+         * Number of the JDBC calls that sent a statement to the database.
+         */
+        public long calls;
+
+        /**
+         * Number of the calls refused by the driver because the statement was not a query.
+         */
+        public long refusedCalls;
+
+        /**
+         * Resets the counters before each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            calls = 0;
+            refusedCalls = 0;
+        }
+    }
+
+    /**
+     * Executes the insert script.
+     *
+     * @param state the database and the script
+     * @return result of the execution
+     */
+    @Benchmark
+    public ExitCode insert(InsertState state) {
+        SqlStatementExecutor executor = new SqlStatementExecutor(true, false, USER, PASSWORD);
+        executor.setBatchSize(state.batchSize);
+        return executor.execute(JDBC_URL, state.script);
+    }
+
+    /**
+     * Executes a query and writes its result.
+     *
+     * @param state the database and the output format
+     * @return result of the execution
+     */
+    @Benchmark
+    public ExitCode query(QueryState state) {
+        SqlStatementExecutor executor = new SqlStatementExecutor(true, true, USER, PASSWORD);
+        executor.setOutput(state.format, new NullOutputStream());
+        return executor.execute(JDBC_URL, Collections.singletonList("SELECT * FROM customer"));
+    }
+
+    /**
+     * Executes the mixed script on one connection with the chosen dispatch
+     * and counts the JDBC calls.
+     *
+     * @param state the database, the script and the dispatch
+     * @param roundTrips the counters of the JDBC calls
+     * @return number of the rows read by the queries
+     * @throws SQLException if a statement fails
+     */
+    @Benchmark
+    public long mixed(MixedScriptState state, RoundTrips roundTrips) throws SQLException {
+        boolean classify = "CLASSIFIER".equals(state.dispatch);
+        long rows = 0;
+        try (Statement statement = state.connection.createStatement()) {
+            for (String sql : state.script) {
+                rows += classify
+                        ? executeClassified(statement, sql, roundTrips)
+                        : executeWithFallback(statement, sql, roundTrips);
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Chooses the JDBC call by the kind of the statement, every statement
+     * takes one call.
+     *
+     * @param statement the JDBC statement
+     * @param sql the SQL statement
+     * @param roundTrips the counters of the JDBC calls
+     * @return number of the rows read
+     * @throws SQLException if the statement fails
+     */
+    private static long executeClassified(Statement statement, String sql, RoundTrips roundTrips)
+            throws SQLException {
+
+        long rows = 0;
+        StatementType type = SqlStatementClassifier.classify(sql, Dialect.H2);
+        roundTrips.calls++;
+        if (type == StatementType.QUERY) {
+            rows = read(statement.executeQuery(sql));
+        } else if (type == StatementType.DML || type == StatementType.DDL) {
+            statement.executeUpdate(sql);
+        } else {
+            statement.execute(sql);
+        }
+
+        return rows;
+    }
+
+    /**
+     * The former dispatch: sends the statement with executeQuery and, if the
+     * driver refuses it as not a query, sends it again with executeUpdate.
+     *
+     * @param statement the JDBC statement
+     * @param sql the SQL statement
+     * @param roundTrips the counters of the JDBC calls
+     * @return number of the rows read
+     * @throws SQLException if the statement fails
+     */
+    private static long executeWithFallback(Statement statement, String sql, RoundTrips roundTrips)
+            throws SQLException {
+
+        long rows = 0;
+        roundTrips.calls++;
+        try {
+            rows = read(statement.executeQuery(sql));
+        } catch (SQLException e) {
+            if (e.getErrorCode() != NOT_A_QUERY_ERROR_CODE) {
+                throw e;
+            }
+            roundTrips.refusedCalls++;
+            roundTrips.calls++;
+            statement.executeUpdate(sql);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Reads and closes a result set.
+     *
+     * @param resultSet the result set
+     * @return number of the rows
+     * @throws SQLException if the rows can not be read
+     */
+    private static long read(ResultSet resultSet) throws SQLException {
+        long rows = 0;
+        try (ResultSet rs = resultSet) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Executes a statement on a connection that is not pooled.
+     *
+     * @param sql the statement
+     * @throws SQLException if the statement fails
+     */
+    static void executeDirectly(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, USER, "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.remal.sqlrunner.benchmark;
+
+import java.io.OutputStream;
+
+/**
+ * Output stream that throws away the bytes, the target of the query results
+ * in the benchmarks.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+class NullOutputStream extends OutputStream {
+
+    /**
+     * Throws away a byte.
+     *
+     * @param b the byte
+     */
+    @Override
+    public void write(int b) {
+        // the bytes are thrown away
+    }
+
+    /**
+     * Throws away a part of a byte array.
+     *
+     * @param b the bytes
+     * @param off index of the first byte
+     * @param len number of the bytes
+     */
+    @Override
+    public void write(byte[] b, int off, int len) {
+        // the bytes are thrown away
+    }
+}
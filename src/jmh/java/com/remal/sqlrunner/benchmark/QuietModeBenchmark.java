@@ -0,0 +1,85 @@
+package com.remal.sqlrunner.benchmark;
+
+import com.remal.sqlrunner.SqlStatementExecutor;
+import com.remal.sqlrunner.connection.ConnectionPools;
+import com.remal.sqlrunner.domain.ExitCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a query with a large result against an embedded in-memory H2
+ * database in quiet mode and with the output thrown away. Without the quiet
+ * mode every row is converted to text and every message is formatted, which
+ * is what the quiet mode did before it became a fast path.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class QuietModeBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean quiet;
+
+    private final PrintStream nowhere = new PrintStream(new NullOutputStream());
+
+    /**
+     * Creates and fills the table.
+     *
+     * @throws SQLException if the table can not be filled
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ExecutionBenchmark.executeDirectly(ExecutionBenchmark.CREATE_TABLE);
+        ExecutionBenchmark.executeDirectly(String.format("INSERT INTO customer SELECT x, 'customer ' || x, "
+                + "x / 100.0, TIMESTAMP '2021-03-03 10:15:30' FROM SYSTEM_RANGE(1, %d)", rows));
+    }
+
+    /**
+     * Drops the table and closes the pooled connections.
+     *
+     * @throws SQLException if the table can not be dropped
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        ConnectionPools.closeAll();
+        ExecutionBenchmark.executeDirectly(ExecutionBenchmark.DROP_TABLE);
+    }
+
+    /**
+     * Executes the query.
+     *
+     * @return result of the execution
+     */
+    @Benchmark
+    public ExitCode query() {
+        SqlStatementExecutor executor = new SqlStatementExecutor(
+                quiet, true, ExecutionBenchmark.USER, ExecutionBenchmark.PASSWORD, nowhere);
+        return executor.execute(ExecutionBenchmark.JDBC_URL, Collections.singletonList("SELECT * FROM customer"));
+    }
+}
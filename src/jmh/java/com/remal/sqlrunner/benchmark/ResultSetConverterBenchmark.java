@@ -0,0 +1,178 @@
+package com.remal.sqlrunner.benchmark;
+
+import com.remal.sqlrunner.util.ResultSetConverter;
+import com.remal.sqlrunner.util.RowArrayResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a result set of 1 million rows and 20 columns in the default text
+ * format with the current {@link ResultSetConverter} and with the former
+ * converter that built every row in a string builder and removed the
+ * trailing separator with a regular expression.
+ *
+ * <p>The former converter never cleared its string builder, so every line
+ * repeated all the previous rows; with that defect it runs out of memory
+ * after a few thousand rows of this size. The legacy implementation of the
+ * benchmark clears the builder, so it only measures the cost of the regular
+ * expression and the copies of the rows.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.nio=ALL-UNNAMED"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ResultSetConverterBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int COLUMNS = 20;
+    private static final int DISTINCT_ROWS = 1_000;
+    private static final int NULL_FREQUENCY = 17;
+    private static final int[] TYPES = {Types.BIGINT, Types.VARCHAR, Types.DECIMAL, Types.TIMESTAMP};
+
+    @Param({"LEGACY", "CURRENT"})
+    private String converter;
+
+    private ResultSetMetaData metadata;
+    private Object[][] rows;
+
+    /**
+     * Generates the metadata and the distinct rows the result set cycles through.
+     *
+     * @throws SQLException if the metadata can not be built
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        RowSetMetaDataImpl rowSetMetaData = new RowSetMetaDataImpl();
+        rowSetMetaData.setColumnCount(COLUMNS);
+        for (int i = 0; i < COLUMNS; i++) {
+            int column = i + 1;
+            rowSetMetaData.setColumnType(column, TYPES[i % TYPES.length]);
+            rowSetMetaData.setColumnLabel(column, "COLUMN_" + column);
+            rowSetMetaData.setColumnName(column, "COLUMN_" + column);
+        }
+        metadata = rowSetMetaData;
+
+        rows = new Object[DISTINCT_ROWS][];
+        for (int row = 0; row < DISTINCT_ROWS; row++) {
+            rows[row] = new Object[COLUMNS];
+            for (int i = 0; i < COLUMNS; i++) {
+                boolean nullValue = (row + i) % NULL_FREQUENCY == 0;
+                rows[row][i] = nullValue ? null : getValue(TYPES[i % TYPES.length], row, i);
+            }
+        }
+    }
+
+    /**
+     * Writes all the rows of the result set.
+     *
+     * @return number of the rows written
+     * @throws SQLException if the rows can not be read
+     * @throws IOException if the rows can not be written
+     */
+    @Benchmark
+    public long write() throws SQLException, IOException {
+        int[] next = {0};
+        ResultSet resultSet = RowArrayResultSet.create(
+                metadata, () -> next[0] < ROWS ? rows[next[0]++ % DISTINCT_ROWS] : null);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new NullOutputStream()));
+        long rowCount = "LEGACY".equals(converter)
+                ? writeLegacy(resultSet, writer)
+                : ResultSetConverter.write(resultSet, true, writer);
+        writer.flush();
+        return rowCount;
+    }
+
+    /**
+     * The former implementation of {@link ResultSetConverter#write(ResultSet, boolean, Writer)}
+     * with the string builder cleared after each row.
+     *
+     * @param resultSet the result set
+     * @param writer the target of the rows
+     * @return number of the rows that have been written
+     * @throws SQLException if the rows can not be read
+     * @throws IOException if the rows can not be written
+     */
+    private static long writeLegacy(ResultSet resultSet, Writer writer) throws SQLException, IOException {
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        int fieldNumber = resultSetMetaData.getColumnCount();
+        StringBuilder header = new StringBuilder();
+        for (int i = 1; i <= fieldNumber; i++) {
+            header.append(resultSetMetaData.getColumnName(i)).append(";");
+        }
+        writer.write(header.toString().replaceAll(".$", "") + System.lineSeparator());
+
+        long rowCount = 0;
+        StringBuilder row = new StringBuilder();
+        while (resultSet.next()) {
+            for (int i = 1; i <= fieldNumber; i++) {
+                String value = resultSet.getString(i);
+                row.append(Objects.nonNull(value) ? value : "<NULL>").append(";");
+            }
+            writer.write(row.toString().replaceAll(".$", "") + System.lineSeparator());
+            row.setLength(0);
+            rowCount++;
+        }
+
+        return rowCount;
+    }
+
+    /**
+     * Generates a value of a cell.
+     *
+     * @param type SQL type of the column
+     * @param row index of the row
+     * @param column index of the column
+     * @return the value, the Java type is the one the typed getter of the column returns
+     */
+    private static Object getValue(int type, int row, int column) {
+        Object value;
+        switch (type) {
+            case Types.BIGINT:
+                value = (long) row * column;
+                break;
+
+            case Types.DECIMAL:
+                value = BigDecimal.valueOf(row * 100L + column, 2);
+                break;
+
+            case Types.TIMESTAMP:
+                value = new Timestamp(1_614_766_530_000L + row * 1000L + column);
+                break;
+
+            default:
+                value = "customer name " + row;
+        }
+
+        return value;
+    }
+}
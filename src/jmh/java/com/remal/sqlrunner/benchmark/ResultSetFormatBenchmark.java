@@ -0,0 +1,182 @@
+package com.remal.sqlrunner.benchmark;
+
+import com.remal.sqlrunner.domain.Dialect;
+import com.remal.sqlrunner.domain.OutputFormat;
+import com.remal.sqlrunner.output.ResultSetWriter;
+import com.remal.sqlrunner.output.ResultSetWriters;
+import com.remal.sqlrunner.util.FetchSizeTuner;
+import com.remal.sqlrunner.util.RowArrayResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes synthetic result sets of various widths and column types in each
+ * output format. The rows are generated once and served from the memory by
+ * a {@link RowArrayResultSet}, so the benchmark measures the typed getters
+ * and the encoding of the values, not a JDBC driver.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.nio=ALL-UNNAMED"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ResultSetFormatBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int NULL_FREQUENCY = 17;
+    private static final int[] NUMERIC_TYPES = {Types.BIGINT, Types.DECIMAL};
+    private static final int[] TEXT_TYPES = {Types.VARCHAR};
+    private static final int[] MIXED_TYPES = {
+        Types.BIGINT, Types.VARCHAR, Types.DECIMAL, Types.TIMESTAMP, Types.DOUBLE, Types.DATE};
+    private static final OutputStream NOWHERE = new NullOutputStream();
+
+    @Param({"4", "16", "64"})
+    private int columns;
+
+    @Param({"NUMERIC", "TEXT", "MIXED"})
+    private String columnTypes;
+
+    @Param({"TEXT", "CSV", "TSV", "JSONL", "ARROW"})
+    private OutputFormat format;
+
+    private ResultSetMetaData metadata;
+    private Object[][] rows;
+
+    /**
+     * Generates the metadata and the rows.
+     *
+     * @throws SQLException if the metadata can not be built
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        int[] types = getTypes(columnTypes);
+        RowSetMetaDataImpl rowSetMetaData = new RowSetMetaDataImpl();
+        rowSetMetaData.setColumnCount(columns);
+        for (int i = 0; i < columns; i++) {
+            int column = i + 1;
+            int type = types[i % types.length];
+            rowSetMetaData.setColumnType(column, type);
+            rowSetMetaData.setColumnLabel(column, "COLUMN_" + column);
+            rowSetMetaData.setColumnName(column, "COLUMN_" + column);
+            rowSetMetaData.setPrecision(column, type == Types.DECIMAL ? 12 : 0);
+            rowSetMetaData.setScale(column, type == Types.DECIMAL ? 2 : 0);
+            rowSetMetaData.setNullable(column, ResultSetMetaData.columnNullable);
+        }
+        metadata = rowSetMetaData;
+
+        rows = new Object[ROWS][];
+        for (int row = 0; row < ROWS; row++) {
+            rows[row] = new Object[columns];
+            for (int i = 0; i < columns; i++) {
+                boolean nullValue = (row + i) % NULL_FREQUENCY == 0;
+                rows[row][i] = nullValue ? null : getValue(types[i % types.length], row, i);
+            }
+        }
+    }
+
+    /**
+     * Writes all the rows of the result set.
+     *
+     * @return number of the rows written
+     * @throws SQLException if the rows can not be read
+     * @throws IOException if the rows can not be written
+     */
+    @Benchmark
+    public long write() throws SQLException, IOException {
+        int[] next = {0};
+        ResultSet resultSet = RowArrayResultSet.create(metadata, () -> next[0] < ROWS ? rows[next[0]++] : null);
+        try (ResultSetWriter writer = ResultSetWriters.create(format, NOWHERE, true, Dialect.H2)) {
+            return writer.write(resultSet, new FetchSizeTuner(resultSet, false));
+        }
+    }
+
+    /**
+     * Selects the column types of a column type set.
+     *
+     * @param name name of the column type set
+     * @return the SQL types the columns cycle through
+     */
+    private static int[] getTypes(String name) {
+        int[] types;
+        switch (name) {
+            case "NUMERIC":
+                types = NUMERIC_TYPES;
+                break;
+
+            case "TEXT":
+                types = TEXT_TYPES;
+                break;
+
+            default:
+                types = MIXED_TYPES;
+        }
+
+        return types;
+    }
+
+    /**
+     * Generates a value of a cell.
+     *
+     * @param type SQL type of the column
+     * @param row index of the row
+     * @param column index of the column
+     * @return the value, the Java type is the one the typed getter of the column returns
+     */
+    private static Object getValue(int type, int row, int column) {
+        Object value;
+        switch (type) {
+            case Types.BIGINT:
+                value = (long) row * column;
+                break;
+
+            case Types.DECIMAL:
+                value = BigDecimal.valueOf(row * 100L + column, 2);
+                break;
+
+            case Types.DOUBLE:
+                value = row / (column + 1.0);
+                break;
+
+            case Types.DATE:
+                value = Date.valueOf(String.format("2021-%02d-%02d", row % 12 + 1, row % 28 + 1));
+                break;
+
+            case Types.TIMESTAMP:
+                value = new Timestamp(1_614_766_530_000L + row * 1000L + column);
+                break;
+
+            default:
+                // every fifth value needs quoting or escaping in the text formats
+                value = row % 5 == 0 ? "name \"" + row + "\", line\tend" : "customer name " + row;
+        }
+
+        return value;
+    }
+}
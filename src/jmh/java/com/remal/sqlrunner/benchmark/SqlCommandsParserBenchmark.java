@@ -0,0 +1,65 @@
+package com.remal.sqlrunner.benchmark;
+
+import com.remal.sqlrunner.util.SqlCommandsParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits synthetic command strings, given with the --sql option, into SQL
+ * statements.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SqlCommandsParserBenchmark {
+
+    private static final String SEPARATOR = ";";
+
+    @Param({"10", "1000", "100000"})
+    private int statements;
+
+    private String commands;
+
+    /**
+     * Builds the command string.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringJoiner joiner = new StringJoiner(SEPARATOR + " ");
+        for (int i = 0; i < statements; i++) {
+            joiner.add(SyntheticData.getInsert(i));
+        }
+        commands = joiner.toString();
+    }
+
+    /**
+     * Splits the command string.
+     *
+     * @return the statements
+     */
+    @Benchmark
+    public List<String> parse() {
+        return SqlCommandsParser.parse(commands, SEPARATOR);
+    }
+}
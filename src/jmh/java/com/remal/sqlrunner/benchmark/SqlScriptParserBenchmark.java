@@ -0,0 +1,111 @@
+package com.remal.sqlrunner.benchmark;
+
+import com.remal.sqlrunner.util.MappedSqlScriptParser;
+import com.remal.sqlrunner.util.SqlScriptParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses synthetic SQL script files with the streaming and with the memory
+ * mapped parser. The scripts contain single and multi-line statements,
+ * comments and string literals. A line is about 100 bytes, so the largest
+ * script is about 3 GB, several times the window the mapped parser maps at
+ * once.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SqlScriptParserBenchmark {
+
+    private static final String DELIMITER = ";";
+
+    @Param({"10000", "1000000", "10000000", "30000000"})
+    private int lines;
+
+    private Path script;
+
+    /**
+     * Writes the synthetic script file.
+     *
+     * @throws IOException if the file can not be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        script = Files.createTempFile("sql-runner-benchmark", ".sql");
+        try (BufferedWriter writer = Files.newBufferedWriter(script, StandardCharsets.UTF_8)) {
+            long statement = 0;
+            int line = 0;
+            while (line < lines) {
+                line += SyntheticData.writeStatement(writer, statement++);
+            }
+        }
+    }
+
+    /**
+     * Deletes the synthetic script file.
+     *
+     * @throws IOException if the file can not be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(script);
+    }
+
+    /**
+     * Parses the script with the memory mapped parser used by the tool.
+     *
+     * @param blackhole consumes the statements
+     * @throws IOException if the script can not be read
+     */
+    @Benchmark
+    public void mappedParser(Blackhole blackhole) throws IOException {
+        try (MappedSqlScriptParser parser = new MappedSqlScriptParser(script, DELIMITER, false)) {
+            while (parser.hasNext()) {
+                blackhole.consume(parser.next());
+            }
+        }
+    }
+
+    /**
+     * Parses the script with the streaming parser that reads the lines with a
+     * buffered reader.
+     *
+     * @param blackhole consumes the statements
+     * @throws IOException if the script can not be read
+     */
+    @Benchmark
+    public void readerParser(Blackhole blackhole) throws IOException {
+        SqlScriptParser parser = new SqlScriptParser();
+        parser.setDelimiters(DELIMITER, false);
+        try (BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            parser.stream(reader).forEach(blackhole::consume);
+        }
+    }
+}
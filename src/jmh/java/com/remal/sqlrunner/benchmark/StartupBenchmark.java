@@ -0,0 +1,142 @@
+package com.remal.sqlrunner.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the wall-clock time of a whole execution of the assembled JAR in
+ * a new JVM, with and without the AppCDS archive of the classes. The path of
+ * the JAR is given in the sqlrunner.jar system property; the benchmark
+ * profile of the Maven build sets it.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+public class StartupBenchmark {
+
+    private static final String JAR_PROPERTY = "sqlrunner.jar";
+    private static final int FIRST_CDS_DUMP_JAVA_VERSION = 13;
+    private static final List<String> HELP = Arrays.asList("--help");
+    private static final List<String> QUERY = Arrays.asList(
+            "--quiet", "--jdbcUrl", "jdbc:h2:mem:startup", "--user", "sa", "--password", "startup",
+            "--sql", "SELECT 1");
+
+    @Param({"DEFAULT", "CDS"})
+    private String jvm;
+
+    @Param({"HELP", "QUERY"})
+    private String command;
+
+    private List<String> commandLine;
+    private Path archive;
+    private File output;
+
+    /**
+     * Builds the command line, in CDS mode the archive is created by a
+     * training run of the same command.
+     *
+     * @throws IOException if the temporary files can not be created
+     * @throws InterruptedException if the training run is interrupted
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        String jar = System.getProperty(JAR_PROPERTY);
+        if (Objects.isNull(jar)) {
+            throw new IllegalStateException("the path of the assembled JAR must be given in -D" + JAR_PROPERTY);
+        }
+
+        output = File.createTempFile("startup", ".out");
+        List<String> arguments = "HELP".equals(command) ? HELP : QUERY;
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        commandLine = new ArrayList<>(Arrays.asList(java, "-jar", jar));
+        commandLine.addAll(arguments);
+
+        if ("CDS".equals(jvm) && getJavaVersion() >= FIRST_CDS_DUMP_JAVA_VERSION) {
+            archive = Files.createTempFile("startup", ".jsa");
+            List<String> training = new ArrayList<>(commandLine);
+            training.add(1, "-XX:ArchiveClassesAtExit=" + archive);
+            execute(training);
+            commandLine.add(1, "-XX:SharedArchiveFile=" + archive);
+        }
+    }
+
+    /**
+     * Deletes the temporary files.
+     *
+     * @throws IOException if a file can not be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output.toPath());
+        if (Objects.nonNull(archive)) {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    /**
+     * Starts the JVM and waits until the execution finishes.
+     *
+     * @return exit code of the execution
+     * @throws IOException if the JVM can not be started
+     * @throws InterruptedException if the wait is interrupted
+     */
+    @Benchmark
+    public int start() throws IOException, InterruptedException {
+        return execute(commandLine);
+    }
+
+    /**
+     * Executes a command, its output is thrown away.
+     *
+     * @param command the command line
+     * @return exit code of the command
+     * @throws IOException if the command can not be started
+     * @throws InterruptedException if the wait is interrupted
+     */
+    private int execute(List<String> command) throws IOException, InterruptedException {
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output)
+                .start()
+                .waitFor();
+    }
+
+    /**
+     * Reads the feature version of the Java runtime.
+     *
+     * @return e.g. 8 for 1.8 and 17 for 17
+     */
+    private static int getJavaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+}
@@ -0,0 +1,76 @@
+package com.remal.sqlrunner.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Generates the synthetic SQL statements of the benchmarks. The statements
+ * are deterministic, so every run of a benchmark works on the same input.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+final class SyntheticData {
+
+    private static final int STATEMENT_KINDS = 10;
+
+    /**
+     * Builds a single line INSERT statement without the delimiter.
+     *
+     * @param index index of the statement, used as the key and in the values
+     * @return the statement
+     */
+    static String getInsert(long index) {
+        return String.format(
+                "INSERT INTO customer (id, name, balance, created) VALUES (%d, 'customer %d', %d.%02d, "
+                        + "TIMESTAMP '2021-03-%02d 10:15:30')",
+                index, index, index % 100_000, index % 100, index % 28 + 1);
+    }
+
+    /**
+     * Writes the next statement of a synthetic script. Most of the statements
+     * are single line inserts, between them there are comments and statements
+     * that span more lines.
+     *
+     * @param writer target of the script
+     * @param index index of the statement
+     * @return number of the lines written
+     * @throws IOException if the statement can not be written
+     */
+    static int writeStatement(Writer writer, long index) throws IOException {
+        int lines;
+        switch ((int) (index % STATEMENT_KINDS)) {
+            case 0:
+                writer.write("-- customers from " + index + "\n");
+                writer.write(getInsert(index) + ";\n");
+                lines = 2;
+                break;
+
+            case 7:
+                writer.write("UPDATE customer\n");
+                writer.write("   SET balance = balance + 1, name = 'updated ' || name\n");
+                writer.write(" WHERE id = " + index + ";\n");
+                lines = 3;
+                break;
+
+            case 9:
+                writer.write("DELETE FROM customer\n");
+                writer.write(" WHERE id = " + (index - 1) + ";\n");
+                lines = 2;
+                break;
+
+            default:
+                writer.write(getInsert(index) + ";\n");
+                lines = 1;
+        }
+
+        return lines;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private SyntheticData() {
+    }
+}
@@ -0,0 +1,533 @@
+package com.remal.sqlrunner;
+
+import com.remal.sqlrunner.connection.ConnectionPools;
+import com.remal.sqlrunner.connection.ConnectionProvider;
+import com.remal.sqlrunner.connection.PoolSettings;
+import com.remal.sqlrunner.domain.Dialect;
+import com.remal.sqlrunner.domain.ExitCode;
+import com.remal.sqlrunner.domain.InputFormat;
+import com.remal.sqlrunner.util.AnsiColor;
+import com.remal.sqlrunner.util.DelimitedFileReader;
+import com.remal.sqlrunner.util.DevNullPrintStream;
+import com.remal.sqlrunner.util.ExecutionMessages;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the records of a CSV or TSV file into a table. The values are bound
+ * to the parameters of one INSERT statement and sent to the database in
+ * arrays with the JDBC batch API, which the drivers execute as array DML in
+ * one round trip. In direct-path mode Oracle writes the arrays above the high
+ * water mark of the table, bypassing the buffer cache, and SQL Server loads
+ * them with the bulk copy API.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class BulkLoader {
+
+    private static final String NOTHING = "";
+    private static final String DIRECT_PATH_HINT = "/*+ APPEND_VALUES */ ";
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 5;
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .optionalStart()
+            .appendLiteral(' ')
+            .appendValue(ChronoField.HOUR_OF_DAY, 2)
+            .appendLiteral(':')
+            .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+            .optionalStart()
+            .appendLiteral(':')
+            .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .optionalEnd()
+            .optionalEnd()
+            .toFormatter();
+
+    private PrintStream logWriter;
+    private Dialect dialect = Dialect.ORACLE;
+    private String user;
+    private byte[] password;
+    private int arraySize = 1000;
+    private long commitInterval = 0;
+    private boolean directPath = false;
+
+    /**
+     * Initialization method.
+     *
+     * @param quiet if true then no log message will be shown
+     * @param user name for the login
+     * @param password password for the connecting user
+     * @param out the output of the execution
+     */
+    public BulkLoader(boolean quiet, String user, byte[] password, PrintStream out) {
+        this.logWriter = quiet ? DevNullPrintStream.getPrintStream() : out;
+        this.user = user;
+        this.password = password;
+    }
+
+    /**
+     * Setter method.
+     *
+     * @param dialect the SQL dialect of the database
+     */
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Setter method.
+     *
+     * @param arraySize number of the rows bound to the INSERT statement and sent to the database in one round trip
+     * @param commitInterval number of the rows inserted in one transaction, 0 commits once at the end
+     */
+    public void setArraySize(int arraySize, long commitInterval) {
+        this.arraySize = Math.max(1, arraySize);
+        this.commitInterval = Math.max(0, commitInterval);
+    }
+
+    /**
+     * Setter method.
+     * The direct-path insert is supported by Oracle and SQL Server, both skip
+     * the triggers. In Oracle the table can not be read or modified in the
+     * transaction of a direct-path insert, so every array is committed.
+     *
+     * @param directPath true inserts the rows with the APPEND_VALUES hint in Oracle and the bulk copy API in
+     *                   SQL Server
+     */
+    public void setDirectPath(boolean directPath) {
+        this.directPath = directPath;
+    }
+
+    /**
+     * Loads the data file into the table.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param dataFile path to the data file
+     * @param format format of the data file
+     * @param header true if the first record holds the name of the columns
+     * @param table name of the table
+     * @param columns the columns the values of the records are loaded into in order; if it is empty then the
+     *                header or, without a header, all the columns of the table are used
+     * @return result of the execution
+     */
+    public ExitCode load(String jdbcUrl,
+                         Path dataFile,
+                         InputFormat format,
+                         boolean header,
+                         String table,
+                         List<String> columns) {
+
+        ExitCode exitCode;
+        logWriter.println(String.format("opening the %s data file...", dataFile));
+        try (DelimitedFileReader reader = new DelimitedFileReader(dataFile, format)) {
+            List<String> targetColumns = columns;
+            if (header) {
+                String[] names = reader.next();
+                if (targetColumns.isEmpty() && Objects.nonNull(names)) {
+                    targetColumns = Arrays.asList(names);
+                }
+            }
+            exitCode = load(jdbcUrl, reader, table, targetColumns);
+
+        } catch (IOException e) {
+            logWriter.println(ExecutionMessages.getInternalError(e));
+            exitCode = ExitCode.INTERNAL_ERROR;
+        }
+
+        ExecutionMessages.showExitCode(logWriter, exitCode);
+        return exitCode;
+    }
+
+    /**
+     * Loads the records into the table on a pooled connection.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param reader the source of the records
+     * @param table name of the table
+     * @param columns the columns the values of the records are loaded into, empty means all the columns
+     * @return result of the execution
+     * @throws IOException if the data file can not be read
+     */
+    private ExitCode load(String jdbcUrl, DelimitedFileReader reader, String table, List<String> columns)
+            throws IOException {
+
+        ExitCode exitCode;
+        ConnectionProvider connectionProvider = getConnectionProvider(jdbcUrl);
+        try (Connection connection = connectionProvider.getConnection()) {
+            int[] types = getColumnTypes(connection, table, columns);
+            List<String> names = columns.isEmpty() ? getColumnNames(connection, table) : columns;
+            String sql = getInsert(table, names);
+            logWriter.println("SQL statement: " + sql);
+
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                exitCode = load(connection, statement, reader, names, types);
+            }
+
+        } catch (SQLException e) {
+            logWriter.println(ExecutionMessages.getSqlError("", e));
+            exitCode = ExitCode.SQL_EXECUTION_ERROR;
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Binds the records to the INSERT statement and executes it in arrays.
+     * On error the rows of the open transaction are rolled back, the rows of
+     * the earlier transactions stay in the table. A record that does not fit
+     * the columns fails the load the same way as a record rejected by the
+     * database.
+     *
+     * @param connection the connection
+     * @param statement the INSERT statement
+     * @param reader the source of the records
+     * @param names name of the columns
+     * @param types SQL type of the columns
+     * @return result of the execution
+     * @throws SQLException if the transaction can not be rolled back
+     * @throws IOException if the data file can not be read
+     */
+    private ExitCode load(Connection connection,
+                          PreparedStatement statement,
+                          DelimitedFileReader reader,
+                          List<String> names,
+                          int[] types) throws SQLException, IOException {
+
+        ExitCode exitCode = ExitCode.OK;
+        long effectiveCommitInterval = directPath && dialect == Dialect.ORACLE ? arraySize : commitInterval;
+        long start = System.nanoTime();
+        long committedRows = 0;
+        long uncommittedRows = 0;
+        int arrayRows = 0;
+        long arrayLine = 0;
+        try {
+            String[] values = reader.next();
+            while (Objects.nonNull(values)) {
+                if (arrayRows == 0) {
+                    arrayLine = reader.getRecordLine();
+                }
+                bind(statement, values, names, types, reader.getRecordLine());
+                statement.addBatch();
+                arrayRows++;
+                uncommittedRows++;
+
+                boolean commit = effectiveCommitInterval > 0 && uncommittedRows == effectiveCommitInterval;
+                if (arrayRows == arraySize || commit) {
+                    statement.executeBatch();
+                    arrayRows = 0;
+                }
+                if (commit) {
+                    connection.commit();
+                    committedRows += uncommittedRows;
+                    uncommittedRows = 0;
+                    showProgress(committedRows, start);
+                }
+                values = reader.next();
+            }
+
+            if (arrayRows > 0) {
+                statement.executeBatch();
+            }
+            connection.commit();
+            committedRows += uncommittedRows;
+            showSummary(committedRows, start);
+
+        } catch (SQLException e) {
+            String records = String.format("array of the records from line %d", arrayLine);
+            logWriter.println(ExecutionMessages.getSqlError(records, e));
+            exitCode = rollback(connection, committedRows, ExitCode.SQL_EXECUTION_ERROR);
+
+        } catch (IllegalArgumentException e) {
+            showDataError(e);
+            exitCode = rollback(connection, committedRows, ExitCode.SQL_EXECUTION_ERROR);
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Binds the values of a record to the parameters of the INSERT statement.
+     *
+     * @param statement the INSERT statement
+     * @param values values of the record
+     * @param names name of the columns
+     * @param types SQL type of the columns
+     * @param line number of the line where the record starts
+     * @throws SQLException if a value can not be bound
+     */
+    private static void bind(PreparedStatement statement, String[] values, List<String> names, int[] types, long line)
+            throws SQLException {
+
+        if (values.length != types.length) {
+            throw new IllegalArgumentException(String.format(
+                    "the record in line %d has %d values instead of %d", line, values.length, types.length));
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            try {
+                bind(statement, i + 1, types[i], values[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format(
+                        "invalid value of the %s column in line %d: %s", names.get(i), line, e.getMessage()), e);
+            }
+        }
+    }
+
+    /**
+     * Converts a value to the Java type of the column and binds it to a parameter.
+     * The numbers and the date-times are converted by the tool, so the database
+     * does not need to convert strings, which some of them refuse to do.
+     *
+     * @param statement the INSERT statement
+     * @param index index of the parameter, starts from 1
+     * @param sqlType SQL type of the column
+     * @param value the value read from the data file, null stands for NULL
+     * @throws SQLException if the value can not be bound
+     */
+    private static void bind(PreparedStatement statement, int index, int sqlType, String value) throws SQLException {
+        if (Objects.isNull(value)) {
+            statement.setNull(index, sqlType);
+        } else {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    statement.setLong(index, Long.parseLong(value.trim()));
+                    break;
+
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    statement.setBigDecimal(index, new BigDecimal(value.trim()));
+                    break;
+
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    statement.setDouble(index, Double.parseDouble(value.trim()));
+                    break;
+
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    statement.setBoolean(index, "1".equals(value.trim()) || Boolean.parseBoolean(value.trim()));
+                    break;
+
+                case Types.DATE:
+                    String date = value.trim();
+                    if (date.length() > 10) {
+                        statement.setTimestamp(index, toTimestamp(date));
+                    } else {
+                        statement.setDate(index, Date.valueOf(date));
+                    }
+                    break;
+
+                case Types.TIMESTAMP:
+                    statement.setTimestamp(index, toTimestamp(value.trim()));
+                    break;
+
+                default:
+                    statement.setString(index, value);
+            }
+        }
+    }
+
+    /**
+     * Parses a date-time in yyyy-mm-dd[ hh:mm[:ss[.f...]]] format. The time
+     * may be separated by a T as in ISO 8601, and a date without a time means
+     * midnight.
+     *
+     * @param value the date-time
+     * @return the timestamp
+     */
+    private static Timestamp toTimestamp(String value) {
+        try {
+            TemporalAccessor parsed = TIMESTAMP_FORMAT.parse(value.replace('T', ' '));
+            LocalTime time = parsed.isSupported(ChronoField.HOUR_OF_DAY) ? LocalTime.from(parsed) : LocalTime.MIDNIGHT;
+            return Timestamp.valueOf(LocalDateTime.of(LocalDate.from(parsed), time));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the SQL type of the columns from the metadata of an empty query.
+     *
+     * @param connection the connection
+     * @param table name of the table
+     * @param columns name of the columns, empty means all the columns
+     * @return the SQL types
+     * @throws SQLException if the table or a column does not exist
+     */
+    private static int[] getColumnTypes(Connection connection, String table, List<String> columns)
+            throws SQLException {
+
+        String selectList = columns.isEmpty() ? "*" : String.join(", ", columns);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     String.format("SELECT %s FROM %s WHERE 1 = 0", selectList, table))) {
+
+            ResultSetMetaData metadata = resultSet.getMetaData();
+            int[] types = new int[metadata.getColumnCount()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = metadata.getColumnType(i + 1);
+            }
+            return types;
+        }
+    }
+
+    /**
+     * Reads the name of all the columns of a table.
+     *
+     * @param connection the connection
+     * @param table name of the table
+     * @return name of the columns in the order of the table
+     * @throws SQLException if the table does not exist
+     */
+    private static List<String> getColumnNames(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(String.format("SELECT * FROM %s WHERE 1 = 0", table))) {
+
+            ResultSetMetaData metadata = resultSet.getMetaData();
+            List<String> names = new ArrayList<>();
+            for (int i = 1; i <= metadata.getColumnCount(); i++) {
+                names.add(metadata.getColumnName(i));
+            }
+            return Collections.unmodifiableList(names);
+        }
+    }
+
+    /**
+     * Builds the INSERT statement with one bind parameter per column.
+     *
+     * @param table name of the table
+     * @param columns name of the columns
+     * @return the INSERT statement
+     */
+    private String getInsert(String table, List<String> columns) {
+        String hint = NOTHING;
+        if (directPath && dialect == Dialect.ORACLE) {
+            hint = DIRECT_PATH_HINT;
+        } else if (directPath && dialect != Dialect.SQLSERVER) {
+            logWriter.println(String.format(
+                    "the direct-path insert is not supported by %s, conventional inserts are used", dialect));
+        }
+
+        return String.format("INSERT %sINTO %s (%s) VALUES (%s)",
+                hint,
+                table,
+                String.join(", ", columns),
+                String.join(", ", Collections.nCopies(columns.size(), "?")));
+    }
+
+    /**
+     * Returns with the connection pool of the database.
+     *
+     * @param jdbcUrl the connection JDBC URL
+     * @return the connection pool
+     */
+    private ConnectionProvider getConnectionProvider(String jdbcUrl) {
+        logWriter.println("getting connection to " + jdbcUrl + "...");
+        logWriter.println(String.format("using '%s' as the username", user));
+
+        Properties properties = dialect.getConnectionProperties(user, new String(password), 0, 0);
+        if (directPath) {
+            dialect.addDirectPathProperties(properties);
+        }
+        PoolSettings settings = new PoolSettings(
+                1, POOL_IDLE_TIMEOUT_MILLIS, POOL_VALIDATION_TIMEOUT_SECONDS, POOL_BORROW_TIMEOUT_MILLIS);
+        return ConnectionPools.get(jdbcUrl, user, password, properties, settings);
+    }
+
+    /**
+     * Rolls back the open transaction after an error.
+     *
+     * @param connection the connection
+     * @param committedRows number of the rows committed before the error
+     * @param exitCode the result of the execution
+     * @return the result of the execution
+     * @throws SQLException if the transaction can not be rolled back
+     */
+    private ExitCode rollback(Connection connection, long committedRows, ExitCode exitCode) throws SQLException {
+        connection.rollback();
+        logWriter.println(String.format("the open transaction is rolled back, %d rows were committed", committedRows));
+        return exitCode;
+    }
+
+    /**
+     * Shows the number of the rows committed so far and the load rate.
+     *
+     * @param rows number of the committed rows
+     * @param start start of the load in nanoseconds
+     */
+    private void showProgress(long rows, long start) {
+        logWriter.println(String.format("committed: %d rows, %.0f rows/s", rows, getRate(rows, start)));
+    }
+
+    /**
+     * Shows the number of the rows loaded, the elapsed time and the load rate.
+     *
+     * @param rows number of the loaded rows
+     * @param start start of the load in nanoseconds
+     */
+    private void showSummary(long rows, long start) {
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        logWriter.println(String.format(
+                "loaded: %d rows in %.3f s, %.0f rows/s", rows, seconds, getRate(rows, start)));
+    }
+
+    /**
+     * Calculates the load rate.
+     *
+     * @param rows number of the rows
+     * @param start start of the load in nanoseconds
+     * @return rows per second
+     */
+    private static double getRate(long rows, long start) {
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        return seconds > 0 ? rows / seconds : 0;
+    }
+
+    /**
+     * Shows the record that could not be loaded.
+     *
+     * @param e the exception was thrown
+     */
+    private void showDataError(IllegalArgumentException e) {
+        logWriter.println(AnsiColor.RED_BOLD_BRIGHT + "ERROR: " + e.getMessage() + AnsiColor.DEFAULT);
+    }
+}
@@ -0,0 +1,239 @@
+package com.remal.sqlrunner;
+
+import com.remal.sqlrunner.connection.ConnectionProvider;
+import com.remal.sqlrunner.domain.MergeMode;
+import com.remal.sqlrunner.util.RowArrayResultSet;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Executes the partitions of a query on parallel connections and merges their
+ * rows into one result set. Each partition is read by its own thread into a
+ * bounded queue, the merged result set takes the rows from the queues either
+ * in the order of the partitions or in the order of their arrival.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+class PartitionedQuery implements AutoCloseable {
+
+    private static final int ROW_QUEUE_CAPACITY = 1000;
+    private static final Object[] END_OF_PARTITION = new Object[0];
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ConnectionProvider connectionProvider;
+    private final List<String> queries;
+    private final MergeMode mergeMode;
+    private final int fetchSize;
+    private final ExecutorService threads;
+    private final List<BlockingQueue<Object[]>> queues = new ArrayList<>();
+    private final List<Statement> statements = Collections.synchronizedList(new ArrayList<>());
+    private final CompletableFuture<ResultSetMetaData> metadata = new CompletableFuture<>();
+    private final AtomicLongArray rowCounts;
+
+    private volatile SQLException error;
+    private volatile boolean cancelled;
+    private int currentQueue;
+    private int finishedPartitions;
+
+    /**
+     * Constructor.
+     *
+     * @param connectionProvider provides the connections of the partitions
+     * @param queries the sub-queries of the partitions
+     * @param mergeMode controls the order of the rows
+     * @param fetchSize number of the rows fetched in one round trip, 0 keeps the default of the driver
+     */
+    PartitionedQuery(ConnectionProvider connectionProvider, List<String> queries, MergeMode mergeMode,
+                     int fetchSize) {
+        this.connectionProvider = connectionProvider;
+        this.queries = queries;
+        this.mergeMode = mergeMode;
+        this.fetchSize = fetchSize;
+        this.rowCounts = new AtomicLongArray(queries.size());
+        this.threads = Executors.newFixedThreadPool(queries.size(), runnable -> {
+            Thread thread = new Thread(runnable, "partition");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int queueCount = mergeMode == MergeMode.ORDERED ? queries.size() : 1;
+        for (int i = 0; i < queueCount; i++) {
+            queues.add(new ArrayBlockingQueue<>(ROW_QUEUE_CAPACITY));
+        }
+    }
+
+    /**
+     * Starts the execution of the partitions and waits until the first one
+     * delivers its metadata.
+     *
+     * @return the merged result set
+     * @throws SQLException if the partitions can not be executed
+     */
+    ResultSet open() throws SQLException {
+        for (int i = 0; i < queries.size(); i++) {
+            int partition = i;
+            threads.execute(() -> readPartition(partition));
+        }
+
+        try {
+            return RowArrayResultSet.create(metadata.get(), this::nextRow);
+        } catch (ExecutionException e) {
+            throw (SQLException) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for the partitions", e);
+        }
+    }
+
+    /**
+     * Summary of the execution.
+     *
+     * @return number of the rows read from each partition
+     */
+    String getReport() {
+        StringBuilder report = new StringBuilder("partitions:");
+        for (int i = 0; i < rowCounts.length(); i++) {
+            report.append(String.format(" #%d: %d rows", i + 1, rowCounts.get(i)));
+            report.append(i < rowCounts.length() - 1 ? "," : "");
+        }
+
+        return report.toString();
+    }
+
+    /**
+     * Cancels the partitions that are still running and releases their connections.
+     */
+    @Override
+    public void close() {
+        cancelled = true;
+        synchronized (statements) {
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    // the statement has already finished
+                }
+            }
+        }
+
+        threads.shutdownNow();
+        try {
+            threads.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executes a partition and puts its rows into the queue.
+     *
+     * @param partition index of the partition
+     */
+    private void readPartition(int partition) {
+        BlockingQueue<Object[]> queue = queues.get(mergeMode == MergeMode.ORDERED ? partition : 0);
+        try (Connection connection = connectionProvider.getConnection();
+             Statement statement = connection.createStatement()) {
+
+            statements.add(statement);
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+
+            try (ResultSet resultSet = statement.executeQuery(queries.get(partition))) {
+                ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+                int[] columnTypes = RowArrayResultSet.getColumnTypes(resultSetMetaData);
+                metadata.complete(RowArrayResultSet.copyMetaData(resultSetMetaData));
+
+                while (!cancelled && resultSet.next()) {
+                    queue.put(RowArrayResultSet.readRow(resultSet, columnTypes));
+                    rowCounts.incrementAndGet(partition);
+                }
+            }
+
+        } catch (SQLException e) {
+            fail(e);
+        } catch (RuntimeException e) {
+            fail(new SQLException(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finishPartition(queue);
+        }
+    }
+
+    /**
+     * Registers the first error of the partitions.
+     *
+     * @param e the error
+     */
+    private void fail(SQLException e) {
+        if (Objects.isNull(error)) {
+            error = e;
+        }
+        metadata.completeExceptionally(e);
+    }
+
+    /**
+     * Marks the end of the rows of a partition.
+     *
+     * @param queue the queue of the partition
+     */
+    private void finishPartition(BlockingQueue<Object[]> queue) {
+        try {
+            if (!cancelled) {
+                queue.put(END_OF_PARTITION);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes the next row from the queues.
+     *
+     * @return the row or null after the last row of the last partition
+     * @throws SQLException if a partition failed
+     */
+    private Object[] nextRow() throws SQLException {
+        Object[] row = null;
+        try {
+            while (Objects.isNull(row) && Objects.isNull(error) && finishedPartitions < queries.size()) {
+                Object[] item = queues.get(currentQueue).take();
+                if (item == END_OF_PARTITION) {
+                    finishedPartitions++;
+                    if (mergeMode == MergeMode.ORDERED && currentQueue < queues.size() - 1) {
+                        currentQueue++;
+                    }
+                } else {
+                    row = item;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while reading the partitions", e);
+        }
+
+        if (Objects.nonNull(error)) {
+            throw error;
+        }
+        return row;
+    }
+}
@@ -0,0 +1,223 @@
+package com.remal.sqlrunner;
+
+import com.remal.sqlrunner.metrics.StatementMetrics;
+import com.remal.sqlrunner.output.ResultSetWriter;
+import com.remal.sqlrunner.util.CountingOutputStream;
+import com.remal.sqlrunner.util.FetchSizeTuner;
+import com.remal.sqlrunner.util.RowArrayResultSet;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Overlaps the fetch of the query results with writing them to the output.
+ * The thread that executes the statements fetches the rows into a bounded
+ * buffer and a separate output thread formats and writes them. When the
+ * buffer is full the fetch waits for the output, so the memory used by a
+ * result is limited by the size of the buffer.
+ *
+ * <p>The results are written by one output thread in the order of the
+ * queries. The fetch of a query returns when its last row is in the buffer,
+ * so the next statement can be sent to the database while the output thread
+ * still writes the end of the previous result.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+class ResultPipeline implements AutoCloseable {
+
+    private static final Object[] END_OF_ROWS = new Object[0];
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ResultSetWriter resultSetWriter;
+    private final CountingOutputStream countingStream;
+    private final int capacity;
+    private final ExecutorService outputThread;
+    private final AtomicLong outputWaitNanos = new AtomicLong();
+    private Future<Long> pending;
+    private long rows;
+    private long fetchWaitNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param resultSetWriter writes the rows to the output, it is only used by the output thread
+     * @param countingStream counts the bytes written by the result set writer
+     * @param capacity maximum number of the fetched rows waiting for the output
+     */
+    ResultPipeline(ResultSetWriter resultSetWriter, CountingOutputStream countingStream, int capacity) {
+        this.resultSetWriter = resultSetWriter;
+        this.countingStream = countingStream;
+        this.capacity = capacity;
+        this.outputThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "output");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fetches the rows of the result set and hands them over to the output
+     * thread. The method returns when the last row is in the buffer, the
+     * output may still be in progress, see {@link #await()}.
+     *
+     * @param resultSet the result set
+     * @param tuner moves the cursor and measures the fetches
+     * @param metrics measurements of the query, the output thread adds the written bytes
+     * @return number of the fetched rows
+     * @throws SQLException if the rows can not be fetched
+     */
+    long write(ResultSet resultSet, FetchSizeTuner tuner, StatementMetrics metrics) throws SQLException {
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        int[] columnTypes = RowArrayResultSet.getColumnTypes(resultSetMetaData);
+        BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(capacity);
+        ResultSet view = RowArrayResultSet.create(
+                RowArrayResultSet.copyMetaData(resultSetMetaData), () -> nextRow(queue));
+        Future<Long> output = outputThread.submit(() -> writeRows(view, metrics));
+        pending = output;
+
+        long fetchedRows = 0;
+        try {
+            boolean running = true;
+            while (running && tuner.next(resultSet)) {
+                running = put(queue, RowArrayResultSet.readRow(resultSet, columnTypes), output);
+                fetchedRows += running ? 1 : 0;
+            }
+        } finally {
+            put(queue, END_OF_ROWS, output);
+            rows += fetchedRows;
+        }
+
+        return fetchedRows;
+    }
+
+    /**
+     * Waits until the output thread has written the rows of the last query.
+     *
+     * @throws IOException if the rows could not be written
+     */
+    void await() throws IOException {
+        if (Objects.nonNull(pending)) {
+            try {
+                pending.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for the output", e);
+            } finally {
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Summary of the pipeline.
+     *
+     * @return the rows that went through the pipeline and the time the two sides waited for each other
+     */
+    String getReport() {
+        return String.format("rows: %d, fetch waited for the output: %d ms, output waited for the fetch: %d ms",
+                rows,
+                TimeUnit.NANOSECONDS.toMillis(fetchWaitNanos),
+                TimeUnit.NANOSECONDS.toMillis(outputWaitNanos.get()));
+    }
+
+    /**
+     * Stops the output thread, the rows that have not been written yet are dropped.
+     */
+    @Override
+    public void close() {
+        outputThread.shutdownNow();
+        try {
+            outputThread.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Puts a row into the buffer. If the buffer is full then it waits for the
+     * output thread, unless the output has stopped because of an error.
+     *
+     * @param queue the buffer
+     * @param row the row
+     * @param output the output of the rows
+     * @return false if the output has stopped and the row has been dropped
+     */
+    private boolean put(BlockingQueue<Object[]> queue, Object[] row, Future<Long> output) {
+        boolean accepted = queue.offer(row);
+        long start = System.nanoTime();
+        try {
+            while (!accepted && !output.isDone()) {
+                accepted = queue.offer(row, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        fetchWaitNanos += System.nanoTime() - start;
+        return accepted;
+    }
+
+    /**
+     * Runs on the output thread: writes the rows taken from the buffer. Only
+     * the output thread writes to the counting stream, so the bytes are
+     * counted here, after the last row of the query has been flushed.
+     *
+     * @param view result set view over the buffer
+     * @param metrics measurements of the query, the written bytes are added
+     * @return number of the rows that have been written
+     * @throws SQLException if the rows can not be read from the buffer
+     * @throws IOException if the rows can not be written
+     */
+    private long writeRows(ResultSet view, StatementMetrics metrics) throws SQLException, IOException {
+        long bytesBefore = countingStream.getCount();
+        long writtenRows;
+        try {
+            writtenRows = resultSetWriter.write(view, new FetchSizeTuner(view, false));
+            resultSetWriter.flush();
+        } finally {
+            metrics.addBytesWritten(countingStream.getCount() - bytesBefore);
+        }
+
+        return writtenRows;
+    }
+
+    /**
+     * Runs on the output thread: takes the next row from the buffer.
+     *
+     * @param queue the buffer of the query that is being written
+     * @return the row or null after the last row
+     * @throws SQLException if the output thread is interrupted
+     */
+    private Object[] nextRow(BlockingQueue<Object[]> queue) throws SQLException {
+        Object[] row;
+        long start = System.nanoTime();
+        try {
+            Object[] item = queue.take();
+            row = item == END_OF_ROWS ? null : item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for the rows", e);
+        } finally {
+            outputWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        return row;
+    }
+}
@@ -0,0 +1,150 @@
+package com.remal.sqlrunner;
+
+import com.remal.sqlrunner.util.PreparedStatementCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Execution state that belongs to one database connection: the statement used
+ * for the plain SQL, the statements collected into the current batch and the
+ * cached prepared statements. The connection can be replaced after it was
+ * lost.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+class Session implements AutoCloseable {
+
+    private final int preparedStatementCacheSize;
+    private final List<String> batch = new ArrayList<>();
+    private Connection connection;
+    private Statement statement;
+    private PreparedStatementCache preparedStatements;
+    private Statement batchStatement;
+
+    /**
+     * Constructor.
+     *
+     * @param connection the database connection, it is closed together with the session
+     * @param preparedStatementCacheSize maximum number of the cached prepared statements
+     * @throws SQLException if the statement can not be created
+     */
+    Session(Connection connection, int preparedStatementCacheSize) throws SQLException {
+        this.preparedStatementCacheSize = preparedStatementCacheSize;
+        this.connection = connection;
+        this.statement = connection.createStatement();
+        this.preparedStatements = new PreparedStatementCache(connection, preparedStatementCacheSize);
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the database connection
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the statement used to execute the plain SQL
+     */
+    Statement getStatement() {
+        return statement;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the cached prepared statements of the connection
+     */
+    PreparedStatementCache getPreparedStatements() {
+        return preparedStatements;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the SQL statements added to the current batch
+     */
+    List<String> getBatch() {
+        return batch;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the statement that holds the current batch, or null if the batch is empty
+     */
+    Statement getBatchStatement() {
+        return batchStatement;
+    }
+
+    /**
+     * Registers a statement added to the batch of the given JDBC statement.
+     *
+     * @param target the JDBC statement that holds the batch
+     * @param sql the SQL statement added to the batch
+     */
+    void addToBatch(Statement target, String sql) {
+        batchStatement = target;
+        batch.add(sql);
+    }
+
+    /**
+     * Forgets the current batch.
+     *
+     * @throws SQLException if the batch of the JDBC statement can not be cleared
+     */
+    void clearBatch() throws SQLException {
+        batch.clear();
+        if (Objects.nonNull(batchStatement)) {
+            Statement target = batchStatement;
+            batchStatement = null;
+            target.clearBatch();
+        }
+    }
+
+    /**
+     * Closes the current connection and continues on a new one. The batch
+     * and the cached prepared statements of the old connection are dropped.
+     *
+     * @param newConnection the new database connection
+     * @throws SQLException if the statement of the new connection can not be created
+     */
+    void reconnect(Connection newConnection) throws SQLException {
+        try {
+            close();
+        } catch (SQLException e) {
+            // the old connection is dropped anyway
+        }
+
+        batch.clear();
+        batchStatement = null;
+        connection = newConnection;
+        statement = newConnection.createStatement();
+        preparedStatements = new PreparedStatementCache(newConnection, preparedStatementCacheSize);
+    }
+
+    /**
+     * Closes the statements and gives back the connection.
+     *
+     * @throws SQLException in case of error
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            preparedStatements.close();
+            statement.close();
+        } finally {
+            connection.close();
+        }
+    }
+}
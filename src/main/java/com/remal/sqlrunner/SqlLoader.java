@@ -0,0 +1,138 @@
+package com.remal.sqlrunner;
+
+import com.remal.sqlrunner.domain.ExitCode;
+import com.remal.sqlrunner.domain.InputFormat;
+import com.remal.sqlrunner.picocli.ConnectionOptions;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * The load command of the SQL command-line tool.
+ * It loads a CSV or TSV file into a database table.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+@Command(name = "SqlRunner load",
+        sortOptions = false,
+        usageHelpWidth = 100,
+        description = "Loads a CSV or TSV file into a database table. The values are sent to the database in arrays "
+                + "of bind parameters.%n",
+        parameterListHeading = "General options:%n",
+        exitCodeListHeading = "%nExit codes:%n",
+        exitCodeOnUsageHelp = ExitCode.CLI_ERROR_EXIT_CODE,
+        exitCodeList = {
+                "0:Successful program execution.",
+                "1:An unexpected error appeared while executing the SQL statement.",
+                "2:Usage error. The user input for the command was incorrect.",
+                "3:Internal program error." },
+        footerHeading = "%nPlease report issues at arnold.somogyi@gmail.com.",
+        footer = "%nDocumentation, source code: https://github.com/zappee/sql-runner.git")
+public class SqlLoader implements Callable<Integer> {
+
+    /**
+     * The first command line parameter that selects this command.
+     */
+    public static final String COMMAND_NAME = "load";
+
+    private static final String DEFAULT_ARRAY_SIZE = "1000";
+    private static final String DEFAULT_COMMIT_INTERVAL = "10000";
+
+    @Option(names = {"-?", "--help"},
+            usageHelp = true,
+            description = "Display this help and exit.")
+    private boolean help;
+
+    @Option(names = {"-q", "--quiet"},
+            description = "In this mode nothing will be printed to the output.")
+    private boolean quiet;
+
+    @Option(names = {"-f", "--file"},
+            required = true,
+            description = "Path to the UTF-8 encoded data file.")
+    private String dataFile;
+
+    @Option(names = {"--format"},
+            defaultValue = "CSV",
+            description = "Format of the data file. Supported formats: ${COMPLETION-CANDIDATES}. In CSV an empty "
+                    + "value without double quotes, in TSV \\N is loaded as NULL.%n"
+                    + "  Default: CSV")
+    private InputFormat format;
+
+    @Option(names = {"--table"},
+            required = true,
+            description = "Name of the table the records are loaded into.")
+    private String table;
+
+    @Option(names = {"--columns"},
+            split = ",",
+            paramLabel = "<column>",
+            description = "Comma separated list of the columns the values of the records are loaded into. "
+                    + "Default: the header of the file if --header is given, otherwise all the columns of the "
+                    + "table in their order.")
+    private List<String> columns = new ArrayList<>();
+
+    @Option(names = {"-H", "--header"},
+            description = "The first record of the file holds the name of the columns, it is not loaded.")
+    private boolean header;
+
+    @Option(names = {"--array-size"},
+            defaultValue = DEFAULT_ARRAY_SIZE,
+            description = "Number of the records bound to the INSERT statement and sent to the database in one "
+                    + "round trip.%n"
+                    + "  Default: " + DEFAULT_ARRAY_SIZE)
+    private int arraySize;
+
+    @Option(names = {"-N", "--commit-every"},
+            defaultValue = DEFAULT_COMMIT_INTERVAL,
+            paramLabel = "<rows>",
+            description = "Number of the records inserted in one transaction. Value 0 commits once at the end.%n"
+                    + "  Default: " + DEFAULT_COMMIT_INTERVAL)
+    private long commitInterval;
+
+    @Option(names = {"--direct-path"},
+            description = "Inserts the records with the APPEND_VALUES hint, so Oracle writes them directly into "
+                    + "the data files, every array is committed. SQL Server loads them with the bulk copy API. "
+                    + "The triggers are not fired. Other dialects use conventional inserts.")
+    private boolean directPath;
+
+    @Mixin
+    private ConnectionOptions connectionOptions;
+
+    private final PrintStream out;
+
+    /**
+     * Constructor.
+     *
+     * @param out the output of the execution
+     */
+    public SqlLoader(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * It is used to create a thread.
+     *
+     * @return exit code
+     */
+    @Override
+    public Integer call() {
+        BulkLoader loader = new BulkLoader(
+                quiet, connectionOptions.getUser(), connectionOptions.getPassword().getBytes(), out);
+        loader.setDialect(connectionOptions.getDialect());
+        loader.setArraySize(arraySize, commitInterval);
+        loader.setDirectPath(directPath);
+
+        ExitCode exitCode = loader.load(
+                connectionOptions.getJdbcUrl(), Paths.get(dataFile), format, header, table, columns);
+        return exitCode.getExitCode();
+    }
+}
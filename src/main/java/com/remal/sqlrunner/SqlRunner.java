@@ -1,20 +1,39 @@
 package com.remal.sqlrunner;
 
-import com.remal.sqlrunner.domain.Dialect;
+import com.remal.sqlrunner.connection.ConnectionPools;
+import com.remal.sqlrunner.domain.CommitStrategy;
 import com.remal.sqlrunner.domain.ExitCode;
+import com.remal.sqlrunner.domain.MergeMode;
+import com.remal.sqlrunner.domain.OutputFormat;
+import com.remal.sqlrunner.domain.PartitionStrategy;
 import com.remal.sqlrunner.domain.SqlCommandSeparator;
+import com.remal.sqlrunner.picocli.ConnectionOptions;
 import com.remal.sqlrunner.picocli.CustomOptionRenderer;
+import com.remal.sqlrunner.server.Protocol;
+import com.remal.sqlrunner.server.SqlRunnerClient;
+import com.remal.sqlrunner.server.SqlRunnerServer;
+import com.remal.sqlrunner.util.RetryPolicy;
 import com.remal.sqlrunner.util.SqlCommandsParser;
 import picocli.CommandLine;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SQL command-line tool.
@@ -52,13 +71,6 @@ public class SqlRunner implements Callable<Integer> {
             description = "In this mode nothing will be printed to the output.")
     private boolean quiet;
 
-    @Option(names = {"-c", "--dialect"},
-            defaultValue = Dialect.ORACLE_VALUE,
-            description = "SQL dialect used during the execution of the SQL statement. "
-                    + "Supported SQL dialects: ${COMPLETION-CANDIDATES}.%n"
-                    + "  Default: " + Dialect.ORACLE_VALUE)
-    private Dialect dialect;
-
     @Option(names = {"-e", "--cmdsep"},
             defaultValue = SqlCommandSeparator.SEMICOLON_VALUE,
             paramLabel = "<commandSeparator>",
@@ -68,67 +80,244 @@ public class SqlRunner implements Callable<Integer> {
                     + "  Default: " + SqlCommandSeparator.SEMICOLON_VALUE)
     private String sqlCommandSeparator;
 
+    @Option(names = {"-b", "--batch-size"},
+            defaultValue = "1",
+            paramLabel = "<batchSize>",
+            description = "Number of the consecutive DML statements sent to the database in one batch. The batch "
+                    + "is flushed by queries, DDL and COMMIT statements. Value 1 turns off the batching.%n"
+                    + "  Default: 1")
+    private int batchSize;
+
+    @Option(names = {"-C", "--commit"},
+            defaultValue = "AUTO",
+            paramLabel = "<commitStrategy>",
+            description = "Controls when the transaction is committed. AUTO commits every statement, STATEMENTS "
+                    + "commits after every --commit-every statement that is not a query, INTERVAL commits when "
+                    + "--commit-every milliseconds have elapsed since the last commit, END commits once at the end. "
+                    + "Except in AUTO mode a failing statement rolls back the open transaction. Supported values: "
+                    + "${COMPLETION-CANDIDATES}.%n"
+                    + "  Default: AUTO")
+    private CommitStrategy commitStrategy;
+
+    @Option(names = {"-N", "--commit-every"},
+            defaultValue = "1000",
+            paramLabel = "<n>",
+            description = "Number of the statements in STATEMENTS mode, milliseconds in INTERVAL mode between two "
+                    + "commits.%n"
+                    + "  Default: 1000")
+    private long commitInterval;
+
+    @Option(names = {"-W", "--resume"},
+            description = "Records the commit points of the script file in a checkpoint journal next to the "
+                    + "script. If the journal of a failed execution of the same script exists then the execution "
+                    + "continues after its last commit point. Needs a --commit strategy other than AUTO.")
+    private boolean resume;
+
+    @Option(names = {"-T", "--retries"},
+            defaultValue = "0",
+            paramLabel = "<retries>",
+            description = "Maximum number of the retries of a statement that failed with a temporary error, e.g. a "
+                    + "deadlock or a lost connection. The open transaction is rolled back and its statements are "
+                    + "executed again on the same or on a new connection. Value 0 turns off the retries.%n"
+                    + "  Default: 0")
+    private int retries;
+
+    @Option(names = {"-E", "--retry-budget"},
+            defaultValue = "10",
+            paramLabel = "<retries>",
+            description = "Maximum number of the retries on a connection during the whole execution, including "
+                    + "the retries of the logon.%n"
+                    + "  Default: 10")
+    private int retryBudget;
+
+    @Option(names = {"-D", "--retry-delay"},
+            defaultValue = "100",
+            paramLabel = "<ms>",
+            description = "Wait time before the first retry in milliseconds. It is doubled before each further "
+                    + "retry up to 30 seconds and a random jitter is applied.%n"
+                    + "  Default: 100")
+    private long retryDelay;
+
+    @Option(names = {"-L", "--retry-codes"},
+            split = ",",
+            paramLabel = "<errorCode>",
+            description = "Comma separated list of the vendor error codes handled as temporary errors besides "
+                    + "the known deadlock, lock timeout and connection errors of the dialect.")
+    private List<Integer> retryCodes = new ArrayList<>();
+
+    @Option(names = {"-K", "--cache-ttl"},
+            defaultValue = "0",
+            paramLabel = "<seconds>",
+            description = "Caches the results of the queries locally and answers a repeated query from the cache "
+                    + "while its result is younger than the given seconds. A statement other than a query drops "
+                    + "the cached results of the database. Value 0 turns off the cache.%n"
+                    + "  Default: 0")
+    private long cacheTtl;
+
+    @Option(names = {"-G", "--cache-size"},
+            defaultValue = "64",
+            paramLabel = "<MB>",
+            description = "Maximum memory size of the cached query results in megabytes. Bigger results are not "
+                    + "cached.%n"
+                    + "  Default: 64")
+    private long cacheSize;
+
+    @Option(names = {"-V", "--cache-dir"},
+            paramLabel = "<directory>",
+            description = "Directory where the cached query results are written, so they are reused by the later "
+                    + "executions as well.")
+    private String cacheDirectory;
+
+    @Option(names = {"-n", "--parallel"},
+            defaultValue = "1",
+            paramLabel = "<workers>",
+            description = "Number of the parallel connections executing the DML statements. Each connection has "
+                    + "its own transaction. Queries and DDL statements wait for the workers and run on the main "
+                    + "connection.%n"
+                    + "  Default: 1")
+    private int parallel;
+
+    @Option(names = {"-k", "--partition-by"},
+            defaultValue = "TABLE",
+            paramLabel = "<partitionStrategy>",
+            description = "Controls how the DML statements are distributed among the parallel connections. "
+                    + "Supported values: ${COMPLETION-CANDIDATES}.%n"
+                    + "  Default: TABLE")
+    private PartitionStrategy partitionStrategy;
+
+    @Option(names = {"-z", "--pool-size"},
+            defaultValue = "1",
+            paramLabel = "<poolSize>",
+            description = "Maximum number of the physical database connections kept open and reused. In parallel "
+                    + "mode at least one connection per worker is opened.%n"
+                    + "  Default: 1")
+    private int poolSize;
+
+    @Option(names = {"-y", "--statement-cache"},
+            defaultValue = "0",
+            paramLabel = "<statementCacheSize>",
+            description = "Number of the statements cached by the JDBC driver per connection. Value 0 turns off "
+                    + "the cache.%n"
+                    + "  Default: 0")
+    private int statementCacheSize;
+
+    @Option(names = {"-r", "--parameterize"},
+            description = "Replaces the literals of the DML statements with bind parameters and executes the "
+                    + "statements with the same shape through the same prepared statement. Integers are bound as "
+                    + "long values, other numbers as decimals, so the database may resolve the type of an "
+                    + "expression differently than with the literals.")
+    private boolean parameterize;
+
+    @Option(names = {"-R", "--prepared-cache"},
+            defaultValue = "100",
+            paramLabel = "<preparedCacheSize>",
+            description = "Maximum number of the prepared statements kept open per connection in parameterized "
+                    + "mode. The least recently used statement is closed when the cache is full.%n"
+                    + "  Default: 100")
+    private int preparedCacheSize;
+
+    @Option(names = {"-F", "--fetch-size"},
+            defaultValue = "0",
+            paramLabel = "<fetchSize>",
+            description = "Number of the rows read from the database in one network round trip while the result "
+                    + "of a query is fetched. Value 0 keeps the default of the JDBC driver.%n"
+                    + "  Default: 0")
+    private int fetchSize;
+
+    @Option(names = {"-a", "--adaptive-fetch"},
+            description = "Doubles the fetch size while waiting for the database takes longer than writing the "
+                    + "rows. The fetch size is limited by the measured size of the rows.")
+    private boolean adaptiveFetchSize;
+
+    @Option(names = {"-Y", "--pipeline"},
+            defaultValue = "0",
+            paramLabel = "<rows>",
+            description = "Fetches the rows of the queries into a buffer of the given size and writes them to the "
+                    + "output on a separate thread, so the fetch and the formatting of the rows overlap. With "
+                    + "--output the next statement is sent while the previous result is still being written. "
+                    + "Value 0 turns off the pipeline.%n"
+                    + "  Default: 0")
+    private int pipelineCapacity;
+
+    @Option(names = {"-x", "--split-by"},
+            paramLabel = "<column>",
+            description = "Column used to split the queries into partitions that are read on parallel connections. "
+                    + "Numeric columns are split into key ranges of equal width, other columns by their hash value. "
+                    + "The column must appear in the select list.")
+    private String splitColumn;
+
+    @Option(names = {"-X", "--partitions"},
+            defaultValue = "1",
+            paramLabel = "<partitions>",
+            description = "Number of the partitions of the queries if --split-by is given. The partitions are read "
+                    + "on other connections, so they need the AUTO --commit strategy.%n"
+                    + "  Default: 1")
+    private int partitions;
+
+    @Option(names = {"-m", "--merge"},
+            defaultValue = "ORDERED",
+            paramLabel = "<mergeMode>",
+            description = "Order of the rows of the partitions in the output. ORDERED writes the partitions one "
+                    + "after the other, UNORDERED writes the rows as they arrive. Supported values: "
+                    + "${COMPLETION-CANDIDATES}.%n"
+                    + "  Default: ORDERED")
+    private MergeMode mergeMode;
+
+    @Option(names = {"-t", "--format"},
+            defaultValue = "TEXT",
+            paramLabel = "<format>",
+            description = "Format of the query results. Supported formats: ${COMPLETION-CANDIDATES}. If a binary "
+                    + "format is written to the standard output then the log messages go to the standard error.%n"
+                    + "  Default: TEXT")
+    private OutputFormat outputFormat;
+
+    @Option(names = {"-o", "--output"},
+            paramLabel = "<outputFile>",
+            description = "Path to the file where the query results are written instead of the standard output.")
+    private String outputFile;
+
+    @Option(names = {"-M", "--metrics"},
+            description = "Shows the totals, the slowest statements and the latency percentiles of the repeated "
+                    + "statement shapes at the end of the execution.")
+    private boolean showMetrics;
+
+    @Option(names = {"-O", "--metrics-out"},
+            paramLabel = "<metricsFile>",
+            description = "Path to the JSON file where the parse, execute and fetch time, the rows and the bytes "
+                    + "written by each statement are reported.")
+    private String metricsFile;
+
     @Option(names = {"-S", "--showHeader"},
             description = "Shows the name of the fields from the SQL result set.")
     private boolean showHeader;
 
-    @Option(names = {"-U", "--user"},
-            required = true,
-            description = "Name for the login.")
-    private String user;
-
-    @ArgGroup(multiplicity = "1",
-            heading = "%nSpecify a password for the connecting user:%n")
-    PasswordArgGroup passwordArgGroup;
-
-    @ArgGroup(multiplicity = "1",
-            heading = "%nProvide a JDBC URL:%n")
-    MainArgGroup mainArgGroup;
+    @Mixin
+    private ConnectionOptions connectionOptions;
 
     @ArgGroup(multiplicity = "1",
             heading = "%nSQL statement(s) to be executed:%n")
     SqlStatementGroup sqlStatementGroup;
 
+    private final PrintStream out;
+    private final PrintStream err;
+
     /**
-     * A parameter group for password.
-     * Password can be provided on two different ways:
-     *    (1) via a parameter
-     *    (1) use the interactive mode where user needs to type the password
+     * Constructor, the output of the execution is written to the standard output.
      */
-    static class PasswordArgGroup {
-        @Option(names = {"-P", "--password"},
-                required = true,
-                description = "Password for the connecting user.")
-        private String password;
-
-        @Option(names = {"-I", "--iPassword"},
-                required = true,
-                interactive = true,
-                description = "Interactive way to get the password for the connecting user.")
-        private String interactivePassword;
+    public SqlRunner() {
+        this(System.out, System.err);
     }
 
     /**
-     * Two exclusive command line parameters:
-     *    (1) JDBC URL parameter
-     *    (2) Custom connection parameters
+     * Constructor.
+     *
+     * @param out the output of the execution
+     * @param err the error output of the execution, used for the log messages when
+     *            the query results are written to the output in a binary format
      */
-    static class MainArgGroup {
-        /**
-         * JDBC URL option (only one parameter).
-         */
-        @Option(names = {"-j", "--jdbcUrl"},
-                arity = "1",
-                description = "JDBC URL, example: jdbc:oracle:<drivertype>:@//<host>:<port>/<database>.")
-        private String jdbcUrl;
-
-        /**
-         * Custom connection parameters group.
-         */
-        @ArgGroup(exclusive = false,
-                multiplicity = "1",
-                heading = "%nCustom configuration:%n")
-        private CustomConfigurationGroup customConfigurationGroup;
+    public SqlRunner(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
     }
 
     /**
@@ -150,73 +339,119 @@ public class SqlRunner implements Callable<Integer> {
     }
 
     /**
-     * Custom connection parameters.
+     * It is used to create a thread.
+     *
+     * @return exit code
      */
-    static class CustomConfigurationGroup {
-        private static final String DEFAULT_ORACLE_PORT = "1521";
-        private static final String DEFAULT_HOST = "localhost";
+    @Override
+    public Integer call() {
+        String password = connectionOptions.getPassword();
+        String jdbcUrl = connectionOptions.getJdbcUrl();
 
-        @Option(names = {"-h", "--host"},
-                required = true,
-                defaultValue = DEFAULT_HOST,
-                description = "Name of the database server.%n"
-                + "  Default: " + DEFAULT_HOST)
-        private String host;
+        boolean binaryToStandardOutput = outputFormat.isBinary() && Objects.isNull(outputFile);
+        PrintStream log = binaryToStandardOutput ? err : out;
+        SqlStatementExecutor executor = new SqlStatementExecutor(
+                quiet, showHeader, connectionOptions.getUser(), password.getBytes(), log);
+        executor.setDialect(connectionOptions.getDialect());
+        executor.setBatchSize(batchSize);
+        executor.setCommitStrategy(commitStrategy, commitInterval);
+        executor.setResume(resume);
+        executor.setRetryPolicy(new RetryPolicy(
+                connectionOptions.getDialect(), retries, retryBudget, retryDelay, retryCodes));
+        executor.setResultCache(
+                TimeUnit.SECONDS.toMillis(cacheTtl),
+                cacheSize * 1024 * 1024,
+                Objects.isNull(cacheDirectory) ? null : Paths.get(cacheDirectory));
+        executor.setParallel(parallel, partitionStrategy);
+        executor.setPoolSettings(poolSize, statementCacheSize);
+        executor.setParameterize(parameterize, preparedCacheSize);
+        executor.setFetchSize(fetchSize, adaptiveFetchSize);
+        executor.setPipeline(pipelineCapacity);
+        executor.setPartitioning(splitColumn, partitions, mergeMode);
+        executor.setMetrics(showMetrics, Objects.isNull(metricsFile) ? null : Paths.get(metricsFile));
 
-        @Option(names = {"-p", "--port"},
-                required = true,
-                defaultValue = DEFAULT_ORACLE_PORT,
-                description = "Number of the port where the server listens for requests.%n"
-                        + "  Default: " + DEFAULT_ORACLE_PORT)
-        private int port;
+        ExitCode exitCode;
+        try (OutputStream outputStream = openOutputFile()) {
+            executor.setOutput(outputFormat, binaryToStandardOutput && !quiet ? out : outputStream);
+            if (Objects.nonNull(sqlStatementGroup.sqlStatements)) {
+                List<String> sqlStatements = SqlCommandsParser.parse(
+                        sqlStatementGroup.sqlStatements, sqlCommandSeparator);
+                exitCode = executor.execute(jdbcUrl, sqlStatements);
+            } else {
+                Path path = Paths.get(sqlStatementGroup.sqlScriptFile);
+                exitCode = executor.execute(jdbcUrl, path, sqlCommandSeparator);
+            }
+        } catch (IOException e) {
+            err.println("Unable to write the output file: " + e.getMessage());
+            exitCode = ExitCode.INTERNAL_ERROR;
+        }
 
-        @Option(names = {"-d", "--database"},
-                required = true,
-                description = "Name of the particular database on the server. Also known as the SID in Oracle "
-                        + "terminology.")
-        private String database;
+        return exitCode.getExitCode();
     }
 
     /**
-     * It is used to create a thread.
+     * Opens the file where the query results are written.
      *
-     * @return exit code
+     * @return the buffered output stream of the file or null if the results go to the standard output
+     * @throws IOException if the file can not be created
      */
-    @Override
-    public Integer call() {
-        String password = passwordArgGroup.password;
-        if (Objects.isNull(password)) {
-            password = passwordArgGroup.interactivePassword;
-        }
-
-        String jdbcUrl = mainArgGroup.jdbcUrl;
-        if (Objects.isNull(jdbcUrl)) {
-            jdbcUrl = dialect.getJdbcUrl(
-                    mainArgGroup.customConfigurationGroup.host,
-                    mainArgGroup.customConfigurationGroup.port,
-                    mainArgGroup.customConfigurationGroup.database);
+    private OutputStream openOutputFile() throws IOException {
+        OutputStream outputStream = null;
+        if (Objects.nonNull(outputFile)) {
+            outputStream = new BufferedOutputStream(Files.newOutputStream(Paths.get(outputFile)));
         }
 
-        SqlStatementExecutor executor = new SqlStatementExecutor(quiet, showHeader, user, password.getBytes());
+        return outputStream;
+    }
 
-        if (Objects.nonNull(sqlStatementGroup.sqlStatements)) {
-            List<String> sqlStatements = SqlCommandsParser.parse(sqlStatementGroup.sqlStatements, sqlCommandSeparator);
-            return executor.execute(jdbcUrl, sqlStatements).getExitCode();
+    /**
+     * Parses the command line parameters and executes the SQL statements.
+     * If the first parameter is "load" then the rest of the parameters are
+     * executed by the load command.
+     *
+     * @param args command line parameters
+     * @param out the standard output of the execution
+     * @param err the standard error of the execution
+     * @return exit code
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        CommandLine cmd;
+        String[] commandArgs = args;
+        if (args.length > 0 && SqlLoader.COMMAND_NAME.equals(args[0])) {
+            cmd = new CommandLine(new SqlLoader(out));
+            commandArgs = Arrays.copyOfRange(args, 1, args.length);
         } else {
-            Path path = Paths.get(sqlStatementGroup.sqlScriptFile);
-            return executor.execute(jdbcUrl, path, sqlCommandSeparator).getExitCode();
+            cmd = new CommandLine(new SqlRunner(out, err));
         }
+        cmd.setHelpFactory(new CustomOptionRenderer());
+        cmd.setOut(new PrintWriter(out, true));
+        cmd.setErr(new PrintWriter(err, true));
+        return cmd.execute(commandArgs);
     }
 
     /**
      * The entry point of the executable JAR.
+     * If the first parameter is --server[=port] then the tool runs as a server,
+     * if it is --remote[=port] then the rest of the parameters are executed by
+     * the server.
      *
      * @param args command line parameters
      */
     public static void main(String[] args) {
-        CommandLine cmd = new CommandLine(new SqlRunner());
-        cmd.setHelpFactory(new CustomOptionRenderer());
-        int exitCode = cmd.execute(args);
+        String firstArg = args.length > 0 ? args[0] : "";
+        int exitCode;
+        if (firstArg.startsWith(SqlRunnerServer.SERVER_OPTION)) {
+            exitCode = new SqlRunnerServer(Protocol.getPort(firstArg), System.out, System.err).run();
+
+        } else if (firstArg.startsWith(SqlRunnerClient.REMOTE_OPTION)) {
+            String[] forwardedArgs = Arrays.copyOfRange(args, 1, args.length);
+            exitCode = new SqlRunnerClient(Protocol.getPort(firstArg)).run(forwardedArgs);
+
+        } else {
+            exitCode = run(args, System.out, System.err);
+            ConnectionPools.closeAll();
+        }
+
         System.exit(exitCode);
     }
 }
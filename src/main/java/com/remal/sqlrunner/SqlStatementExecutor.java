@@ -1,22 +1,65 @@
 package com.remal.sqlrunner;
 
+import com.remal.sqlrunner.cache.CachedResult;
+import com.remal.sqlrunner.cache.QueryResultCache;
+import com.remal.sqlrunner.cache.ResultCapture;
+import com.remal.sqlrunner.cache.ResultCaches;
+import com.remal.sqlrunner.connection.ConnectionPools;
+import com.remal.sqlrunner.connection.ConnectionProvider;
+import com.remal.sqlrunner.connection.PoolMetrics;
+import com.remal.sqlrunner.connection.PoolSettings;
+import com.remal.sqlrunner.domain.CommitStrategy;
+import com.remal.sqlrunner.domain.Dialect;
 import com.remal.sqlrunner.domain.ExitCode;
+import com.remal.sqlrunner.domain.MergeMode;
+import com.remal.sqlrunner.domain.NormalizedSql;
+import com.remal.sqlrunner.domain.OutputFormat;
+import com.remal.sqlrunner.domain.PartitionStrategy;
+import com.remal.sqlrunner.domain.StatementType;
+import com.remal.sqlrunner.metrics.MetricsCollector;
+import com.remal.sqlrunner.metrics.StatementMetrics;
+import com.remal.sqlrunner.output.DrainingResultSetWriter;
+import com.remal.sqlrunner.output.ResultSetWriter;
+import com.remal.sqlrunner.output.ResultSetWriters;
 import com.remal.sqlrunner.util.AnsiColor;
+import com.remal.sqlrunner.util.CheckpointJournal;
+import com.remal.sqlrunner.util.CountingOutputStream;
 import com.remal.sqlrunner.util.DevNullPrintStream;
-import com.remal.sqlrunner.util.ResultSetConverter;
-import com.remal.sqlrunner.util.SqlScriptParser;
-import oracle.jdbc.OracleConnection;
+import com.remal.sqlrunner.util.ExecutionMessages;
+import com.remal.sqlrunner.util.FetchSizeTuner;
+import com.remal.sqlrunner.util.MappedSqlScriptParser;
+import com.remal.sqlrunner.util.PreparedStatementCache;
+import com.remal.sqlrunner.util.QueryPartitioner;
+import com.remal.sqlrunner.util.RetryPolicy;
+import com.remal.sqlrunner.util.SqlLiteralNormalizer;
+import com.remal.sqlrunner.util.SqlStatementClassifier;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
-import java.nio.file.Files;
+import java.math.BigDecimal;
 import java.nio.file.Path;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class connects to the database and executes the provided SQL statement.
@@ -27,13 +70,65 @@ import java.util.Properties;
  */
 public class SqlStatementExecutor {
 
-    private static final String NEW_LINE = "\r|\n";
-    private static final String NOTHING = "";
+    private static final Object END_OF_STATEMENTS = new Object();
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 5;
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final int DEFAULT_PREPARED_STATEMENT_CACHE_SIZE = 100;
+    private static final int MAX_REPLAYED_STATEMENTS = 100_000;
 
+    private final boolean quiet;
     private PrintStream logWriter;
+    private Dialect dialect = Dialect.ORACLE;
+    private CountingOutputStream countingStream;
+    private ResultSetWriter resultSetWriter;
+    private boolean outputSharesLog;
+    private int pipelineCapacity;
+    private ResultPipeline pipeline;
+    private boolean writeAhead;
     private boolean showHeader;
     private String user;
     private byte[] password;
+    private int batchSize = 1;
+    private CommitStrategy commitStrategy = CommitStrategy.AUTO;
+    private long commitInterval;
+    private long uncommittedStatements;
+    private long lastCommitMillis;
+    private long commits;
+    private long commitNanos;
+    private boolean resume;
+    private CheckpointJournal journal;
+    private MappedSqlScriptParser script;
+    private RetryPolicy retryPolicy;
+    private final List<StatementMetrics> uncommitted = new ArrayList<>();
+    private boolean replayable;
+    private int connectionRetries;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private volatile SQLException lastSqlError;
+    private QueryResultCache resultCache;
+    private long resultCacheTtlMillis;
+    private String resultCacheIdentity;
+    private long resultCacheHits;
+    private long resultCacheMisses;
+    private int parallel = 1;
+    private PartitionStrategy partitionStrategy = PartitionStrategy.TABLE;
+    private int poolSize = 1;
+    private int statementCacheSize = 0;
+    private ConnectionProvider connectionProvider;
+    private boolean parameterize = false;
+    private int fetchSize = 0;
+    private boolean adaptiveFetchSize = false;
+    private String splitColumn;
+    private int partitions = 1;
+    private MergeMode mergeMode = MergeMode.ORDERED;
+    private int preparedStatementCacheSize = DEFAULT_PREPARED_STATEMENT_CACHE_SIZE;
+    private final List<PreparedStatementCache> preparedStatementCaches =
+            Collections.synchronizedList(new ArrayList<>());
+    private boolean showMetrics = false;
+    private Path metricsFile;
+    private MetricsCollector metricsCollector;
+    private long statementCount;
 
     /**
      * Initialization method.
@@ -44,72 +139,1214 @@ public class SqlStatementExecutor {
      * @param password password for the connecting user
      */
     public SqlStatementExecutor(boolean quiet, boolean showHeader, String user, byte[] password) {
-        this.logWriter = quiet ? DevNullPrintStream.getPrintStream() : System.out;
+        this(quiet, showHeader, user, password, System.out);
+    }
+
+    /**
+     * Initialization method.
+     *
+     * @param quiet if true then no log message will be shown
+     * @param showHeader controls whether the name of the fields from the SQL result set is displayed or not
+     * @param user name for the login
+     * @param password password for the connecting user
+     * @param out the output of the execution
+     */
+    public SqlStatementExecutor(boolean quiet, boolean showHeader, String user, byte[] password, PrintStream out) {
+        this.quiet = quiet;
+        this.logWriter = quiet ? DevNullPrintStream.getPrintStream() : out;
+        this.countingStream = new CountingOutputStream(logWriter);
+        this.resultSetWriter = quiet
+                ? new DrainingResultSetWriter()
+                : ResultSetWriters.create(OutputFormat.TEXT, countingStream, showHeader, dialect);
         this.showHeader = showHeader;
         this.user = user;
         this.password = password;
     }
 
     /**
-     * Executes the given SQL statements and returns with the execution result.
+     * Setter method.
+     * The dialect decides the driver properties, the meaning of the keywords
+     * that differ between the databases and the hash function used to split
+     * the queries.
+     *
+     * @param dialect the SQL dialect of the database
+     */
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Setter method.
+     * If the batch size is greater than one then the consecutive DML statements
+     * are sent to the database in batches. The batch is flushed when it is full
+     * or when a non-DML statement, e.g. a query, a DDL or a COMMIT comes.
+     *
+     * @param batchSize maximum number of the DML statements sent to the database in one round trip
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Setter method.
+     * If the number of the parallel workers is greater than one then the DML
+     * statements are executed on separate connections, each worker has its own
+     * transaction.
+     *
+     * @param parallel number of the parallel workers
+     * @param partitionStrategy controls which worker executes a DML statement
+     */
+    public void setParallel(int parallel, PartitionStrategy partitionStrategy) {
+        this.parallel = parallel;
+        this.partitionStrategy = partitionStrategy;
+    }
+
+    /**
+     * Setter method.
+     * The connections are taken from a pool shared within the JVM, so the
+     * physical connections are reused by the parallel workers and by the
+     * executions that follow each other.
+     *
+     * @param poolSize maximum number of the physical connections kept in the pool
+     * @param statementCacheSize number of the statements cached by the JDBC driver per connection,
+     *                           0 turns off the cache
+     */
+    public void setPoolSettings(int poolSize, int statementCacheSize) {
+        this.poolSize = poolSize;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Setter method.
+     * If the parameterization is turned on then the literals of the DML statements
+     * are replaced with bind parameters and the statements with the same shape are
+     * executed with the same prepared statement, so the database does not need to
+     * parse each of them.
+     *
+     * @param parameterize true turns on the parameterization
+     * @param preparedStatementCacheSize maximum number of the cached prepared statements per connection
+     */
+    public void setParameterize(boolean parameterize, int preparedStatementCacheSize) {
+        this.parameterize = parameterize;
+        this.preparedStatementCacheSize = preparedStatementCacheSize;
+    }
+
+    /**
+     * Setter method.
+     * By default the result of the queries is written as text to the same
+     * output as the log messages. In quiet mode the result of the queries is
+     * only written if a result stream is given, otherwise the rows are fetched
+     * but their values are not read. The dialect must be set before, it
+     * decides the type of the DATE columns in the binary formats.
+     *
+     * @param outputFormat format of the query results
+     * @param resultStream target of the query results, null means the output of the execution
+     */
+    public void setOutput(OutputFormat outputFormat, OutputStream resultStream) {
+        OutputStream target = Objects.isNull(resultStream) ? logWriter : resultStream;
+        this.outputSharesLog = target == logWriter;
+        this.countingStream = new CountingOutputStream(target);
+        this.resultSetWriter = quiet && Objects.isNull(resultStream)
+                ? new DrainingResultSetWriter()
+                : ResultSetWriters.create(outputFormat, countingStream, showHeader, dialect);
+    }
+
+    /**
+     * Setter method.
+     * In pipelined mode the rows of the queries are fetched into a bounded
+     * buffer and written to the output by a separate thread, so the fetch and
+     * the formatting of the rows overlap. If the query results are written to
+     * another stream than the log messages and the metrics are turned off then
+     * the next statement is sent to the database while the end of the previous
+     * result is still being written.
+     *
+     * @param pipelineCapacity maximum number of the fetched rows waiting for the output, 0 turns off the pipeline
+     */
+    public void setPipeline(int pipelineCapacity) {
+        this.pipelineCapacity = pipelineCapacity;
+    }
+
+    /**
+     * Setter method.
+     * The metrics record the parse, execute and fetch time, the number of the
+     * rows and the bytes written for each statement.
+     *
+     * @param showMetrics true shows a summary table of the metrics at the end of the execution
+     * @param metricsFile path to the JSON report of the metrics, null turns off the report
+     */
+    public void setMetrics(boolean showMetrics, Path metricsFile) {
+        this.showMetrics = showMetrics;
+        this.metricsFile = metricsFile;
+    }
+
+    /**
+     * Setter method.
+     * Except in AUTO mode the auto-commit of the connection is turned off and
+     * the script runs in transactions that are committed by the strategy. If a
+     * statement fails then the open transaction is rolled back. The parallel
+     * workers always commit their own transactions.
+     *
+     * @param commitStrategy controls when the transaction is committed
+     * @param commitInterval number of the statements in STATEMENTS mode, milliseconds in INTERVAL mode
+     */
+    public void setCommitStrategy(CommitStrategy commitStrategy, long commitInterval) {
+        this.commitStrategy = commitStrategy;
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Setter method.
+     * In resume mode the commit points of a script file are recorded in a
+     * checkpoint journal next to the script. If the journal of a former failed
+     * execution of the same script exists then the execution continues after
+     * its last commit point. The journal is deleted when the script has been
+     * executed successfully.
+     *
+     * @param resume true turns on the checkpoint journal
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Setter method.
+     * The retry policy decides which errors are temporary. A failed logon is
+     * retried on every connection. A failed statement is retried during the
+     * sequential execution: the open transaction is rolled back, the lost
+     * connection is replaced, the uncommitted statements of the transaction
+     * are executed again and then the failed statement. In AUTO commit mode
+     * with batches the statements are not retried, because a failed batch may
+     * have been committed partially.
+     *
+     * @param retryPolicy the retry policy, null turns off the retries
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Setter method.
+     * The results of the queries are cached locally and a repeated query is
+     * answered from the cache while its result is younger than the time to
+     * live. The results of a database and user are dropped when a statement
+     * other than a query is executed on it. The memory layer of the cache is
+     * shared by the executions of the JVM, the optional directory keeps the
+     * results between the invocations.
+     *
+     * @param ttlMillis time to live of a cached result, 0 turns off the cache
+     * @param maxBytes maximum estimated memory size of the cached results
+     * @param directory directory of the cached result files, null keeps the results in the memory only
+     */
+    public void setResultCache(long ttlMillis, long maxBytes, Path directory) {
+        this.resultCacheTtlMillis = ttlMillis;
+        this.resultCache = ttlMillis > 0 ? ResultCaches.get(maxBytes, directory) : null;
+    }
+
+    /**
+     * Setter method.
+     * If the number of the partitions is greater than one then every query is
+     * split into partitions by the value of the split column and the partitions
+     * are read on parallel connections. The other connections do not see the
+     * uncommitted changes of the session, so the partitioning needs the AUTO
+     * commit strategy.
+     *
+     * @param splitColumn the column used to split the queries, it must appear in the select list
+     * @param partitions number of the partitions
+     * @param mergeMode controls the order of the rows of the partitions in the output
+     */
+    public void setPartitioning(String splitColumn, int partitions, MergeMode mergeMode) {
+        this.splitColumn = splitColumn;
+        this.partitions = partitions;
+        this.mergeMode = mergeMode;
+    }
+
+    /**
+     * Setter method.
+     * The fetch size is the number of the rows the JDBC driver reads from the
+     * database in one network round trip.
+     *
+     * @param fetchSize initial number of the rows fetched in one round trip, 0 keeps the default of the driver
+     * @param adaptiveFetchSize true lets the fetch size grow while the round trips dominate the fetch
+     */
+    public void setFetchSize(int fetchSize, boolean adaptiveFetchSize) {
+        this.fetchSize = fetchSize;
+        this.adaptiveFetchSize = adaptiveFetchSize;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return usage statistics of the connection pool used by the last execution,
+     *         or null if no connection has been requested yet
+     */
+    public PoolMetrics getPoolMetrics() {
+        return Objects.isNull(connectionProvider) ? null : connectionProvider.getMetrics();
+    }
+
+    /**
+     * Executes the given SQL statements and returns with the execution result.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param sqlStatements the SQL statements to be executed
+     * @return 0 if the SQL statement was executed properly
+     */
+    public ExitCode execute(String jdbcUrl, List<String> sqlStatements) {
+        return execute(jdbcUrl, sqlStatements.iterator());
+    }
+
+    /**
+     * Executes the SQL statements provided by the iterator and returns with the
+     * execution result. The statements are taken from the iterator one by one,
+     * so the source of the statements can be read while they are executed.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param sqlStatements the SQL statements to be executed
+     * @return 0 if the SQL statement was executed properly
+     */
+    public ExitCode execute(String jdbcUrl, Iterator<String> sqlStatements) {
+        ExitCode exitCode;
+        if (partitions > 1 && Objects.nonNull(splitColumn) && commitStrategy != CommitStrategy.AUTO) {
+            log("%sERROR: --partitions needs the AUTO --commit strategy, the partitions are read on other "
+                    + "connections that do not see the uncommitted changes.%s",
+                    AnsiColor.RED_BOLD_BRIGHT, AnsiColor.DEFAULT);
+            exitCode = ExitCode.CLI_ERROR;
+            showExitCode(exitCode);
+
+        } else {
+            exitCode = executeStatements(jdbcUrl, sqlStatements);
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Executes the SQL statements provided by the iterator on the session of
+     * the execution.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param sqlStatements the SQL statements to be executed
+     * @return 0 if the SQL statement was executed properly
+     */
+    private ExitCode executeStatements(String jdbcUrl, Iterator<String> sqlStatements) {
+        ExitCode exitCode = ExitCode.OK;
+
+        try (MetricsCollector metrics = new MetricsCollector(showMetrics && !quiet ? logWriter : null, metricsFile);
+             Session session = openSession(jdbcUrl)) {
+
+            metricsCollector = metrics;
+            retries.set(0);
+            reconnects.set(0);
+            resultCacheIdentity = String.join("\n", jdbcUrl, String.valueOf(user));
+            resultCacheHits = 0;
+            resultCacheMisses = 0;
+            openPipeline();
+            statementCount = Objects.isNull(journal) ? 0 : journal.getStatementIndex();
+
+            if (parallel > 1) {
+                exitCode = executeParallel(jdbcUrl, session, sqlStatements);
+            } else {
+                exitCode = executeSequential(jdbcUrl, session, sqlStatements);
+            }
+
+            ExitCode outputExitCode = awaitOutput();
+            exitCode = exitCode == ExitCode.OK ? outputExitCode : exitCode;
+
+        } catch (SQLException e) {
+            String sql = "";
+            showSqlError(sql, e);
+            exitCode = ExitCode.SQL_EXECUTION_ERROR;
+
+        } catch (Exception e) {
+            showInternalError(e);
+            exitCode = ExitCode.INTERNAL_ERROR;
+
+        } finally {
+            closePipeline();
+            closeResultWriter();
+            showPreparedStatementCacheStatistics();
+            if (isRetryEnabled()) {
+                log("retries: %d, reconnects: %d", retries.get(), reconnects.get());
+            }
+            showResultCacheStatistics();
+            showExitCode(exitCode);
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Executes the statements one after the other on the main connection.
+     * Except in AUTO commit mode the transaction is committed by the commit
+     * strategy and rolled back if a statement fails. A statement that failed
+     * with a temporary error is retried if the retry policy allows it.
+     *
+     * @param jdbcUrl the JDBC URL, used to connect again if the connection is lost
+     * @param session the main connection
+     * @param sqlStatements the SQL statements to be executed
+     * @return result of the execution
+     * @throws SQLException if a statement can not be added to the batch or the connection can not be replaced
+     */
+    private ExitCode executeSequential(String jdbcUrl, Session session, Iterator<String> sqlStatements)
+            throws SQLException {
+
+        ExitCode exitCode = ExitCode.OK;
+        boolean manualCommit = commitStrategy != CommitStrategy.AUTO;
+        boolean retryStatements = isRetryEnabled() && (manualCommit || batchSize == 1);
+        commits = 0;
+        commitNanos = 0;
+        connectionRetries = 0;
+        startTransaction();
+
+        try {
+            if (manualCommit) {
+                session.getConnection().setAutoCommit(false);
+            }
+
+            while (exitCode == ExitCode.OK && sqlStatements.hasNext()) {
+                StatementMetrics statement = nextStatement(sqlStatements);
+                lastSqlError = null;
+                exitCode = executeNext(session, statement);
+                if (exitCode == ExitCode.SQL_EXECUTION_ERROR && retryStatements) {
+                    exitCode = retry(jdbcUrl, session, statement, manualCommit);
+                }
+
+                if (exitCode == ExitCode.OK && manualCommit) {
+                    exitCode = commitIfDue(session, statement);
+                }
+            }
+
+            if (exitCode == ExitCode.OK) {
+                exitCode = executeBatch(session);
+            }
+
+            if (exitCode == ExitCode.OK && manualCommit && uncommittedStatements > 0) {
+                exitCode = commitTransaction(session);
+            }
+
+        } catch (SQLException | RuntimeException e) {
+            if (manualCommit) {
+                rollbackTransaction(session);
+            }
+            throw e;
+        }
+
+        if (manualCommit) {
+            if (exitCode != ExitCode.OK) {
+                rollbackTransaction(session);
+            }
+            log("commits: %d, commit time: %d ms", commits, TimeUnit.NANOSECONDS.toMillis(commitNanos));
+        }
+        return exitCode;
+    }
+
+    /**
+     * Commits the transaction if the commit strategy says so after a statement.
+     * A COMMIT or ROLLBACK of the script starts a new transaction, an executed
+     * COMMIT is counted as a commit. The other statements are remembered, so
+     * they can be executed again if the transaction has to be retried.
+     *
+     * @param session the main connection
+     * @param statement the executed statement
+     * @return result of the commit
+     */
+    private ExitCode commitIfDue(Session session, StatementMetrics statement) {
+        ExitCode exitCode = ExitCode.OK;
+        String sql = statement.getSql().trim().toUpperCase(Locale.ENGLISH);
+        boolean commit = statement.getType() == StatementType.TRANSACTION && sql.startsWith("COMMIT");
+        boolean rollback = statement.getType() == StatementType.TRANSACTION
+                && sql.startsWith("ROLLBACK") && !sql.contains(" TO ");
+
+        if (commit || rollback) {
+            if (commit) {
+                commits++;
+                commitNanos += statement.getExecuteNanos();
+                exitCode = checkpoint();
+            }
+            startTransaction();
+
+        } else if (statement.getType() != StatementType.QUERY) {
+            rememberUncommitted(statement);
+            uncommittedStatements++;
+            boolean due = commitStrategy == CommitStrategy.STATEMENTS && uncommittedStatements >= commitInterval
+                    || commitStrategy == CommitStrategy.INTERVAL
+                    && System.currentTimeMillis() - lastCommitMillis >= commitInterval;
+            if (due) {
+                exitCode = commitTransaction(session);
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Flushes the batch and commits the transaction of the main connection.
+     * The time of the commit is mostly the time the database needs to flush
+     * its transaction log.
+     *
+     * @param session the main connection
+     * @return result of the commit
+     */
+    private ExitCode commitTransaction(Session session) {
+        ExitCode exitCode = executeBatch(session);
+        if (exitCode == ExitCode.OK) {
+            long start = System.nanoTime();
+            try {
+                session.getConnection().commit();
+                commits++;
+                startTransaction();
+            } catch (SQLException e) {
+                showSqlError("commit", e);
+                exitCode = ExitCode.SQL_EXECUTION_ERROR;
+            } finally {
+                commitNanos += System.nanoTime() - start;
+            }
+        }
+
+        if (exitCode == ExitCode.OK) {
+            exitCode = checkpoint();
+        }
+        return exitCode;
+    }
+
+    /**
+     * Starts to count the statements of a new transaction on the main
+     * connection.
+     */
+    private void startTransaction() {
+        uncommittedStatements = 0;
+        lastCommitMillis = System.currentTimeMillis();
+        uncommitted.clear();
+        replayable = true;
+    }
+
+    /**
+     * Remembers an executed statement of the open transaction if the
+     * statements are retried. A very long transaction is not retried, so its
+     * statements are not kept in the memory.
+     *
+     * @param statement the executed statement
+     */
+    private void rememberUncommitted(StatementMetrics statement) {
+        if (isRetryEnabled() && replayable) {
+            if (uncommitted.size() < MAX_REPLAYED_STATEMENTS) {
+                uncommitted.add(statement);
+            } else {
+                uncommitted.clear();
+                replayable = false;
+            }
+        }
+    }
+
+    /**
+     * Executes a failed statement again while its error is temporary and the
+     * retry budgets of the statement and of the connection allow it. Before
+     * each attempt the transaction is recovered. A query is not executed
+     * again once the writing of its result has started, because the rows
+     * and the header that have already been written would be repeated.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param session the main connection
+     * @param statement the failed statement
+     * @param manualCommit true if the auto-commit is turned off
+     * @return result of the last attempt
+     * @throws SQLException if the lost connection can not be replaced
+     */
+    private ExitCode retry(String jdbcUrl, Session session, StatementMetrics statement, boolean manualCommit)
+            throws SQLException {
+
+        ExitCode exitCode = ExitCode.SQL_EXECUTION_ERROR;
+        StatementMetrics failed = statement;
+        int attempt = 0;
+        while (exitCode != ExitCode.OK
+                && !failed.isResultStarted()
+                && Objects.nonNull(lastSqlError)
+                && attempt < retryPolicy.getStatementRetries()
+                && connectionRetries < retryPolicy.getConnectionRetries()
+                && (replayable || !manualCommit)
+                && retryPolicy.isTransient(lastSqlError)) {
+
+            attempt++;
+            connectionRetries++;
+            waitBeforeRetry(lastSqlError, attempt);
+            exitCode = recoverTransaction(jdbcUrl, session, manualCommit);
+            if (exitCode == ExitCode.OK) {
+                failed = statement.copy();
+                failed.setRetries(attempt);
+                lastSqlError = null;
+                exitCode = executeNext(session, failed);
+            }
+        }
+
+        if (exitCode != ExitCode.OK && failed.isResultStarted()) {
+            log("the result of the query has already been partly written, it is not executed again");
+        }
+        return exitCode;
+    }
+
+    /**
+     * Brings the main connection back to the state before the failed
+     * statement: the batch is dropped, the open transaction is rolled back,
+     * a lost connection is replaced and the uncommitted statements of the
+     * transaction are executed again.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param session the main connection
+     * @param manualCommit true if the auto-commit is turned off
+     * @return result of the execution of the uncommitted statements
+     * @throws SQLException if the lost connection can not be replaced
+     */
+    private ExitCode recoverTransaction(String jdbcUrl, Session session, boolean manualCommit) throws SQLException {
+        boolean valid;
+        try {
+            session.clearBatch();
+            if (manualCommit) {
+                session.getConnection().rollback();
+            }
+            valid = session.getConnection().isValid(POOL_VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            valid = false;
+        }
+
+        if (!valid) {
+            log("the connection is lost, connecting again...");
+            session.reconnect(getConnection(jdbcUrl));
+            reconnects.incrementAndGet();
+            if (fetchSize > 0) {
+                session.getStatement().setFetchSize(fetchSize);
+            }
+            preparedStatementCaches.add(session.getPreparedStatements());
+            if (manualCommit) {
+                session.getConnection().setAutoCommit(false);
+            }
+        }
+
+        ExitCode exitCode = ExitCode.OK;
+        if (!uncommitted.isEmpty()) {
+            log("executing the %d uncommitted statements of the transaction again...", uncommitted.size());
+        }
+        for (int i = 0; exitCode == ExitCode.OK && i < uncommitted.size(); i++) {
+            lastSqlError = null;
+            exitCode = executeNext(session, uncommitted.get(i).copy());
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Waits before the next attempt of a failed operation.
+     *
+     * @param e the temporary error of the failed attempt
+     * @param attempt the number of the retry, starts from 1
+     * @throws SQLException the temporary error if the wait is interrupted
+     */
+    private void waitBeforeRetry(SQLException e, int attempt) throws SQLException {
+        retries.incrementAndGet();
+        long delay = retryPolicy.getDelayMillis(attempt);
+        log("temporary error: %s, retry %d in %d ms...", e.getMessage(), attempt, delay);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return true if the failed operations are retried
+     */
+    private boolean isRetryEnabled() {
+        return Objects.nonNull(retryPolicy) && retryPolicy.isEnabled();
+    }
+
+    /**
+     * Records the position of the script after a commit in the checkpoint
+     * journal if the script is executed in resume mode.
+     *
+     * @return result of the journal write
+     */
+    private ExitCode checkpoint() {
+        ExitCode exitCode = ExitCode.OK;
+        if (Objects.nonNull(journal)) {
+            try {
+                journal.append(statementCount, script.getPosition(), script.getDelimiter());
+            } catch (IOException e) {
+                showInternalError(e);
+                exitCode = ExitCode.INTERNAL_ERROR;
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Rolls back the open transaction of the main connection after a failure.
+     *
+     * @param session the main connection
+     */
+    private void rollbackTransaction(Session session) {
+        clearBatch(session);
+        try {
+            session.getConnection().rollback();
+            log("transaction rolled back: %d executed statements were not committed, %d commits before the error",
+                    uncommittedStatements, commits);
+        } catch (SQLException e) {
+            showSqlError("rollback", e);
+        }
+    }
+
+    /**
+     * Executes the statements on parallel worker connections.
+     * The DML statements are distributed among the workers based on the partition
+     * strategy, the transaction control statements are sent to every worker. Before
+     * any other statement, e.g. a query or a DDL, is executed on the main connection,
+     * the workers commit and wait until all the statements sent to them are
+     * executed.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param session the main connection
+     * @param sqlStatements the SQL statements to be executed
+     * @return the worst result of the workers and the main connection
+     * @throws SQLException if a statement can not be added to the batch
+     * @throws InterruptedException if the thread is interrupted while waiting for the workers
+     */
+    private ExitCode executeParallel(String jdbcUrl, Session session, Iterator<String> sqlStatements)
+            throws SQLException, InterruptedException {
+
+        ExitCode exitCode = ExitCode.OK;
+        List<Worker> workers = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(parallel);
+        try {
+            for (int i = 0; i < parallel; i++) {
+                Worker worker = new Worker(i + 1, jdbcUrl);
+                workers.add(worker);
+                executorService.execute(worker);
+            }
+
+            while (exitCode == ExitCode.OK && sqlStatements.hasNext() && !anyWorkerFailed(workers)) {
+                StatementMetrics statement = nextStatement(sqlStatements);
+                StatementType type = statement.getType();
+                if (type == StatementType.DML) {
+                    workers.get(getPartition(statement.getSql())).submit(statement);
+
+                } else if (type == StatementType.TRANSACTION) {
+                    for (int i = 0; i < workers.size(); i++) {
+                        workers.get(i).submit(i == 0 ? statement : statement.copy());
+                    }
+
+                } else {
+                    awaitWorkers(workers);
+                    if (!anyWorkerFailed(workers)) {
+                        exitCode = executeNext(session, statement);
+                    }
+                }
+            }
+
+            if (exitCode == ExitCode.OK) {
+                exitCode = executeBatch(session);
+            }
+
+        } finally {
+            for (Worker worker : workers) {
+                worker.submit(END_OF_STATEMENTS);
+            }
+            executorService.shutdown();
+            while (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                log("waiting for the parallel workers...");
+            }
+        }
+
+        log("connection pool: %s", getPoolMetrics());
+        for (Worker worker : workers) {
+            log("%s", worker.getReport());
+            if (exitCode == ExitCode.OK) {
+                exitCode = worker.getExitCode();
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Reads the next statement from the script and classifies it. A statement
+     * that is not a query may modify the data, so the cached results of the
+     * connection are dropped before it is executed.
+     *
+     * @param sqlStatements the SQL statements to be executed
+     * @return the statement with its parse time
+     */
+    private StatementMetrics nextStatement(Iterator<String> sqlStatements) {
+        long start = System.nanoTime();
+        String sql = sqlStatements.next();
+        StatementType type = SqlStatementClassifier.classify(sql, dialect);
+        if (Objects.nonNull(resultCache) && type != StatementType.QUERY) {
+            resultCache.invalidate(resultCacheIdentity);
+        }
+        statementCount++;
+        return new StatementMetrics(statementCount, sql, type, System.nanoTime() - start);
+    }
+
+    /**
+     * Selects the worker that executes the DML statement.
+     *
+     * @param sql the DML statement
+     * @return index of the worker
+     */
+    private int getPartition(String sql) {
+        String key = sql;
+        if (partitionStrategy == PartitionStrategy.TABLE) {
+            key = SqlStatementClassifier.getTargetTable(sql);
+        }
+
+        return (key.hashCode() & Integer.MAX_VALUE) % parallel;
+    }
+
+    /**
+     * Makes the workers commit and waits until they execute all the statements
+     * sent to them.
+     *
+     * @param workers the parallel workers
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private void awaitWorkers(List<Worker> workers) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(workers.size());
+        for (Worker worker : workers) {
+            worker.submit(latch);
+        }
+        latch.await();
+    }
+
+    /**
+     * Checks whether any of the workers stopped because of an error.
+     *
+     * @param workers the parallel workers
+     * @return true if a worker failed
+     */
+    private boolean anyWorkerFailed(List<Worker> workers) {
+        return workers.stream().anyMatch(worker -> worker.getExitCode() != ExitCode.OK);
+    }
+
+    /**
+     * Executes the given SQL Script file and returns with the execution result.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param sqlScriptFile path to the SQL Script file
+     * @param sqlCommandSeparator a non-alphanumeric character used to separate multiple SQL statements
+     * @return 0 if the SQL statement was executed properly
+     */
+    public ExitCode execute(String jdbcUrl, Path sqlScriptFile, String sqlCommandSeparator) {
+        ExitCode exitCode;
+        log("opening the %s SQL script file...", sqlScriptFile.toString());
+        try (MappedSqlScriptParser sqlStatements =
+                     new MappedSqlScriptParser(sqlScriptFile, sqlCommandSeparator, false)) {
+            exitCode = resume
+                    ? executeResumable(jdbcUrl, sqlScriptFile, sqlStatements)
+                    : execute(jdbcUrl, sqlStatements);
+
+        } catch (Exception e) {
+            showInternalError(e);
+            exitCode = ExitCode.INTERNAL_ERROR;
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Executes the script from the last commit point of its checkpoint journal
+     * and records the new commit points. The journal only holds the points
+     * where the work of the former statements is surely committed, so it
+     * needs a commit strategy other than AUTO and sequential execution.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param sqlScriptFile path to the SQL script file
+     * @param sqlStatements the parser of the script
+     * @return 0 if the SQL statement was executed properly
+     * @throws IOException if the journal can not be read or written
+     */
+    private ExitCode executeResumable(String jdbcUrl, Path sqlScriptFile, MappedSqlScriptParser sqlStatements)
+            throws IOException {
+
+        ExitCode exitCode;
+        if (commitStrategy == CommitStrategy.AUTO || parallel > 1) {
+            log("%sERROR: --resume needs a --commit strategy other than AUTO and --parallel 1.%s",
+                    AnsiColor.RED_BOLD_BRIGHT, AnsiColor.DEFAULT);
+            exitCode = ExitCode.CLI_ERROR;
+            showExitCode(exitCode);
+
+        } else {
+            try (CheckpointJournal checkpoints = new CheckpointJournal(sqlScriptFile)) {
+                if (checkpoints.getStatementIndex() > 0) {
+                    log("resuming the script after statement %d at byte %d...",
+                            checkpoints.getStatementIndex(), checkpoints.getPosition());
+                    sqlStatements.seek(checkpoints.getPosition(), checkpoints.getDelimiter());
+                }
+
+                journal = checkpoints;
+                script = sqlStatements;
+                exitCode = execute(jdbcUrl, sqlStatements);
+                if (exitCode == ExitCode.OK) {
+                    checkpoints.delete();
+                } else {
+                    log("the script can be resumed after statement %d with --resume, checkpoint journal: %s",
+                            checkpoints.getStatementIndex(), checkpoints.getPath());
+                }
+            } finally {
+                journal = null;
+                script = null;
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Executes the next statement. The DML statements are added to the batch if
+     * batching is turned on, any other statement flushes the batch first. If the
+     * parameterization is turned on then the literals of the DML statements are
+     * sent as bind parameters of a cached prepared statement.
+     *
+     * @param session the connection used to execute the statement
+     * @param metrics the SQL statement to be executed, its measurements are recorded after the execution
+     * @return result of the execution
+     * @throws SQLException if the statement can not be added to the batch
+     */
+    private ExitCode executeNext(Session session, StatementMetrics metrics) throws SQLException {
+        String sql = metrics.getSql();
+        StatementType type = metrics.getType();
+        NormalizedSql normalizedSql = null;
+        if (parameterize && type == StatementType.DML) {
+            normalizedSql = SqlLiteralNormalizer.normalize(sql);
+        }
+
+        ExitCode exitCode = Objects.nonNull(normalizedSql)
+                ? executePrepared(session, sql, normalizedSql, metrics)
+                : executeUnprepared(session, sql, type, metrics);
+
+        metrics.setFailed(exitCode != ExitCode.OK);
+        metricsCollector.record(metrics);
+        return exitCode;
+    }
+
+    /**
+     * Executes the statement with the plain JDBC statement of the connection
+     * or adds it to the batch.
+     *
+     * @param session the connection used to execute the statement
+     * @param sql the SQL statement
+     * @param type kind of the SQL statement
+     * @param metrics measurements of the statement
+     * @return result of the execution
+     * @throws SQLException if the statement can not be added to the batch
+     */
+    private ExitCode executeUnprepared(Session session, String sql, StatementType type, StatementMetrics metrics)
+            throws SQLException {
+
+        ExitCode exitCode;
+        if (batchSize > 1 && type == StatementType.DML) {
+            exitCode = addToBatch(session, session.getStatement(), sql);
+        } else {
+            exitCode = executeBatch(session);
+            if (exitCode == ExitCode.OK) {
+                exitCode = executeStatement(session.getStatement(), sql, type, metrics);
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Executes a DML statement as a prepared statement, the literals of the
+     * statement are bound as parameters. If the database can not prepare the
+     * normalized statement then the original statement is executed without
+     * bind parameters.
+     *
+     * @param session the connection used to execute the statement
+     * @param sql the original SQL statement
+     * @param normalizedSql the statement with bind parameters
+     * @param metrics measurements of the statement
+     * @return result of the execution
+     * @throws SQLException if the statement can not be added to the batch
+     */
+    private ExitCode executePrepared(Session session, String sql, NormalizedSql normalizedSql,
+                                     StatementMetrics metrics) throws SQLException {
+        // preparing a new statement may evict the one that holds the current batch
+        ExitCode exitCode = ExitCode.OK;
+        if (!session.getPreparedStatements().contains(normalizedSql.getShape())) {
+            exitCode = executeBatch(session);
+        }
+
+        PreparedStatement preparedStatement = null;
+        if (exitCode == ExitCode.OK) {
+            try {
+                preparedStatement = session.getPreparedStatements().get(normalizedSql.getShape());
+            } catch (SQLException e) {
+                log("the statement can not be prepared, it is executed without bind parameters: %s", e.getMessage());
+                exitCode = executeUnprepared(session, sql, StatementType.DML, metrics);
+            }
+        }
+
+        if (Objects.nonNull(preparedStatement) && session.getBatchStatement() != preparedStatement) {
+            exitCode = executeBatch(session);
+        }
+
+        if (exitCode == ExitCode.OK && Objects.nonNull(preparedStatement)) {
+            bindParameters(preparedStatement, normalizedSql.getParameters());
+            if (batchSize > 1) {
+                exitCode = addToBatch(session, preparedStatement, sql);
+            } else {
+                log("SQL statement: %s", sql);
+                long start = System.nanoTime();
+                try {
+                    metrics.setRows(preparedStatement.executeUpdate());
+                } catch (SQLException e) {
+                    showSqlError(sql, e);
+                    exitCode = ExitCode.SQL_EXECUTION_ERROR;
+                }
+                metrics.addExecuteNanos(System.nanoTime() - start);
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Sets the bind parameters of the prepared statement.
+     *
+     * @param preparedStatement the prepared statement
+     * @param parameters values of the parameters, strings, longs and big decimals
+     * @throws SQLException if a parameter can not be set
+     */
+    private void bindParameters(PreparedStatement preparedStatement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof Long) {
+                preparedStatement.setLong(i + 1, (Long) parameter);
+            } else if (parameter instanceof BigDecimal) {
+                preparedStatement.setBigDecimal(i + 1, (BigDecimal) parameter);
+            } else {
+                preparedStatement.setString(i + 1, (String) parameter);
+            }
+        }
+    }
+
+    /**
+     * Adds the statement to the batch. If the current batch belongs to another
+     * JDBC statement then the current batch is executed first.
+     *
+     * @param session the connection used to execute the statement
+     * @param target the JDBC statement that holds the batch, for prepared statements
+     *               the parameters must be already bound
+     * @param sql the SQL statement
+     * @return result of the execution
+     * @throws SQLException if the statement can not be added to the batch
+     */
+    private ExitCode addToBatch(Session session, Statement target, String sql) throws SQLException {
+        ExitCode exitCode = ExitCode.OK;
+        if (Objects.nonNull(session.getBatchStatement()) && session.getBatchStatement() != target) {
+            exitCode = executeBatch(session);
+        }
+
+        if (exitCode == ExitCode.OK) {
+            log("SQL statement: %s", sql);
+            if (target instanceof PreparedStatement) {
+                ((PreparedStatement) target).addBatch();
+            } else {
+                target.addBatch(sql);
+            }
+            session.addToBatch(target, sql);
+
+            if (session.getBatch().size() >= batchSize) {
+                exitCode = executeBatch(session);
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Single SQL statement executor.
+     * The JDBC method used to send the statement to the database is chosen based on the
+     * kind of the statement, so no extra round trip is needed to find out whether the
+     * statement is a query or not.
+     *
+     * @param statement JDBC statement
+     * @param sql SQL statement to bo executed
+     * @param type kind of the SQL statement
+     * @param metrics measurements of the statement
+     * @return result of the execution
+     */
+    private ExitCode executeStatement(Statement statement, String sql, StatementType type, StatementMetrics metrics) {
+        ExitCode exitCode;
+        log("SQL statement: %s", sql);
+        long start = System.nanoTime();
+
+        switch (type) {
+            case QUERY:
+                exitCode = partitions > 1 && Objects.nonNull(splitColumn)
+                        ? executePartitionedQuery(statement, sql, metrics)
+                        : executeQuery(statement, sql, metrics);
+                break;
+
+            case DML:
+            case DDL:
+            case TRANSACTION:
+                exitCode = executeUpdate(statement, sql, metrics);
+                break;
+
+            default: exitCode = executeAny(statement, sql, metrics);
+        }
+
+        // the fetch time has been recorded by the result writer
+        metrics.addExecuteNanos(System.nanoTime() - start - metrics.getFetchNanos());
+        return exitCode;
+    }
+
+    /**
+     * Executes an SQL query and writes its result to the output.
+     *
+     * @param statement JDBC statement
+     * @param sql SQL statement to bo executed
+     * @param metrics measurements of the statement
+     * @return result of the execution
+     */
+    private ExitCode executeQuery(Statement statement, String sql, StatementMetrics metrics) {
+        ExitCode exitCode = ExitCode.OK;
+        if (Objects.nonNull(resultCache)) {
+            exitCode = executeCachedQuery(statement, sql, metrics);
+        } else {
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                exitCode = writeResult(sql, rs, true, metrics);
+            } catch (SQLException e) {
+                showSqlError(sql, e);
+                exitCode = ExitCode.SQL_EXECUTION_ERROR;
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Writes the result of the query from the result cache. If the result is
+     * not cached then the query is executed, its rows are written to the output
+     * and kept, and the complete result is put into the cache.
      *
-     * @param jdbcUrl the JDBC URL
-     * @param sqlStatements the SQL statements to be executed
-     * @return 0 if the SQL statement was executed properly
+     * @param statement JDBC statement
+     * @param sql SQL statement to bo executed
+     * @param metrics measurements of the statement
+     * @return result of the execution
      */
-    public ExitCode execute(String jdbcUrl, List<String> sqlStatements) {
+    private ExitCode executeCachedQuery(Statement statement, String sql, StatementMetrics metrics) {
         ExitCode exitCode = ExitCode.OK;
+        CachedResult cachedResult = resultCache.get(resultCacheIdentity, sql, resultCacheTtlMillis);
+        if (Objects.nonNull(cachedResult)) {
+            resultCacheHits++;
+            log("result cache hit, age of the result: %d ms",
+                    System.currentTimeMillis() - cachedResult.getCreatedMillis());
+            exitCode = writeResult(sql, cachedResult.open(), false, metrics);
 
-        try (Connection connection = getConnection(jdbcUrl);
-             Statement statement = connection.createStatement()) {
-
-            for (String sql : sqlStatements) {
-                exitCode = executeQuery(statement, sql);
-                if (exitCode != ExitCode.OK) {
-                    break;
+        } else {
+            resultCacheMisses++;
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                ResultCapture capture = new ResultCapture(rs, resultCache.getMaxBytes());
+                exitCode = writeResult(sql, capture.open(), false, metrics);
+                cachedResult = capture.getResult();
+                if (exitCode == ExitCode.OK && Objects.nonNull(cachedResult)) {
+                    resultCache.put(resultCacheIdentity, sql, cachedResult);
                 }
+            } catch (SQLException e) {
+                showSqlError(sql, e);
+                exitCode = ExitCode.SQL_EXECUTION_ERROR;
             }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Splits the query into partitions, executes them on parallel connections
+     * and writes the merged result to the output.
+     *
+     * @param statement JDBC statement used to find the range of the split column
+     * @param sql SQL statement to bo executed
+     * @param metrics measurements of the statement
+     * @return result of the execution
+     */
+    private ExitCode executePartitionedQuery(Statement statement, String sql, StatementMetrics metrics) {
+        ExitCode exitCode;
+        try {
+            List<String> queries = getPartitionQueries(statement, sql);
+            log("executing the query in %d partitions...", queries.size());
+            try (PartitionedQuery partitionedQuery = new PartitionedQuery(
+                    connectionProvider, queries, mergeMode, fetchSize);
+                 ResultSet rs = partitionedQuery.open()) {
 
+                exitCode = writeResult(sql, rs, false, metrics);
+                log("%s", partitionedQuery.getReport());
+            }
         } catch (SQLException e) {
-            String sql = "";
             showSqlError(sql, e);
             exitCode = ExitCode.SQL_EXECUTION_ERROR;
-
-        } catch (Exception e) {
-            showInternalError(e);
-            exitCode = ExitCode.INTERNAL_ERROR;
-
-        } finally {
-            showExitCode(exitCode);
         }
 
         return exitCode;
     }
 
     /**
-     * Executes the given SQL Script file and returns with the execution result.
+     * Splits the query into partitions. If the split column is a number then
+     * the partitions are key ranges of equal width, otherwise the rows are
+     * distributed by the hash value of the split column.
      *
-     * @param jdbcUrl the JDBC URL
-     * @param sqlScriptFile path to the SQL Script file
-     * @param sqlCommandSeparator a non-alphanumeric character used to separate multiple SQL statements
-     * @return 0 if the SQL statement was executed properly
+     * @param statement JDBC statement used to find the range of the split column
+     * @param sql the query
+     * @return the sub-queries of the partitions
+     * @throws SQLException if the range of the split column can not be queried
      */
-    public ExitCode execute(String jdbcUrl, Path sqlScriptFile, String sqlCommandSeparator) {
-        ExitCode exitCode;
-        try {
-            SqlScriptParser sqlScriptParser = new SqlScriptParser();
-            sqlScriptParser.setDelimiters(sqlCommandSeparator, false);
+    private List<String> getPartitionQueries(Statement statement, String sql) throws SQLException {
+        List<String> queries;
+        String probe = QueryPartitioner.getRangeProbe(sql, splitColumn);
+        log("SQL statement: %s", probe);
+        try (ResultSet rs = statement.executeQuery(probe)) {
+            rs.next();
+            if (isNumber(rs.getMetaData().getColumnType(1))) {
+                BigDecimal min = rs.getBigDecimal(1);
+                BigDecimal max = rs.getBigDecimal(2);
+                log("range of %s: %s - %s", splitColumn, min, max);
+                queries = QueryPartitioner.getRangeQueries(sql, splitColumn, min, max, partitions);
+            } else {
+                queries = QueryPartitioner.getHashQueries(sql, splitColumn, partitions, dialect);
+            }
+        }
 
-            logWriter.println(String.format("opening the %s SQL script file...", sqlScriptFile.toString()));
-            List<String> sqlStatements = sqlScriptParser.parse(Files.newBufferedReader(sqlScriptFile));
-            exitCode = execute(jdbcUrl, sqlStatements);
+        return queries;
+    }
 
-        } catch (Exception e) {
-            showInternalError(e);
-            exitCode = ExitCode.INTERNAL_ERROR;
+    /**
+     * Checks whether the SQL type is a number.
+     *
+     * @param sqlType the type from java.sql.Types
+     * @return true if the type is a number
+     */
+    private static boolean isNumber(int sqlType) {
+        boolean number;
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                number = true;
+                break;
+
+            default:
+                number = false;
         }
 
-        return exitCode;
+        return number;
     }
 
     /**
@@ -117,45 +1354,312 @@ public class SqlStatementExecutor {
      *
      * @param statement JDBC statement
      * @param sql SQL statement to bo executed
+     * @param metrics measurements of the statement
      * @return result of the execution
      */
-    private ExitCode executeQuery(Statement statement, String sql) {
+    private ExitCode executeUpdate(Statement statement, String sql, StatementMetrics metrics) {
         ExitCode exitCode = ExitCode.OK;
-        logWriter.println("SQL statement: " + sql);
-
-        try (ResultSet rs = statement.executeQuery(sql)) {
-            logWriter.println(ResultSetConverter.toString(rs, showHeader));
+        try {
+            metrics.setRows(statement.executeUpdate(sql));
         } catch (SQLException e) {
-            if ("The SQL string is not a query".contains(e.getMessage())) {
-                executeUpdate(statement, sql);
-            } else {
-                showSqlError(sql, e);
-                exitCode = ExitCode.SQL_EXECUTION_ERROR;
-            }
+            showSqlError(sql, e);
+            exitCode = ExitCode.SQL_EXECUTION_ERROR;
         }
 
         return exitCode;
     }
 
     /**
-     * Single SQL statement executor.
+     * Executes an SQL statement whose kind is not known in advance, e.g. a PL/SQL
+     * block or a procedure call. If the statement produces a result set then it
+     * is written to the output.
      *
      * @param statement JDBC statement
      * @param sql SQL statement to bo executed
+     * @param metrics measurements of the statement
      * @return result of the execution
      */
-    private ExitCode executeUpdate(Statement statement, String sql) {
+    private ExitCode executeAny(Statement statement, String sql, StatementMetrics metrics) {
         ExitCode exitCode = ExitCode.OK;
         try {
-            statement.executeUpdate(sql);
+            if (statement.execute(sql)) {
+                try (ResultSet rs = statement.getResultSet()) {
+                    exitCode = writeResult(sql, rs, true, metrics);
+                }
+            } else {
+                metrics.setRows(Math.max(statement.getUpdateCount(), 0));
+            }
+        } catch (SQLException e) {
+            showSqlError(sql, e);
+            exitCode = ExitCode.SQL_EXECUTION_ERROR;
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Writes the rows of the result set to the output. In pipelined mode the
+     * written bytes are counted by the output thread of the pipeline, with
+     * write-ahead they are only known after the output of the query has
+     * finished.
+     *
+     * @param sql the SQL statement that produced the result set
+     * @param rs the result set
+     * @param showFetchStatistics true logs the round trips of the fetch
+     * @param metrics measurements of the statement, the fetch time, the rows and the written bytes are added
+     * @return result of the execution
+     */
+    private ExitCode writeResult(String sql, ResultSet rs, boolean showFetchStatistics, StatementMetrics metrics) {
+        ExitCode exitCode = awaitOutput();
+        FetchSizeTuner tuner = null;
+        long start = System.nanoTime();
+        long bytesBefore = countingStream.getCount();
+        try {
+            if (exitCode == ExitCode.OK) {
+                tuner = new FetchSizeTuner(rs, adaptiveFetchSize);
+                metrics.setResultStarted(true);
+                metrics.setRows(Objects.isNull(pipeline)
+                        ? resultSetWriter.write(rs, tuner)
+                        : pipeline.write(rs, tuner, metrics));
+            }
         } catch (SQLException e) {
             showSqlError(sql, e);
             exitCode = ExitCode.SQL_EXECUTION_ERROR;
+        } catch (IOException e) {
+            showInternalError(e);
+            exitCode = ExitCode.INTERNAL_ERROR;
+        } finally {
+            if (Objects.isNull(pipeline)) {
+                flushResult();
+                metrics.addBytesWritten(countingStream.getCount() - bytesBefore);
+            } else if (!writeAhead) {
+                ExitCode outputExitCode = awaitOutput();
+                exitCode = exitCode == ExitCode.OK ? outputExitCode : exitCode;
+            }
+            metrics.addFetchNanos(System.nanoTime() - start);
+        }
+
+        if (showFetchStatistics && Objects.nonNull(tuner)) {
+            log("fetch: %s", tuner);
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Sends the collected DML statements to the database in one round trip.
+     *
+     * @param session the connection that holds the batch, the batch is cleared after the execution
+     * @return result of the execution
+     */
+    private ExitCode executeBatch(Session session) {
+        ExitCode exitCode = ExitCode.OK;
+        List<String> batch = session.getBatch();
+        if (!batch.isEmpty()) {
+            log("executing a batch of %d SQL statements...", batch.size());
+            StatementMetrics metrics = StatementMetrics.ofBatch(batch);
+            long start = System.nanoTime();
+            try {
+                metrics.setRows(showUpdateCounts(session.getBatchStatement().executeBatch()));
+            } catch (BatchUpdateException e) {
+                showBatchErrors(batch, e);
+                exitCode = ExitCode.SQL_EXECUTION_ERROR;
+            } catch (SQLException e) {
+                showSqlError(String.join("; ", batch), e);
+                exitCode = ExitCode.SQL_EXECUTION_ERROR;
+            } finally {
+                metrics.addExecuteNanos(System.nanoTime() - start);
+                metrics.setFailed(exitCode != ExitCode.OK);
+                metricsCollector.record(metrics);
+                clearBatch(session);
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Empties the batch of the session.
+     *
+     * @param session the connection that holds the batch
+     */
+    private void clearBatch(Session session) {
+        try {
+            session.clearBatch();
+        } catch (SQLException e) {
+            showSqlError("", e);
+        }
+    }
+
+    /**
+     * Shows the summary of the update counts returned by a batch execution.
+     *
+     * @param updateCounts update counts of the statements in the batch
+     * @return number of the affected rows
+     */
+    private long showUpdateCounts(int[] updateCounts) {
+        long affectedRows = 0;
+        int unknown = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount >= 0) {
+                affectedRows += updateCount;
+            } else {
+                unknown++;
+            }
+        }
+
+        log("batch executed: %d statements, %d rows affected, %d statements without update count",
+                updateCounts.length, affectedRows, unknown);
+        return affectedRows;
+    }
+
+    /**
+     * Shows the statements of a batch that failed or were not executed.
+     *
+     * @param batch the SQL statements of the batch
+     * @param e the exception was thrown
+     */
+    private void showBatchErrors(List<String> batch, BatchUpdateException e) {
+        int[] updateCounts = Objects.isNull(e.getUpdateCounts()) ? new int[0] : e.getUpdateCounts();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                showSqlError(batch.get(i), e);
+            }
+        }
+
+        if (updateCounts.length < batch.size()) {
+            // the driver stopped the processing at the first failing statement
+            showSqlError(batch.get(updateCounts.length), e);
+            int notExecuted = batch.size() - updateCounts.length - 1;
+            if (notExecuted > 0) {
+                log("%d statements of the batch were not executed", notExecuted);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered rows of the last query to the output, so the next
+     * log message appears after them.
+     */
+    private void flushResult() {
+        try {
+            resultSetWriter.flush();
+        } catch (IOException e) {
+            showInternalError(e);
+        }
+    }
+
+    /**
+     * Connects to the database and prepares the execution state of the connection.
+     *
+     * @param jdbcUrl the connection JDBC URL
+     * @return the session
+     * @throws SQLException in case of error
+     */
+    private Session openSession(String jdbcUrl) throws SQLException {
+        Connection connection = getConnection(jdbcUrl);
+        try {
+            Session session = new Session(connection, preparedStatementCacheSize);
+            if (fetchSize > 0) {
+                session.getStatement().setFetchSize(fetchSize);
+            }
+            preparedStatementCaches.add(session.getPreparedStatements());
+            return session;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Shows the hit and miss statistics of the prepared statement caches of the
+     * last execution.
+     */
+    private void showPreparedStatementCacheStatistics() {
+        if (parameterize) {
+            long hits = 0;
+            long misses = 0;
+            long evictions = 0;
+            synchronized (preparedStatementCaches) {
+                for (PreparedStatementCache cache : preparedStatementCaches) {
+                    hits += cache.getHits();
+                    misses += cache.getMisses();
+                    evictions += cache.getEvictions();
+                }
+                preparedStatementCaches.clear();
+            }
+
+            log("prepared statement cache: hits: %d, misses: %d, evictions: %d", hits, misses, evictions);
+        }
+    }
+
+    /**
+     * Starts the output thread of the pipelined mode. The rows are written
+     * ahead of the next statement only if the output does not mix with the
+     * log messages and the written bytes of the queries are not measured.
+     */
+    private void openPipeline() {
+        if (pipelineCapacity > 0 && !(resultSetWriter instanceof DrainingResultSetWriter)) {
+            pipeline = new ResultPipeline(resultSetWriter, countingStream, pipelineCapacity);
+            writeAhead = !outputSharesLog && !showMetrics && Objects.isNull(metricsFile);
+        }
+    }
+
+    /**
+     * Waits until the output thread has written the result of the last query.
+     *
+     * @return result of the output
+     */
+    private ExitCode awaitOutput() {
+        ExitCode exitCode = ExitCode.OK;
+        if (Objects.nonNull(pipeline)) {
+            try {
+                pipeline.await();
+            } catch (IOException e) {
+                showInternalError(e);
+                exitCode = ExitCode.INTERNAL_ERROR;
+            }
         }
 
         return exitCode;
     }
 
+    /**
+     * Stops the output thread of the pipelined mode and shows how long the
+     * fetch and the output waited for each other.
+     */
+    private void closePipeline() {
+        if (Objects.nonNull(pipeline)) {
+            pipeline.close();
+            log("result pipeline: %s", pipeline.getReport());
+            pipeline = null;
+        }
+    }
+
+    /**
+     * Writes the buffered rows and releases the resources of the result
+     * writer, the output stream is not closed.
+     */
+    private void closeResultWriter() {
+        try {
+            resultSetWriter.close();
+        } catch (IOException e) {
+            showInternalError(e);
+        }
+    }
+
+    /**
+     * Shows the hit and miss statistics of the result cache of the last
+     * execution.
+     */
+    private void showResultCacheStatistics() {
+        if (Objects.nonNull(resultCache)) {
+            long lookups = resultCacheHits + resultCacheMisses;
+            double hitRate = lookups == 0 ? 0 : 100.0 * resultCacheHits / lookups;
+            log("result cache: hits: %d, misses: %d, hit rate: %.1f%%", resultCacheHits, resultCacheMisses, hitRate);
+        }
+    }
+
     /**
      * Connects to the database.
      *
@@ -164,25 +1668,66 @@ public class SqlStatementExecutor {
      * @throws SQLException in case of error
      */
     private Connection getConnection(String jdbcUrl) throws SQLException {
-        logWriter.println("getting connection to " + jdbcUrl + "...");
-        logWriter.println(String.format("using '%s' as the username", user));
+        log("getting connection to %s...", jdbcUrl);
+        log("using '%s' as the username", user);
+
+        Properties properties = getConnectionArguments(jdbcUrl, user, new String(password));
+        PoolSettings settings = new PoolSettings(
+                Math.max(poolSize, Math.max(parallel, partitions) + 1),
+                POOL_IDLE_TIMEOUT_MILLIS,
+                POOL_VALIDATION_TIMEOUT_SECONDS,
+                POOL_BORROW_TIMEOUT_MILLIS);
+
+        connectionProvider = ConnectionPools.get(jdbcUrl, user, password, properties, settings);
+        return borrowConnection();
+    }
+
+    /**
+     * Borrows a connection from the pool. A logon that failed with a temporary
+     * error, e.g. because the listener does not accept new connections for a
+     * while, is retried if the retry policy allows it.
+     *
+     * @return java connection object
+     * @throws SQLException if the connection can not be established
+     */
+    private Connection borrowConnection() throws SQLException {
+        Connection connection = null;
+        int attempt = 0;
+        while (Objects.isNull(connection)) {
+            try {
+                connection = connectionProvider.getConnection();
+            } catch (SQLException e) {
+                attempt++;
+                boolean retry = isRetryEnabled()
+                        && attempt <= retryPolicy.getConnectionRetries()
+                        && retryPolicy.isTransient(e);
+                if (!retry) {
+                    throw e;
+                }
+                waitBeforeRetry(e, attempt);
+            }
+        }
 
-        Properties properties = getConnectionArguments(user, new String(password));
-        return DriverManager.getConnection(jdbcUrl, properties);
+        return connection;
     }
 
     /**
      * Build a list of arbitrary string tag/value pairs as connection arguments.
-     * Normally at least a "user" and "password" property should be included.
+     * Besides the "user" and "password" the dialect adds the driver specific
+     * properties of the statement cache, the batches, the fetch and the
+     * parameterized execution.
      *
+     * @param jdbcUrl the connection JDBC URL
      * @param user username
      * @param password password
      * @return connection argument list
      */
-    private Properties getConnectionArguments(String user, String password) {
-        Properties properties = new Properties();
-        properties.put(OracleConnection.CONNECTION_PROPERTY_USER_NAME, user);
-        properties.put(OracleConnection.CONNECTION_PROPERTY_PASSWORD, password);
+    private Properties getConnectionArguments(String jdbcUrl, String user, String password) {
+        Properties properties = dialect.getConnectionProperties(user, password, statementCacheSize, fetchSize);
+        if (parameterize) {
+            dialect.addParameterizeProperties(properties, jdbcUrl);
+        }
+
         return properties;
     }
 
@@ -192,54 +1737,191 @@ public class SqlStatementExecutor {
      * @param exitCode the exit code
      */
     private void showExitCode(ExitCode exitCode) {
-        String color;
-        switch (exitCode) {
-            case OK:
-                color = AnsiColor.GREEN_BOLD_BRIGHT;
-                break;
-
-            case SQL_EXECUTION_ERROR:
-            case CLI_ERROR:
-                color = AnsiColor.RED_BOLD_BRIGHT;
-                break;
-
-            default: color = AnsiColor.DEFAULT;
+        if (!quiet) {
+            ExecutionMessages.showExitCode(logWriter, exitCode);
         }
-
-        logWriter.printf("%sReturn code: %d", color, exitCode.getExitCode());
-        logWriter.printf(AnsiColor.DEFAULT);
-        logWriter.printf("%n%n");
     }
 
     /**
      * Shows information about the error message appeared while executing the application.
+     * The stack trace is written to the log as well, so in server mode it reaches the client.
      *
      * @param e the exception was thrown
      */
     private void showInternalError(Exception e) {
-        String internalErrorMessage = AnsiColor.RED_BOLD_BRIGHT
-                + "ERROR: An internal error occurred while executing the tool.%n"
-                + "Message: %s"
-                + AnsiColor.DEFAULT;
-
-        String errorMessage = String.format(internalErrorMessage, e.toString().replaceAll(NEW_LINE, NOTHING));
-        logWriter.println(errorMessage);
-        e.printStackTrace();
+        log(ExecutionMessages.getInternalError(e));
+        if (!quiet) {
+            e.printStackTrace(logWriter);
+        }
     }
 
     /**
      * Shows information about the error message appeared while executing the SQL statement.
+     * The error is kept, so the retry policy can decide whether the statement is executed again.
      * @param sql the SQL statement that was executed
      * @param e the exception was thrown
      */
     private void showSqlError(String sql, SQLException e) {
-        String sqlErrorMessage = AnsiColor.RED_BOLD_BRIGHT
-                + "ERROR: An error occurred while executing the sql statement.%n"
-                + "Message: %s%n"
-                + "SQL: %s"
-                + AnsiColor.DEFAULT;
-
-        String errorMessage = String.format(sqlErrorMessage, e.toString().replaceAll(NEW_LINE, NOTHING), sql);
-        logWriter.println(errorMessage);
+        lastSqlError = e;
+        log(ExecutionMessages.getSqlError(sql, e));
+    }
+
+    /**
+     * Writes a message to the log. In quiet mode the message is not formatted,
+     * so the arguments are only converted to text if the message is shown.
+     *
+     * @param format the message, a format string if arguments are given
+     * @param args arguments of the format string
+     */
+    private void log(String format, Object... args) {
+        if (!quiet) {
+            logWriter.println(args.length == 0 ? format : String.format(format, args));
+        }
+    }
+
+    /**
+     * Executes the statements of one partition on its own connection and
+     * transaction in parallel mode.
+     */
+    private class Worker implements Runnable {
+
+        private static final int QUEUE_CAPACITY = 1000;
+
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final int id;
+        private final String jdbcUrl;
+        private volatile ExitCode exitCode = ExitCode.OK;
+        private long executedStatements;
+        private String failedStatement;
+        private boolean endOfStatements;
+
+        /**
+         * Constructor.
+         *
+         * @param id identifier of the worker used in the report
+         * @param jdbcUrl the JDBC URL
+         */
+        Worker(int id, String jdbcUrl) {
+            this.id = id;
+            this.jdbcUrl = jdbcUrl;
+        }
+
+        /**
+         * Sends a statement or a synchronization latch to the worker. Blocks if the
+         * worker is behind.
+         *
+         * @param item the statement, the end marker or a latch to count down when the
+         *             preceding statements are committed
+         * @throws InterruptedException if the thread is interrupted while waiting
+         */
+        void submit(Object item) throws InterruptedException {
+            queue.put(item);
+        }
+
+        /**
+         * Getter method.
+         *
+         * @return result of the worker
+         */
+        ExitCode getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * Summary of the work done by this worker.
+         *
+         * @return the report
+         */
+        String getReport() {
+            String report = String.format("worker %d: %d statements executed, return code: %d",
+                    id, executedStatements, exitCode.getExitCode());
+            if (Objects.nonNull(failedStatement)) {
+                report += ", failed statement: " + failedStatement;
+            }
+
+            return report;
+        }
+
+        /**
+         * Takes the statements from the queue and executes them until the end marker
+         * arrives. After an error the remaining statements are skipped and the
+         * transaction is rolled back.
+         */
+        @Override
+        public void run() {
+            try (Session session = openSession(jdbcUrl)) {
+
+                session.getConnection().setAutoCommit(false);
+                Object item = queue.take();
+                while (item != END_OF_STATEMENTS) {
+                    if (item instanceof CountDownLatch) {
+                        try {
+                            commit(session);
+                        } finally {
+                            ((CountDownLatch) item).countDown();
+                        }
+                    } else if (exitCode == ExitCode.OK) {
+                        StatementMetrics statement = (StatementMetrics) item;
+                        exitCode = executeNext(session, statement);
+                        executedStatements++;
+                        if (exitCode != ExitCode.OK) {
+                            failedStatement = statement.getSql();
+                        }
+                    }
+                    item = queue.take();
+                }
+
+                endOfStatements = true;
+                commit(session);
+                if (exitCode != ExitCode.OK) {
+                    session.getConnection().rollback();
+                }
+
+            } catch (SQLException e) {
+                showSqlError("", e);
+                exitCode = ExitCode.SQL_EXECUTION_ERROR;
+                drainQueue();
+
+            } catch (Exception e) {
+                showInternalError(e);
+                exitCode = ExitCode.INTERNAL_ERROR;
+                drainQueue();
+            }
+        }
+
+        /**
+         * Flushes the batch and commits the transaction of the worker if no error
+         * happened so far.
+         *
+         * @param session the connection of the worker
+         * @throws SQLException in case of error
+         */
+        private void commit(Session session) throws SQLException {
+            if (exitCode == ExitCode.OK) {
+                exitCode = executeBatch(session);
+            }
+
+            if (exitCode == ExitCode.OK) {
+                session.getConnection().commit();
+            }
+        }
+
+        /**
+         * Releases the waiting threads after the worker has stopped because of an error.
+         * Nothing is taken if the end marker has already arrived.
+         */
+        private void drainQueue() {
+            try {
+                Object item = endOfStatements ? END_OF_STATEMENTS : queue.take();
+                while (item != END_OF_STATEMENTS) {
+                    if (item instanceof CountDownLatch) {
+                        ((CountDownLatch) item).countDown();
+                    }
+                    item = queue.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 }
@@ -0,0 +1,135 @@
+package com.remal.sqlrunner.cache;
+
+import com.remal.sqlrunner.util.RowArrayResultSet;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The rows of a query result kept in the cache. The values are stored as the
+ * standard Java types and driver texts read by
+ * {@link RowArrayResultSet#readRow(java.sql.ResultSet, int[])}.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class CachedResult {
+
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 8;
+    private static final int STRING_BYTES = 40;
+    private static final int NUMBER_BYTES = 24;
+    private static final int BIG_DECIMAL_BYTES = 48;
+
+    private final ResultSetMetaData metadata;
+    private final List<Object[]> rows;
+    private final long createdMillis;
+    private final long sizeBytes;
+
+    /**
+     * Constructor.
+     *
+     * @param metadata metadata of the rows, it must not depend on an open result set
+     * @param rows values of the rows
+     * @param createdMillis time when the query was executed
+     * @param sizeBytes estimated memory size of the rows
+     */
+    public CachedResult(ResultSetMetaData metadata, List<Object[]> rows, long createdMillis, long sizeBytes) {
+        this.metadata = metadata;
+        this.rows = rows;
+        this.createdMillis = createdMillis;
+        this.sizeBytes = sizeBytes;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return metadata of the rows
+     */
+    public ResultSetMetaData getMetaData() {
+        return metadata;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return values of the rows
+     */
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return time when the query was executed
+     */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return estimated memory size of the rows
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Creates a new result set over the cached rows.
+     *
+     * @return the result set
+     */
+    public ResultSet open() {
+        Iterator<Object[]> iterator = rows.iterator();
+        return RowArrayResultSet.create(metadata, () -> iterator.hasNext() ? iterator.next() : null);
+    }
+
+    /**
+     * Estimates the memory used by a row.
+     *
+     * @param row values of the row
+     * @return the estimated size in bytes
+     */
+    public static long estimateSize(Object[] row) {
+        long size = OBJECT_HEADER_BYTES + (long) REFERENCE_BYTES * row.length;
+        for (Object value : row) {
+            size += estimateSize(value);
+        }
+
+        return size;
+    }
+
+    /**
+     * Estimates the memory used by a value.
+     *
+     * @param value the value
+     * @return the estimated size in bytes
+     */
+    private static long estimateSize(Object value) {
+        long size = 0;
+        if (value instanceof RowArrayResultSet.DriverValue) {
+            RowArrayResultSet.DriverValue driverValue = (RowArrayResultSet.DriverValue) value;
+            size = OBJECT_HEADER_BYTES + 2L * REFERENCE_BYTES
+                    + estimateSize(driverValue.getValue())
+                    + estimateSize(driverValue.getText());
+        } else if (value instanceof String) {
+            size = STRING_BYTES + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            size = OBJECT_HEADER_BYTES + ((byte[]) value).length;
+        } else if (value instanceof BigDecimal) {
+            size = BIG_DECIMAL_BYTES;
+        } else if (Objects.nonNull(value)) {
+            size = NUMBER_BYTES;
+        }
+
+        return size;
+    }
+}
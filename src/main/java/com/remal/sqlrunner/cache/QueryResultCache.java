@@ -0,0 +1,287 @@
+package com.remal.sqlrunner.cache;
+
+import com.remal.sqlrunner.domain.NormalizedSql;
+import com.remal.sqlrunner.util.SqlLiteralNormalizer;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Local cache of the results of the read-only queries.
+ *
+ * <p>The key of a result is the identity of the connection, i.e. the JDBC
+ * URL and the user, the normalized text of the query and the values of its
+ * literals, so the queries that only differ in their whitespace or in the
+ * format of their literals share the same result. The results are kept in
+ * the memory in least recently used order up to a size limit. If a directory
+ * is given then the results are written to files as well, so they survive
+ * between the executions.</p>
+ *
+ * <p>The results of a connection are dropped when a statement that may
+ * modify the data is executed on the connection. A result older than the
+ * time-to-live given by the caller is not used.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class QueryResultCache {
+
+    private static final String FILE_EXTENSION = ".rows";
+    private static final int IDENTITY_HASH_LENGTH = 16;
+
+    private final long maxBytes;
+    private final Path directory;
+    private final Map<String, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> cleanIdentities = new HashSet<>();
+    private long sizeBytes;
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes maximum estimated memory size of the cached results
+     * @param directory directory of the cached result files, null keeps the results in the memory only
+     */
+    public QueryResultCache(long maxBytes, Path directory) {
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return maximum estimated memory size of the cached results
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Finds the cached result of a query.
+     *
+     * @param identity the identity of the connection
+     * @param sql the query
+     * @param ttlMillis maximum age of the result
+     * @return the result or null if it is not cached or it is too old
+     */
+    public synchronized CachedResult get(String identity, String sql, long ttlMillis) {
+        String key = getKey(identity, sql);
+        CachedResult result = entries.get(key);
+        if (Objects.isNull(result) && Objects.nonNull(directory)) {
+            result = readFile(getFile(identity, key), key);
+            if (Objects.nonNull(result)) {
+                store(key, result);
+            }
+        }
+
+        if (Objects.nonNull(result) && System.currentTimeMillis() - result.getCreatedMillis() > ttlMillis) {
+            remove(key);
+            deleteFile(getFile(identity, key));
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Puts the result of a query into the cache.
+     *
+     * @param identity the identity of the connection
+     * @param sql the query
+     * @param result the result
+     */
+    public synchronized void put(String identity, String sql, CachedResult result) {
+        if (result.getSizeBytes() <= maxBytes) {
+            String key = getKey(identity, sql);
+            store(key, result);
+            cleanIdentities.remove(identity);
+            if (Objects.nonNull(directory)) {
+                writeFile(getFile(identity, key), key, result);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached results of a connection, e.g. because a DML statement
+     * has been executed on it.
+     *
+     * @param identity the identity of the connection
+     */
+    public synchronized void invalidate(String identity) {
+        if (!cleanIdentities.contains(identity)) {
+            String prefix = identity + "\n";
+            Iterator<Map.Entry<String, CachedResult>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, CachedResult> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    sizeBytes -= entry.getValue().getSizeBytes();
+                    iterator.remove();
+                }
+            }
+
+            if (Objects.nonNull(directory) && Files.isDirectory(directory)) {
+                String glob = hash(identity).substring(0, IDENTITY_HASH_LENGTH) + "-*" + FILE_EXTENSION;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+                    files.forEach(this::deleteFile);
+                } catch (IOException e) {
+                    // the files expire anyway
+                }
+            }
+
+            cleanIdentities.add(identity);
+        }
+    }
+
+    /**
+     * Builds the cache key of a query.
+     *
+     * @param identity the identity of the connection
+     * @param sql the query
+     * @return the key
+     */
+    private static String getKey(String identity, String sql) {
+        StringBuilder key = new StringBuilder(identity).append('\n');
+        NormalizedSql normalizedSql = SqlLiteralNormalizer.normalize(sql);
+        if (Objects.isNull(normalizedSql)) {
+            key.append(sql.trim());
+        } else {
+            key.append(normalizedSql.getShape());
+            for (Object parameter : normalizedSql.getParameters()) {
+                key.append('\n').append(parameter.getClass().getSimpleName()).append(':').append(parameter);
+            }
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Adds a result to the memory and evicts the least recently used results
+     * while the size limit is exceeded.
+     *
+     * @param key the cache key
+     * @param result the result
+     */
+    private void store(String key, CachedResult result) {
+        remove(key);
+        entries.put(key, result);
+        sizeBytes += result.getSizeBytes();
+
+        Iterator<CachedResult> eldest = entries.values().iterator();
+        while (sizeBytes > maxBytes && eldest.hasNext()) {
+            sizeBytes -= eldest.next().getSizeBytes();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Removes a result from the memory.
+     *
+     * @param key the cache key
+     */
+    private void remove(String key) {
+        CachedResult removed = entries.remove(key);
+        if (Objects.nonNull(removed)) {
+            sizeBytes -= removed.getSizeBytes();
+        }
+    }
+
+    /**
+     * Builds the path of the file of a result. The name starts with the hash
+     * of the identity of the connection, so the files of a connection can be
+     * found without reading them.
+     *
+     * @param identity the identity of the connection
+     * @param key the cache key
+     * @return path to the file
+     */
+    private Path getFile(String identity, String key) {
+        String name = hash(identity).substring(0, IDENTITY_HASH_LENGTH) + "-" + hash(key) + FILE_EXTENSION;
+        return directory.resolve(name);
+    }
+
+    /**
+     * Reads a result file.
+     *
+     * @param file path to the file
+     * @param key the cache key
+     * @return the result or null if the file does not exist or it can not be read
+     */
+    private CachedResult readFile(Path file, String key) {
+        CachedResult result = null;
+        if (Files.exists(file)) {
+            try {
+                result = ResultFileFormat.read(file, key);
+            } catch (IOException | SQLException e) {
+                deleteFile(file);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes a result file. The file is written under a temporary name and
+     * renamed, so the other executions never read a partially written file.
+     * A failed write does not fail the query, the result is only kept in the
+     * memory.
+     *
+     * @param file path to the file
+     * @param key the cache key
+     * @param result the result
+     */
+    private void writeFile(Path file, String key, CachedResult result) {
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(directory);
+            temporaryFile = Files.createTempFile(directory, "result", ".tmp");
+            ResultFileFormat.write(temporaryFile, key, result);
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | SQLException e) {
+            if (Objects.nonNull(temporaryFile)) {
+                deleteFile(temporaryFile);
+            }
+        }
+    }
+
+    /**
+     * Deletes a file, the errors are ignored.
+     *
+     * @param file path to the file
+     */
+    private void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // the file expires anyway
+        }
+    }
+
+    /**
+     * Calculates the SHA-256 hash of a text.
+     *
+     * @param text the text
+     * @return the hash in hexadecimal format
+     */
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
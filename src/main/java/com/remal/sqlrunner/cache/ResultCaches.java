@@ -0,0 +1,40 @@
+package com.remal.sqlrunner.cache;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the result caches of the JVM, so the executions of a server share
+ * the cached query results.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class ResultCaches {
+
+    private static final Map<String, QueryResultCache> CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * Returns with the cache that belongs to the given size and directory.
+     * The cache is created at the first call.
+     *
+     * @param maxBytes maximum estimated memory size of the cached results
+     * @param directory directory of the cached result files, may be null
+     * @return the result cache
+     */
+    public static QueryResultCache get(long maxBytes, Path directory) {
+        String key = String.join("\n",
+                String.valueOf(maxBytes),
+                Objects.isNull(directory) ? "" : directory.toAbsolutePath().normalize().toString());
+        return CACHES.computeIfAbsent(key, k -> new QueryResultCache(maxBytes, directory));
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private ResultCaches() {
+    }
+}
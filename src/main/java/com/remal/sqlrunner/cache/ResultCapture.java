@@ -0,0 +1,91 @@
+package com.remal.sqlrunner.cache;
+
+import com.remal.sqlrunner.util.RowArrayResultSet;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passes the rows of a query result to the output and keeps a copy of them,
+ * so the result can be cached after the last row has been written. The rows
+ * are still streamed: if the result grows beyond the size limit then the copy
+ * is dropped and the result is not cached.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class ResultCapture implements RowArrayResultSet.RowSource {
+
+    private final ResultSet resultSet;
+    private final long maxBytes;
+    private final int[] columnTypes;
+    private final ResultSetMetaData metadata;
+    private final List<Object[]> rows = new ArrayList<>();
+    private long sizeBytes;
+    private boolean overflow;
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param resultSet the result set of the query
+     * @param maxBytes the maximum estimated size of the cached rows
+     * @throws SQLException if the metadata can not be read
+     */
+    public ResultCapture(ResultSet resultSet, long maxBytes) throws SQLException {
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        this.resultSet = resultSet;
+        this.maxBytes = maxBytes;
+        this.columnTypes = RowArrayResultSet.getColumnTypes(resultSetMetaData);
+        this.metadata = RowArrayResultSet.copyMetaData(resultSetMetaData);
+    }
+
+    /**
+     * Creates the result set that the output reads.
+     *
+     * @return the result set
+     */
+    public ResultSet open() {
+        return RowArrayResultSet.create(metadata, this);
+    }
+
+    /**
+     * Reads the next row of the query result and keeps its copy.
+     *
+     * @return values of the row or null after the last row
+     * @throws SQLException if the row can not be read
+     */
+    @Override
+    public Object[] next() throws SQLException {
+        Object[] row = null;
+        if (resultSet.next()) {
+            row = RowArrayResultSet.readRow(resultSet, columnTypes);
+            if (!overflow) {
+                sizeBytes += CachedResult.estimateSize(row);
+                overflow = sizeBytes > maxBytes;
+                if (overflow) {
+                    rows.clear();
+                } else {
+                    rows.add(row);
+                }
+            }
+        } else {
+            finished = true;
+        }
+
+        return row;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the complete result or null if the result has not been read to the end or it is too big
+     */
+    public CachedResult getResult() {
+        return finished && !overflow ? new CachedResult(metadata, rows, System.currentTimeMillis(), sizeBytes) : null;
+    }
+}
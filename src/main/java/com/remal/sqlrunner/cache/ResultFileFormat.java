@@ -0,0 +1,294 @@
+package com.remal.sqlrunner.cache;
+
+import com.remal.sqlrunner.util.RowArrayResultSet.DriverValue;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact binary file format of a cached query result. The file starts with
+ * a magic number, the cache key, the creation time and the metadata of the
+ * columns, followed by the rows. Every value is written as a one byte type
+ * tag and the binary representation of the value, strings and byte arrays
+ * are prefixed with their length. A value kept with the text of the driver is
+ * written as its text followed by the tagged value.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class ResultFileFormat {
+
+    private static final int MAGIC = 0x53515232;
+    private static final int NULL_LENGTH = -1;
+
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte DECIMAL = 4;
+    private static final byte DATE = 5;
+    private static final byte TIME = 6;
+    private static final byte TIMESTAMP = 7;
+    private static final byte BYTES = 8;
+    private static final byte STRING = 9;
+    private static final byte DRIVER_VALUE = 10;
+
+    /**
+     * Writes the result to a file.
+     *
+     * @param file path to the file
+     * @param key the cache key of the result
+     * @param result the result
+     * @throws IOException if the file can not be written
+     * @throws SQLException if the metadata can not be read
+     */
+    public static void write(Path file, String key, CachedResult result) throws IOException, SQLException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            writeString(out, key);
+            out.writeLong(result.getCreatedMillis());
+
+            ResultSetMetaData metadata = result.getMetaData();
+            int columnCount = metadata.getColumnCount();
+            out.writeInt(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                writeString(out, metadata.getColumnName(i));
+                writeString(out, metadata.getColumnLabel(i));
+                out.writeInt(metadata.getColumnType(i));
+                writeString(out, metadata.getColumnTypeName(i));
+                out.writeInt(metadata.getPrecision(i));
+                out.writeInt(metadata.getScale(i));
+                out.writeInt(metadata.isNullable(i));
+            }
+
+            out.writeInt(result.getRows().size());
+            for (Object[] row : result.getRows()) {
+                for (Object value : row) {
+                    writeValue(out, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a result from a file.
+     *
+     * @param file path to the file
+     * @param key the expected cache key of the result
+     * @return the result or null if the file belongs to another key
+     * @throws IOException if the file can not be read or its format is invalid
+     * @throws SQLException if the metadata can not be built
+     */
+    public static CachedResult read(Path file, String key) throws IOException, SQLException {
+        CachedResult result = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a cached result file: " + file);
+            }
+
+            if (key.equals(readString(in))) {
+                long createdMillis = in.readLong();
+                int columnCount = in.readInt();
+                RowSetMetaDataImpl metadata = new RowSetMetaDataImpl();
+                metadata.setColumnCount(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    metadata.setColumnName(i, readString(in));
+                    metadata.setColumnLabel(i, readString(in));
+                    metadata.setColumnType(i, in.readInt());
+                    metadata.setColumnTypeName(i, readString(in));
+                    metadata.setPrecision(i, in.readInt());
+                    metadata.setScale(i, in.readInt());
+                    metadata.setNullable(i, in.readInt());
+                }
+
+                int rowCount = in.readInt();
+                List<Object[]> rows = new ArrayList<>(rowCount);
+                long sizeBytes = 0;
+                for (int r = 0; r < rowCount; r++) {
+                    Object[] row = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        row[i] = readValue(in);
+                    }
+                    rows.add(row);
+                    sizeBytes += CachedResult.estimateSize(row);
+                }
+
+                result = new CachedResult(metadata, rows, createdMillis, sizeBytes);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes a value with its type tag.
+     *
+     * @param out the output
+     * @param value the value
+     * @throws IOException if the value can not be written
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeByte(NULL);
+        } else if (value instanceof DriverValue) {
+            out.writeByte(DRIVER_VALUE);
+            writeString(out, ((DriverValue) value).getText());
+            writeValue(out, ((DriverValue) value).getValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(DECIMAL);
+            writeString(out, ((BigDecimal) value).toString());
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TIME);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            out.writeInt(((byte[]) value).length);
+            out.write((byte[]) value);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeValue(DataOutputStream, Object)}.
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if the value can not be read
+     */
+    private static Object readValue(DataInputStream in) throws IOException {
+        Object value;
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                value = null;
+                break;
+
+            case BOOLEAN:
+                value = in.readBoolean();
+                break;
+
+            case LONG:
+                value = in.readLong();
+                break;
+
+            case DOUBLE:
+                value = in.readDouble();
+                break;
+
+            case DECIMAL:
+                value = new BigDecimal(readString(in));
+                break;
+
+            case DATE:
+                value = new Date(in.readLong());
+                break;
+
+            case TIME:
+                value = new Time(in.readLong());
+                break;
+
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                value = timestamp;
+                break;
+
+            case BYTES:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                value = bytes;
+                break;
+
+            case STRING:
+                value = readString(in);
+                break;
+
+            case DRIVER_VALUE:
+                String text = readString(in);
+                value = new DriverValue(readValue(in), text);
+                break;
+
+            default:
+                throw new IOException("unknown value type: " + tag);
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes a UTF-8 string with its length, null is written as length -1.
+     *
+     * @param out the output
+     * @param value the string, may be null
+     * @throws IOException if the string can not be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in the input
+     * @return the string or null
+     * @throws IOException if the string can not be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        String value = null;
+        int length = in.readInt();
+        if (length != NULL_LENGTH) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return value;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private ResultFileFormat() {
+    }
+}
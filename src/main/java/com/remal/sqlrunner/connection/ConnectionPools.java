@@ -0,0 +1,121 @@
+package com.remal.sqlrunner.connection;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the connection pools of the JVM, so the executions that use the same
+ * database, credentials and settings share the physical connections.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class ConnectionPools {
+
+    private static final Map<PoolKey, ConnectionProvider> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns with the pool that belongs to the given database, credentials,
+     * connection arguments and pool settings. A pool is only shared by the
+     * calls that give exactly the same values, so a caller never gets a pool
+     * that was logged in with another password or that is smaller than it
+     * asked for.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param user name for the login
+     * @param password password for the connecting user
+     * @param connectionArguments connection arguments passed to the JDBC driver
+     * @param settings configuration of the pool
+     * @return the connection pool
+     */
+    public static ConnectionProvider get(String jdbcUrl,
+                                         String user,
+                                         byte[] password,
+                                         Properties connectionArguments,
+                                         PoolSettings settings) {
+
+        PoolKey key = new PoolKey(jdbcUrl, user, password, connectionArguments, settings);
+        return POOLS.computeIfAbsent(key, k -> new PooledConnectionProvider(jdbcUrl, connectionArguments, settings));
+    }
+
+    /**
+     * Closes all the pools of the JVM.
+     */
+    public static void closeAll() {
+        POOLS.values().forEach(ConnectionProvider::close);
+        POOLS.clear();
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private ConnectionPools() {
+    }
+
+    /**
+     * Identifies a pool by the exact values it was created with.
+     */
+    private static final class PoolKey {
+
+        private final String jdbcUrl;
+        private final String user;
+        private final byte[] password;
+        private final Properties connectionArguments;
+        private final PoolSettings settings;
+
+        /**
+         * Constructor.
+         *
+         * @param jdbcUrl the JDBC URL
+         * @param user name for the login
+         * @param password password for the connecting user, it is copied
+         * @param connectionArguments connection arguments passed to the JDBC driver, they are copied
+         * @param settings configuration of the pool
+         */
+        PoolKey(String jdbcUrl, String user, byte[] password, Properties connectionArguments, PoolSettings settings) {
+            this.jdbcUrl = jdbcUrl;
+            this.user = user;
+            this.password = Objects.isNull(password) ? null : password.clone();
+            this.connectionArguments = new Properties();
+            this.connectionArguments.putAll(connectionArguments);
+            this.settings = settings;
+        }
+
+        /**
+         * Two keys are equal if all of their values are equal, the passwords
+         * are compared byte by byte.
+         *
+         * @param o the other object
+         * @return true if the keys are equal
+         */
+        @Override
+        public boolean equals(Object o) {
+            boolean equal = this == o;
+            if (!equal && o instanceof PoolKey) {
+                PoolKey other = (PoolKey) o;
+                equal = Objects.equals(jdbcUrl, other.jdbcUrl)
+                        && Objects.equals(user, other.user)
+                        && Arrays.equals(password, other.password)
+                        && connectionArguments.equals(other.connectionArguments)
+                        && Objects.equals(settings, other.settings);
+            }
+
+            return equal;
+        }
+
+        /**
+         * Hash code of the key. The password is not part of it, the hash only
+         * selects the bucket, the equality decides.
+         *
+         * @return the hash code
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(jdbcUrl, user, settings);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.remal.sqlrunner.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Provides database connections. The connections returned by the provider
+ * must be closed by the caller, closing a connection gives it back to the
+ * provider.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public interface ConnectionProvider extends AutoCloseable {
+
+    /**
+     * Returns with a connection to the database.
+     *
+     * @return the connection
+     * @throws SQLException if the connection can not be established
+     */
+    Connection getConnection() throws SQLException;
+
+    /**
+     * Getter method.
+     *
+     * @return usage statistics of the provider
+     */
+    PoolMetrics getMetrics();
+
+    /**
+     * Closes all the physical connections held by the provider.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,79 @@
+package com.remal.sqlrunner.connection;
+
+import com.remal.sqlrunner.domain.Dialect;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens the physical connections. The driver of a known database is loaded
+ * by its class name and called directly instead of being looked up by the
+ * {@link DriverManager}. On Java 9 and newer the {@link DriverManager} loads
+ * the drivers of the class path at the first lookup, so only the driver in
+ * use is loaded and initialized, which is a significant part of the startup
+ * time of a short execution. On Java 8 the static initializer of the driver
+ * registers it in the {@link DriverManager}, whose own initialization loads
+ * every driver of the class path anyway. Unknown URLs are left to the
+ * {@link DriverManager}.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class JdbcDrivers {
+
+    private static final Map<String, Driver> DRIVERS = new ConcurrentHashMap<>();
+
+    /**
+     * Opens a physical connection.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param connectionArguments connection arguments passed to the JDBC driver
+     * @return the connection
+     * @throws SQLException if the connection can not be established
+     */
+    public static Connection connect(String jdbcUrl, Properties connectionArguments) throws SQLException {
+        Connection connection = null;
+        Dialect dialect = Dialect.fromJdbcUrl(jdbcUrl);
+        if (Objects.nonNull(dialect)) {
+            Driver driver = DRIVERS.computeIfAbsent(dialect.getDriverClassName(), JdbcDrivers::loadDriver);
+            if (Objects.nonNull(driver)) {
+                connection = driver.connect(jdbcUrl, connectionArguments);
+            }
+        }
+
+        if (Objects.isNull(connection)) {
+            connection = DriverManager.getConnection(jdbcUrl, connectionArguments);
+        }
+        return connection;
+    }
+
+    /**
+     * Loads and instantiates a JDBC driver.
+     *
+     * @param className name of the driver class
+     * @return the driver or null if it is not on the class path
+     */
+    private static Driver loadDriver(String className) {
+        Driver driver;
+        try {
+            driver = (Driver) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            driver = null;
+        }
+
+        return driver;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private JdbcDrivers() {
+    }
+}
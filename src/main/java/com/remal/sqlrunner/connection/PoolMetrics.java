@@ -0,0 +1,124 @@
+package com.remal.sqlrunner.connection;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the usage statistics of a connection pool.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class PoolMetrics {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final long createdConnections;
+    private final long evictedConnections;
+    private final long borrowCount;
+    private final long totalBorrowWaitNanos;
+    private final long maxBorrowWaitNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param activeConnections number of the borrowed connections
+     * @param idleConnections number of the connections waiting in the pool
+     * @param createdConnections number of the physical connections opened so far
+     * @param evictedConnections number of the physical connections closed because they were idle or invalid
+     * @param borrowCount number of the borrow requests so far
+     * @param totalBorrowWaitNanos total time spent with waiting for connections
+     * @param maxBorrowWaitNanos the longest wait for a connection
+     */
+    public PoolMetrics(int activeConnections,
+                       int idleConnections,
+                       long createdConnections,
+                       long evictedConnections,
+                       long borrowCount,
+                       long totalBorrowWaitNanos,
+                       long maxBorrowWaitNanos) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.createdConnections = createdConnections;
+        this.evictedConnections = evictedConnections;
+        this.borrowCount = borrowCount;
+        this.totalBorrowWaitNanos = totalBorrowWaitNanos;
+        this.maxBorrowWaitNanos = maxBorrowWaitNanos;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the borrowed connections
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the physical connections opened so far
+     */
+    public long getCreatedConnections() {
+        return createdConnections;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the physical connections closed because they were idle or invalid
+     */
+    public long getEvictedConnections() {
+        return evictedConnections;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the borrow requests so far
+     */
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return average wait time of the borrow requests in milliseconds
+     */
+    public double getAverageBorrowWaitMillis() {
+        return borrowCount == 0 ? 0 : (double) totalBorrowWaitNanos / borrowCount / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the longest wait for a connection in milliseconds
+     */
+    public double getMaxBorrowWaitMillis() {
+        return (double) maxBorrowWaitNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Human readable representation of the statistics.
+     *
+     * @return the statistics as a string
+     */
+    @Override
+    public String toString() {
+        return String.format("active: %d, idle: %d, created: %d, evicted: %d, borrowed: %d, "
+                        + "average borrow wait: %.3f ms, max borrow wait: %.3f ms",
+                activeConnections, idleConnections, createdConnections, evictedConnections, borrowCount,
+                getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis());
+    }
+}
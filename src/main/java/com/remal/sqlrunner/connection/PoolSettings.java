@@ -0,0 +1,102 @@
+package com.remal.sqlrunner.connection;
+
+import java.util.Objects;
+
+/**
+ * Configuration of the connection pool.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class PoolSettings {
+
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long borrowTimeoutMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize maximum number of the physical connections
+     * @param idleTimeoutMillis idle connections are closed after this time
+     * @param validationTimeoutSeconds time limit of the validation of a connection before it is borrowed
+     * @param borrowTimeoutMillis maximum time to wait for a free connection
+     */
+    public PoolSettings(int maxSize,
+                        long idleTimeoutMillis,
+                        int validationTimeoutSeconds,
+                        long borrowTimeoutMillis) {
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return maximum number of the physical connections
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return idle connections are closed after this time
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return time limit of the validation of a connection before it is borrowed
+     */
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return maximum time to wait for a free connection
+     */
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    /**
+     * Two settings are equal if all of their values are equal.
+     *
+     * @param o the other object
+     * @return true if the settings are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        boolean equal = this == o;
+        if (!equal && o instanceof PoolSettings) {
+            PoolSettings other = (PoolSettings) o;
+            equal = maxSize == other.maxSize
+                    && idleTimeoutMillis == other.idleTimeoutMillis
+                    && validationTimeoutSeconds == other.validationTimeoutSeconds
+                    && borrowTimeoutMillis == other.borrowTimeoutMillis;
+        }
+
+        return equal;
+    }
+
+    /**
+     * Hash code of the settings.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxSize, idleTimeoutMillis, validationTimeoutSeconds, borrowTimeoutMillis);
+    }
+}
@@ -0,0 +1,322 @@
+package com.remal.sqlrunner.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of physical database connections.
+ * The connections are validated before they are borrowed and the connections
+ * that have been idle for too long are closed in the background.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class PooledConnectionProvider implements ConnectionProvider {
+
+    private final String jdbcUrl;
+    private final Properties connectionArguments;
+    private final PoolSettings settings;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicLong createdConnections = new AtomicLong();
+    private final AtomicLong evictedConnections = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @param connectionArguments connection arguments passed to the JDBC driver
+     * @param settings configuration of the pool
+     */
+    public PooledConnectionProvider(String jdbcUrl, Properties connectionArguments, PoolSettings settings) {
+        this.jdbcUrl = jdbcUrl;
+        this.connectionArguments = connectionArguments;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.getMaxSize(), true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(settings.getIdleTimeoutMillis() / 2, 1);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool. A new physical connection is opened if
+     * there is no valid idle connection and the pool is not full, otherwise the
+     * caller waits until a connection is given back.
+     *
+     * @return the connection, closing it gives it back to the pool
+     * @throws SQLException if the connection can not be established or the wait timed out
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("the connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        acquirePermit();
+
+        PooledConnection pooledConnection = null;
+        try {
+            pooledConnection = takeValidIdleConnection();
+            if (Objects.isNull(pooledConnection)) {
+                pooledConnection = new PooledConnection(JdbcDrivers.connect(jdbcUrl, connectionArguments));
+                createdConnections.incrementAndGet();
+            }
+        } finally {
+            if (Objects.isNull(pooledConnection)) {
+                permits.release();
+            }
+        }
+
+        recordBorrow(System.nanoTime() - start);
+        activeConnections.incrementAndGet();
+        return pooledConnection.borrow();
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return usage statistics of the pool
+     */
+    @Override
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(
+                activeConnections.get(),
+                idleConnections.size(),
+                createdConnections.get(),
+                evictedConnections.get(),
+                borrowCount.get(),
+                totalBorrowWaitNanos.get(),
+                maxBorrowWaitNanos.get());
+    }
+
+    /**
+     * Closes the idle connections and stops the pool. The borrowed connections
+     * are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooledConnection = idleConnections.pollFirst();
+        while (Objects.nonNull(pooledConnection)) {
+            pooledConnection.closePhysicalConnection();
+            pooledConnection = idleConnections.pollFirst();
+        }
+    }
+
+    /**
+     * Waits for a free slot in the pool.
+     *
+     * @throws SQLException if the wait timed out or was interrupted
+     */
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!permits.tryAcquire(settings.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException(String.format(
+                        "no free connection in the pool after %d ms", settings.getBorrowTimeoutMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a connection", e);
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection that is still valid. The
+     * invalid connections are closed.
+     *
+     * @return the connection or null if there is no valid idle connection
+     */
+    private PooledConnection takeValidIdleConnection() {
+        PooledConnection valid = null;
+        PooledConnection candidate = idleConnections.pollFirst();
+        while (Objects.isNull(valid) && Objects.nonNull(candidate)) {
+            if (candidate.isValid()) {
+                valid = candidate;
+            } else {
+                candidate.closePhysicalConnection();
+                evictedConnections.incrementAndGet();
+                candidate = idleConnections.pollFirst();
+            }
+        }
+
+        return valid;
+    }
+
+    /**
+     * Updates the borrow statistics.
+     *
+     * @param waitNanos time spent with waiting for the connection
+     */
+    private void recordBorrow(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalBorrowWaitNanos.addAndGet(waitNanos);
+        maxBorrowWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Gives back the connection to the pool.
+     *
+     * @param pooledConnection the connection
+     */
+    private void release(PooledConnection pooledConnection) {
+        activeConnections.decrementAndGet();
+        if (closed || !pooledConnection.reset()) {
+            pooledConnection.closePhysicalConnection();
+        } else {
+            idleConnections.offerFirst(pooledConnection);
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes the connections that have been idle for longer than the idle timeout.
+     */
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idleConnections.iterator();
+        while (iterator.hasNext()) {
+            PooledConnection pooledConnection = iterator.next();
+            boolean expired = now - pooledConnection.lastUsed > settings.getIdleTimeoutMillis();
+            if (expired && idleConnections.removeFirstOccurrence(pooledConnection)) {
+                pooledConnection.closePhysicalConnection();
+                evictedConnections.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A physical connection managed by the pool.
+     */
+    private class PooledConnection {
+
+        private final Connection physicalConnection;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * Constructor.
+         *
+         * @param physicalConnection the physical connection
+         */
+        PooledConnection(Connection physicalConnection) {
+            this.physicalConnection = physicalConnection;
+        }
+
+        /**
+         * Creates a new logical connection that gives back the physical connection
+         * to the pool when it is closed.
+         *
+         * @return the logical connection
+         */
+        Connection borrow() {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean logicallyClosed = false;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    Object result = null;
+                    switch (method.getName()) {
+                        case "close":
+                            if (!logicallyClosed) {
+                                logicallyClosed = true;
+                                release(PooledConnection.this);
+                            }
+                            break;
+
+                        case "isClosed":
+                            result = logicallyClosed || physicalConnection.isClosed();
+                            break;
+
+                        default:
+                            if (logicallyClosed) {
+                                throw new SQLException("the connection is closed");
+                            }
+                            try {
+                                result = method.invoke(physicalConnection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+
+                    return result;
+                }
+            };
+
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+        }
+
+        /**
+         * Validates the physical connection.
+         *
+         * @return true if the connection is still usable
+         */
+        boolean isValid() {
+            try {
+                return physicalConnection.isValid(settings.getValidationTimeoutSeconds());
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Rolls back the uncommitted work and restores the default auto-commit mode
+         * before the connection goes back to the pool.
+         *
+         * @return false if the connection is not reusable
+         */
+        boolean reset() {
+            lastUsed = System.currentTimeMillis();
+            try {
+                if (!physicalConnection.getAutoCommit()) {
+                    physicalConnection.rollback();
+                    physicalConnection.setAutoCommit(true);
+                }
+                return !physicalConnection.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Closes the physical connection.
+         */
+        void closePhysicalConnection() {
+            try {
+                physicalConnection.close();
+            } catch (SQLException e) {
+                // the connection is dropped anyway
+            }
+        }
+    }
+}
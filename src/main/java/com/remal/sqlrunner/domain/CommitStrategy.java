@@ -0,0 +1,34 @@
+package com.remal.sqlrunner.domain;
+
+/**
+ * Controls when the transaction of a script execution is committed.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public enum CommitStrategy {
+
+    /**
+     * The connection runs in auto-commit mode, every statement is committed
+     * by the database right after its execution.
+     */
+    AUTO,
+
+    /**
+     * The transaction is committed after the given number of statements that
+     * are not queries.
+     */
+    STATEMENTS,
+
+    /**
+     * The transaction is committed when the given number of milliseconds have
+     * elapsed since the last commit.
+     */
+    INTERVAL,
+
+    /**
+     * The transaction is committed once, after the last statement.
+     */
+    END
+}
@@ -2,8 +2,15 @@ package com.remal.sqlrunner.domain;
 
 import picocli.CommandLine.Command;
 
+import java.util.Locale;
+import java.util.Properties;
+
 /**
- * Supported SQL dialects.
+ * Supported SQL dialects. The dialect knows the differences between the
+ * databases the executor has to deal with: how the JDBC URL is built, the
+ * driver properties that turn on the statement cache, the fast batch insert
+ * and the cursor based fetch, the keywords that are classified differently
+ * and how the rows are hashed when a query is split into partitions.
  *
  * <p>Copyright 2021 Arnold Somogyi</p>
  *
@@ -12,25 +19,85 @@ import picocli.CommandLine.Command;
 @Command
 public enum Dialect {
 
-    ORACLE(Dialect.ORACLE_VALUE, "jdbc:oracle:thin:@//host:port/database");
+    ORACLE(Dialect.ORACLE_VALUE,
+            "oracle.jdbc.OracleDriver",
+            "jdbc:oracle:thin:@//{host}:{port}/{database}",
+            1521,
+            "ORA_HASH(%1$s, %3$d)"),
+
+    POSTGRESQL("POSTGRESQL",
+            "org.postgresql.Driver",
+            "jdbc:postgresql://{host}:{port}/{database}",
+            5432,
+            "MOD(MOD(HASHTEXT(CAST(%1$s AS TEXT)), %2$d) + %2$d, %2$d)"),
+
+    MYSQL("MYSQL",
+            "com.mysql.cj.jdbc.Driver",
+            "jdbc:mysql://{host}:{port}/{database}",
+            3306,
+            "MOD(CRC32(%1$s), %2$d)"),
+
+    SQLSERVER("SQLSERVER",
+            "com.microsoft.sqlserver.jdbc.SQLServerDriver",
+            "jdbc:sqlserver://{host}:{port};databaseName={database}",
+            1433,
+            "(CHECKSUM(%1$s) %% %2$d + %2$d) %% %2$d"),
+
+    H2("H2",
+            "org.h2.Driver",
+            "jdbc:h2:tcp://{host}:{port}/{database}",
+            9092,
+            "ORA_HASH(%1$s, %3$d)");
 
     /**
      * String representation of the enum item.
      */
     public static final String ORACLE_VALUE = "ORACLE";
 
+    private static final String USER_PROPERTY = "user";
+    private static final String PASSWORD_PROPERTY = "password";
+
     private String value;
+    private String driverClassName;
     private String jdbcUrlTemplate;
+    private int defaultPort;
+    private String hashTemplate;
 
     /**
      * Constructor.
      *
      * @param value representation of the enum item
-     * @param jdbcUrlTemplate JDBC URL template
+     * @param driverClassName name of the class of the JDBC driver
+     * @param jdbcUrlTemplate JDBC URL template with {host}, {port} and {database} placeholders
+     * @param defaultPort the port the database listens on by default
+     * @param hashTemplate SQL expression that puts a row into a hash bucket, the format arguments
+     *                     are the column, the number of the buckets and the highest bucket
      */
-    Dialect(String value, String jdbcUrlTemplate) {
+    Dialect(String value, String driverClassName, String jdbcUrlTemplate, int defaultPort, String hashTemplate) {
         this.value = value;
+        this.driverClassName = driverClassName;
         this.jdbcUrlTemplate = jdbcUrlTemplate;
+        this.defaultPort = defaultPort;
+        this.hashTemplate = hashTemplate;
+    }
+
+    /**
+     * Finds the dialect of a JDBC URL.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @return the dialect or null if the database of the URL is not known
+     */
+    public static Dialect fromJdbcUrl(String jdbcUrl) {
+        String url = jdbcUrl.toLowerCase(Locale.ENGLISH);
+        Dialect dialect = null;
+        for (Dialect candidate : values()) {
+            String prefix = "jdbc:" + candidate.value.toLowerCase(Locale.ENGLISH) + ":";
+            if (url.startsWith(prefix)) {
+                dialect = candidate;
+            }
+        }
+
+        return dialect;
     }
 
     /**
@@ -43,9 +110,240 @@ public enum Dialect {
      */
     public String getJdbcUrl(String host, int port, String database) {
         return jdbcUrlTemplate
-                .replace("host", host)
-                .replace("port", String.valueOf(port))
-                .replace("database", database);
+                .replace("{host}", host)
+                .replace("{port}", String.valueOf(port))
+                .replace("{database}", database);
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return name of the class of the JDBC driver
+     */
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the port the database listens on by default
+     */
+    public int getDefaultPort() {
+        return defaultPort;
+    }
+
+    /**
+     * Builds the properties of a new connection.
+     *
+     * <p>The batches of DML statements are sent with the fastest method the
+     * driver offers: PostgreSQL rewrites the batched inserts into multi-row
+     * inserts and MySQL rewrites the batches into multi-statement round
+     * trips. The bulk copy of SQL Server skips the triggers and the
+     * constraints, so it is only turned on by
+     * {@link #addDirectPathProperties(Properties)}.</p>
+     *
+     * <p>If a fetch size is given then the driver is configured to read the
+     * rows of a query through a cursor in chunks of this size. PostgreSQL
+     * uses the cursor only inside a transaction, i.e. when the auto-commit is
+     * turned off.</p>
+     *
+     * @param user name for the login
+     * @param password password for the connecting user
+     * @param statementCacheSize number of the statements cached by the driver per connection, 0 turns off the cache
+     * @param fetchSize number of the rows fetched in one round trip, 0 keeps the default of the driver
+     * @return the connection properties
+     */
+    public Properties getConnectionProperties(String user, String password, int statementCacheSize, int fetchSize) {
+        Properties properties = new Properties();
+        properties.setProperty(USER_PROPERTY, user);
+        properties.setProperty(PASSWORD_PROPERTY, password);
+
+        switch (this) {
+            case ORACLE:
+                setIfPositive(properties, "oracle.jdbc.implicitStatementCacheSize", statementCacheSize);
+                setIfPositive(properties, "defaultRowPrefetch", fetchSize);
+                break;
+
+            case POSTGRESQL:
+                properties.setProperty("reWriteBatchedInserts", "true");
+                setIfPositive(properties, "preparedStatementCacheQueries", statementCacheSize);
+                setIfPositive(properties, "defaultRowFetchSize", fetchSize);
+                break;
+
+            case MYSQL:
+                properties.setProperty("rewriteBatchedStatements", "true");
+                if (statementCacheSize > 0) {
+                    properties.setProperty("cachePrepStmts", "true");
+                    properties.setProperty("prepStmtCacheSize", String.valueOf(statementCacheSize));
+                }
+                if (fetchSize > 0) {
+                    properties.setProperty("useCursorFetch", "true");
+                    properties.setProperty("defaultFetchSize", String.valueOf(fetchSize));
+                }
+                break;
+
+            case SQLSERVER:
+                if (statementCacheSize > 0) {
+                    properties.setProperty("disableStatementPooling", "false");
+                    properties.setProperty("statementPoolingCacheSize", String.valueOf(statementCacheSize));
+                }
+                break;
+
+            default:
+                // H2 rejects the unknown properties
+                setIfPositive(properties, "QUERY_CACHE_SIZE", statementCacheSize);
+        }
+
+        return properties;
+    }
+
+    /**
+     * Adds the properties of the direct-path load to the properties of a
+     * connection. SQL Server loads the batched inserts with the bulk copy
+     * API, which does not fire the triggers and does not check the
+     * constraints. Oracle uses a hint instead of a property.
+     *
+     * @param properties the connection properties
+     */
+    public void addDirectPathProperties(Properties properties) {
+        if (this == SQLSERVER) {
+            properties.setProperty("useBulkCopyForBatchInsert", "true");
+        }
+    }
+
+    /**
+     * Adds the properties of the parameterized execution to the properties of
+     * a connection. PostgreSQL sends the string parameters without a type, so
+     * the server infers their type the same way as for a string literal, e.g.
+     * a string compared with a date column is read as a date. A
+     * {@code stringtype} parameter given in the JDBC URL is kept.
+     *
+     * @param properties the connection properties
+     * @param jdbcUrl the connection JDBC URL
+     */
+    public void addParameterizeProperties(Properties properties, String jdbcUrl) {
+        boolean urlStringType = jdbcUrl.toLowerCase(Locale.ENGLISH).contains("stringtype=");
+        if (this == POSTGRESQL && !urlStringType) {
+            properties.setProperty("stringtype", "unspecified");
+        }
+    }
+
+    /**
+     * Classifies the leading keywords whose meaning depends on the database,
+     * e.g. BEGIN starts a PL/SQL block in Oracle but a transaction in PostgreSQL.
+     *
+     * @param keyword the first keyword of the statement in upper case
+     * @return kind of the statement or null if the keyword means the same in every dialect
+     */
+    public StatementType getStatementType(String keyword) {
+        StatementType type = null;
+        if (this != ORACLE) {
+            switch (keyword) {
+                case "SHOW":
+                case "EXPLAIN":
+                case "DESCRIBE":
+                case "DESC":
+                case "VALUES":
+                case "TABLE":
+                    type = StatementType.QUERY;
+                    break;
+
+                case "START":
+                    type = StatementType.TRANSACTION;
+                    break;
+
+                case "BEGIN":
+                    // the BEGIN of SQL Server may also start a block
+                    type = this == SQLSERVER ? StatementType.PLSQL : StatementType.TRANSACTION;
+                    break;
+
+                case "DO":
+                    type = StatementType.PLSQL;
+                    break;
+
+                case "REPLACE":
+                    type = this == MYSQL ? StatementType.DML : null;
+                    break;
+
+                default:
+                    type = null;
+            }
+        }
+
+        return type;
+    }
+
+    /**
+     * Checks whether a vendor error code means a temporary failure, e.g. a
+     * deadlock, a lock timeout, a lost connection or a listener that does not
+     * accept new connections for a while. The statement that failed with such
+     * an error may succeed if it is executed again. PostgreSQL does not use
+     * vendor error codes, its temporary failures are recognized by the SQL
+     * state.
+     *
+     * @param errorCode the vendor error code of the SQL exception
+     * @return true if the error is temporary
+     */
+    public boolean isTransientErrorCode(int errorCode) {
+        boolean transientError;
+        switch (this) {
+            case ORACLE:
+                // deadlock, resource busy, serialization, lost connection, listener and network errors
+                transientError = errorCode == 60 || errorCode == 51 || errorCode == 8177
+                        || errorCode == 3113 || errorCode == 3114 || errorCode == 3135
+                        || errorCode == 12170 || errorCode == 12514 || errorCode == 12516 || errorCode == 12519
+                        || errorCode == 12520 || errorCode == 12528 || errorCode == 12537 || errorCode == 12541
+                        || errorCode == 17002 || errorCode == 17008;
+                break;
+
+            case MYSQL:
+                // lock wait timeout, deadlock, too many connections, lost connection
+                transientError = errorCode == 1205 || errorCode == 1213 || errorCode == 1040
+                        || errorCode == 2002 || errorCode == 2003 || errorCode == 2006 || errorCode == 2013;
+                break;
+
+            case SQLSERVER:
+                // deadlock victim, lock timeout, Azure SQL throttling and failover, network errors
+                transientError = errorCode == 1205 || errorCode == 1222
+                        || errorCode == 40197 || errorCode == 40501 || errorCode == 40613
+                        || errorCode == 49918 || errorCode == 49919 || errorCode == 49920
+                        || errorCode == 233 || errorCode == 10053 || errorCode == 10054 || errorCode == 10060;
+                break;
+
+            case H2:
+                // deadlock, lock timeout, broken connection
+                transientError = errorCode == 40001 || errorCode == 50200 || errorCode == 90067;
+                break;
+
+            default:
+                transientError = false;
+        }
+
+        return transientError;
+    }
+
+    /**
+     * Builds the SQL expression that puts the rows into hash buckets by the
+     * value of a column. The expression returns a number between 0 and the
+     * number of the buckets - 1.
+     *
+     * @param column the column
+     * @param buckets number of the buckets
+     * @return the SQL expression
+     */
+    public String getHashBucket(String column, int buckets) {
+        return String.format(hashTemplate, column, buckets, buckets - 1);
+    }
+
+    /**
+     * Checks whether the DATE type of the database holds the time of the day
+     * as well.
+     *
+     * @return true for Oracle
+     */
+    public boolean hasTimeInDate() {
+        return this == ORACLE;
     }
 
     /**
@@ -56,4 +354,17 @@ public enum Dialect {
     public String getValue() {
         return value;
     }
+
+    /**
+     * Sets a numeric property if its value is greater than zero.
+     *
+     * @param properties the properties
+     * @param key name of the property
+     * @param value value of the property
+     */
+    private static void setIfPositive(Properties properties, String key, int value) {
+        if (value > 0) {
+            properties.setProperty(key, String.valueOf(value));
+        }
+    }
 }
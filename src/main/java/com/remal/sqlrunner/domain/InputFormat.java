@@ -0,0 +1,23 @@
+package com.remal.sqlrunner.domain;
+
+/**
+ * Supported formats of the data files loaded into a table.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public enum InputFormat {
+
+    /**
+     * Comma separated values as defined by RFC 4180. An empty field that is
+     * not enclosed in double quotes is loaded as NULL.
+     */
+    CSV,
+
+    /**
+     * Tab separated values, the special characters are escaped with backslash
+     * and \N is loaded as NULL.
+     */
+    TSV
+}
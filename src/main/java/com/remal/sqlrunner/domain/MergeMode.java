@@ -0,0 +1,24 @@
+package com.remal.sqlrunner.domain;
+
+/**
+ * Controls how the rows of a partitioned query are merged into the output.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public enum MergeMode {
+
+    /**
+     * The partitions are written one after the other in the order of their key
+     * ranges. The partitions are executed in parallel, but a partition is only
+     * fetched ahead up to a limited number of rows while it waits for its turn.
+     */
+    ORDERED,
+
+    /**
+     * The rows are written as soon as any partition delivers them, so all the
+     * cursors are fetched in parallel.
+     */
+    UNORDERED
+}
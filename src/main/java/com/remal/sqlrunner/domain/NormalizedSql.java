@@ -0,0 +1,45 @@
+package com.remal.sqlrunner.domain;
+
+import java.util.List;
+
+/**
+ * SQL statement whose literals are replaced with bind parameters.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class NormalizedSql {
+
+    private final String shape;
+    private final List<Object> parameters;
+
+    /**
+     * Constructor.
+     *
+     * @param shape the SQL statement with question marks in place of the literals
+     * @param parameters values of the literals in order, strings, longs and big decimals
+     */
+    public NormalizedSql(String shape, List<Object> parameters) {
+        this.shape = shape;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the SQL statement with question marks in place of the literals
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return values of the literals in order
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+}
@@ -0,0 +1,56 @@
+package com.remal.sqlrunner.domain;
+
+/**
+ * Supported formats of the query results.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public enum OutputFormat {
+
+    /**
+     * The values are converted to text and separated by semicolons.
+     */
+    TEXT(false),
+
+    /**
+     * Comma separated values as defined by RFC 4180.
+     */
+    CSV(false),
+
+    /**
+     * Tab separated values, the special characters are escaped with backslash.
+     */
+    TSV(false),
+
+    /**
+     * JSON Lines, one JSON object per row.
+     */
+    JSONL(false),
+
+    /**
+     * Apache Arrow IPC stream, the values are written as typed column vectors.
+     */
+    ARROW(true);
+
+    private final boolean binary;
+
+    /**
+     * Constructor.
+     *
+     * @param binary true if the format is not human readable
+     */
+    OutputFormat(boolean binary) {
+        this.binary = binary;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return true if the format is not human readable
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+}
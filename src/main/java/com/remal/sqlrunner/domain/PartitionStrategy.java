@@ -0,0 +1,21 @@
+package com.remal.sqlrunner.domain;
+
+/**
+ * Strategies used to distribute the DML statements among the parallel workers.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public enum PartitionStrategy {
+
+    /**
+     * The statements modifying the same table are executed by the same worker.
+     */
+    TABLE,
+
+    /**
+     * The statements are distributed by the hash of the statement text.
+     */
+    HASH
+}
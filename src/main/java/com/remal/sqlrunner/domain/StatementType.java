@@ -0,0 +1,42 @@
+package com.remal.sqlrunner.domain;
+
+/**
+ * Kind of the SQL statements, used to decide how a statement is sent to the
+ * database.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public enum StatementType {
+
+    /**
+     * SELECT and WITH statements, they produce a result set.
+     */
+    QUERY,
+
+    /**
+     * Data manipulation: INSERT, UPDATE, DELETE and MERGE.
+     */
+    DML,
+
+    /**
+     * Data definition: CREATE, ALTER, DROP, TRUNCATE, etc.
+     */
+    DDL,
+
+    /**
+     * Anonymous PL/SQL block.
+     */
+    PLSQL,
+
+    /**
+     * Transaction control: COMMIT, ROLLBACK and SAVEPOINT.
+     */
+    TRANSACTION,
+
+    /**
+     * Any other statement.
+     */
+    OTHER
+}
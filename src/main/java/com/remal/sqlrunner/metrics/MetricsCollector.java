@@ -0,0 +1,348 @@
+package com.remal.sqlrunner.metrics;
+
+import com.remal.sqlrunner.domain.NormalizedSql;
+import com.remal.sqlrunner.util.JsonStrings;
+import com.remal.sqlrunner.util.SqlLiteralNormalizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the measurements of the executed statements. The totals, the
+ * slowest statements and the latency histograms of the statement shapes are
+ * kept in memory, the measurements of the individual statements are streamed
+ * to the JSON report as they arrive, so the memory used does not grow with
+ * the length of the script. The summary and the end of the report are written
+ * when the collector is closed.
+ *
+ * <p>The collector is shared by the parallel workers, the recording is
+ * synchronized.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class MetricsCollector implements Closeable {
+
+    private static final int MAX_SHAPES = 1000;
+    private static final int MAX_SHAPE_LENGTH = 200;
+    private static final int SLOWEST_STATEMENTS = 10;
+    private static final int SUMMARY_SHAPES = 20;
+    private static final int SUMMARY_SQL_LENGTH = 80;
+    private static final String BATCH_SHAPE = "(batch)";
+    private static final String OTHER_SHAPES = "(other shapes)";
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final PrintStream summary;
+    private final Writer report;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, ShapeStatistics> shapes = new HashMap<>();
+    private final PriorityQueue<StatementMetrics> slowest =
+            new PriorityQueue<>(Comparator.comparingLong(StatementMetrics::getTotalNanos));
+
+    private long statements;
+    private long batches;
+    private long failed;
+    private long retries;
+    private long rows;
+    private long bytesWritten;
+    private long parseNanos;
+    private long executeNanos;
+    private long fetchNanos;
+    private boolean firstReportEntry = true;
+    private IOException reportError;
+
+    /**
+     * Constructor.
+     *
+     * @param summary target of the summary table, null turns off the summary
+     * @param reportFile path to the JSON report, null turns off the report
+     * @throws IOException if the report file can not be created
+     */
+    public MetricsCollector(PrintStream summary, Path reportFile) throws IOException {
+        this.summary = summary;
+        if (Objects.isNull(reportFile)) {
+            this.report = null;
+        } else {
+            this.report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+            this.report.write("{\"statements\":[");
+        }
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return true if either the summary or the report is turned on
+     */
+    public boolean isEnabled() {
+        return Objects.nonNull(summary) || Objects.nonNull(report);
+    }
+
+    /**
+     * Records the measurements of an executed statement or batch.
+     *
+     * @param metrics the measurements
+     */
+    public void record(StatementMetrics metrics) {
+        if (isEnabled()) {
+            String shape = getShape(metrics);
+            synchronized (this) {
+                if (metrics.getBatchSize() > 0) {
+                    batches++;
+                } else {
+                    statements++;
+                }
+                failed += metrics.isFailed() ? 1 : 0;
+                retries += metrics.getRetries() > 0 ? 1 : 0;
+                rows += metrics.getRows();
+                bytesWritten += metrics.getBytesWritten();
+                parseNanos += metrics.getParseNanos();
+                executeNanos += metrics.getExecuteNanos();
+                fetchNanos += metrics.getFetchNanos();
+
+                String key = shapes.size() < MAX_SHAPES || shapes.containsKey(shape) ? shape : OTHER_SHAPES;
+                shapes.computeIfAbsent(key, ShapeStatistics::new).add(metrics);
+
+                slowest.add(metrics);
+                if (slowest.size() > SLOWEST_STATEMENTS) {
+                    slowest.poll();
+                }
+
+                writeReportEntry(metrics, shape);
+            }
+        }
+    }
+
+    /**
+     * Shows the summary and completes the report.
+     *
+     * @throws IOException if the report can not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (Objects.nonNull(summary)) {
+            showSummary();
+        }
+
+        if (Objects.nonNull(report)) {
+            try {
+                if (Objects.isNull(reportError)) {
+                    writeReportEnd();
+                }
+            } finally {
+                report.close();
+            }
+        }
+
+        if (Objects.nonNull(reportError)) {
+            throw reportError;
+        }
+    }
+
+    /**
+     * Builds the shape of the statement, the statements that only differ in
+     * their literals share the same shape.
+     *
+     * @param metrics the measurements of the statement
+     * @return the shape
+     */
+    private static String getShape(StatementMetrics metrics) {
+        String shape;
+        if (metrics.getBatchSize() > 0) {
+            shape = BATCH_SHAPE;
+        } else {
+            NormalizedSql normalizedSql = SqlLiteralNormalizer.normalize(metrics.getSql());
+            shape = Objects.isNull(normalizedSql)
+                    ? metrics.getSql().trim().replaceAll("\\s+", " ")
+                    : normalizedSql.getShape();
+        }
+
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) : shape;
+    }
+
+    /**
+     * Appends the measurements of a statement to the report. After the first
+     * error the report is not written anymore, the error is thrown when the
+     * collector is closed.
+     *
+     * @param metrics the measurements
+     * @param shape the shape of the statement
+     */
+    private void writeReportEntry(StatementMetrics metrics, String shape) {
+        if (Objects.nonNull(report) && Objects.isNull(reportError)) {
+            try {
+                report.write(firstReportEntry ? "\n" : ",\n");
+                report.write(String.format(Locale.ROOT,
+                        "{\"index\":%d,\"type\":\"%s\",\"batchSize\":%d,\"sql\":%s,\"shape\":%s,"
+                                + "\"parseMs\":%.3f,\"executeMs\":%.3f,\"fetchMs\":%.3f,"
+                                + "\"rows\":%d,\"bytesWritten\":%d,\"failed\":%s,\"retries\":%d}",
+                        metrics.getIndex(),
+                        metrics.getType(),
+                        metrics.getBatchSize(),
+                        JsonStrings.quote(metrics.getSql()),
+                        JsonStrings.quote(shape),
+                        metrics.getParseNanos() / NANOS_PER_MILLI,
+                        metrics.getExecuteNanos() / NANOS_PER_MILLI,
+                        metrics.getFetchNanos() / NANOS_PER_MILLI,
+                        metrics.getRows(),
+                        metrics.getBytesWritten(),
+                        metrics.isFailed(),
+                        metrics.getRetries()));
+                firstReportEntry = false;
+            } catch (IOException e) {
+                reportError = e;
+            }
+        }
+    }
+
+    /**
+     * Writes the statistics of the shapes and the totals, then closes the
+     * JSON document.
+     *
+     * @throws IOException if the report can not be written
+     */
+    private void writeReportEnd() throws IOException {
+        report.write("\n],\n\"shapes\":[");
+        String separator = "\n";
+        for (ShapeStatistics shape : getShapesByTotalTime()) {
+            report.write(separator);
+            report.write(String.format(Locale.ROOT,
+                    "{\"shape\":%s,\"count\":%d,\"failed\":%d,\"rows\":%d,\"bytesWritten\":%d,"
+                            + "\"totalMs\":%.3f,\"meanMs\":%.3f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,\"p99Ms\":%.3f,"
+                            + "\"p999Ms\":%.3f,\"maxMs\":%.3f}",
+                    JsonStrings.quote(shape.getShape()),
+                    shape.getCount(),
+                    shape.getFailed(),
+                    shape.getRows(),
+                    shape.getBytesWritten(),
+                    shape.getTotalNanos() / NANOS_PER_MILLI,
+                    shape.getMeanMillis(),
+                    shape.getPercentileMillis(PERCENTILES[0]),
+                    shape.getPercentileMillis(PERCENTILES[1]),
+                    shape.getPercentileMillis(PERCENTILES[2]),
+                    shape.getPercentileMillis(PERCENTILES[3]),
+                    shape.getMaxMillis()));
+            separator = ",\n";
+        }
+
+        report.write(String.format(Locale.ROOT,
+                "\n],\n\"totals\":{\"statements\":%d,\"batches\":%d,\"failed\":%d,\"retries\":%d,\"rows\":%d,"
+                        + "\"bytesWritten\":%d,\"elapsedMs\":%.3f,\"parseMs\":%.3f,\"executeMs\":%.3f,"
+                        + "\"fetchMs\":%.3f}}\n",
+                statements,
+                batches,
+                failed,
+                retries,
+                rows,
+                bytesWritten,
+                getElapsedNanos() / NANOS_PER_MILLI,
+                parseNanos / NANOS_PER_MILLI,
+                executeNanos / NANOS_PER_MILLI,
+                fetchNanos / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Shows the totals, the slowest statements and the latency percentiles of
+     * the statement shapes that were executed more than once.
+     */
+    private void showSummary() {
+        double elapsedSeconds = Math.max(getElapsedNanos(), 1) / NANOS_PER_SECOND;
+        summary.println("statement metrics:");
+        summary.println(String.format(
+                "  statements: %d, batches: %d, failed: %d, retries: %d, rows: %d, bytes written: %d",
+                statements, batches, failed, retries, rows, bytesWritten));
+        summary.println(String.format(
+                "  elapsed: %.3f ms, parse: %.3f ms, execute: %.3f ms, fetch: %.3f ms",
+                getElapsedNanos() / NANOS_PER_MILLI,
+                parseNanos / NANOS_PER_MILLI,
+                executeNanos / NANOS_PER_MILLI,
+                fetchNanos / NANOS_PER_MILLI));
+        summary.println(String.format(
+                "  throughput: %.1f statements/s, %.1f rows/s, %.1f bytes/s",
+                statements / elapsedSeconds, rows / elapsedSeconds, bytesWritten / elapsedSeconds));
+
+        List<StatementMetrics> slowestStatements = new ArrayList<>(slowest);
+        slowestStatements.sort(Comparator.comparingLong(StatementMetrics::getTotalNanos).reversed());
+        if (!slowestStatements.isEmpty()) {
+            summary.println("  slowest statements:");
+        }
+        for (StatementMetrics metrics : slowestStatements) {
+            summary.println(String.format(
+                    "    %-7s %10.3f ms (execute: %.3f ms, fetch: %.3f ms, rows: %d) %s",
+                    metrics.getBatchSize() > 0 ? "batch" : "#" + metrics.getIndex(),
+                    metrics.getTotalNanos() / NANOS_PER_MILLI,
+                    metrics.getExecuteNanos() / NANOS_PER_MILLI,
+                    metrics.getFetchNanos() / NANOS_PER_MILLI,
+                    metrics.getRows(),
+                    abbreviate(metrics.getSql().trim().replaceAll("\\s+", " "))));
+        }
+
+        List<ShapeStatistics> repeatedShapes = new ArrayList<>();
+        for (ShapeStatistics shape : getShapesByTotalTime()) {
+            if (shape.getCount() > 1 && repeatedShapes.size() < SUMMARY_SHAPES) {
+                repeatedShapes.add(shape);
+            }
+        }
+        if (!repeatedShapes.isEmpty()) {
+            summary.println("  latency of the repeated statement shapes:");
+            summary.println(String.format("    %9s %10s %10s %10s %10s %10s %10s  %s",
+                    "count", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "shape"));
+        }
+        for (ShapeStatistics shape : repeatedShapes) {
+            summary.println(String.format("    %9d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f  %s",
+                    shape.getCount(),
+                    shape.getMeanMillis(),
+                    shape.getPercentileMillis(PERCENTILES[0]),
+                    shape.getPercentileMillis(PERCENTILES[1]),
+                    shape.getPercentileMillis(PERCENTILES[2]),
+                    shape.getPercentileMillis(PERCENTILES[3]),
+                    shape.getMaxMillis(),
+                    abbreviate(shape.getShape())));
+        }
+    }
+
+    /**
+     * Sorts the shapes, the shape with the highest total latency comes first.
+     *
+     * @return the sorted shapes
+     */
+    private List<ShapeStatistics> getShapesByTotalTime() {
+        List<ShapeStatistics> sorted = new ArrayList<>(shapes.values());
+        sorted.sort(Comparator.comparingLong(ShapeStatistics::getTotalNanos).reversed());
+        return sorted;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return time elapsed since the collector was created in nanoseconds
+     */
+    private long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Shortens a statement to fit into one line of the summary.
+     *
+     * @param sql the statement
+     * @return the shortened statement
+     */
+    private static String abbreviate(String sql) {
+        return sql.length() > SUMMARY_SQL_LENGTH ? sql.substring(0, SUMMARY_SQL_LENGTH - 3) + "..." : sql;
+    }
+}
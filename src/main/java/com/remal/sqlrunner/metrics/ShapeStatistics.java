@@ -0,0 +1,133 @@
+package com.remal.sqlrunner.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregated measurements of the statements that share the same shape, i.e.
+ * that only differ in their literals. The latencies are recorded into an HDR
+ * histogram in microseconds, so the percentiles are exact to three
+ * significant digits while the memory used by a shape is constant.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+class ShapeStatistics {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final String shape;
+    private final Histogram latencies = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private long failed;
+    private long rows;
+    private long bytesWritten;
+    private long totalNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param shape the common shape of the statements
+     */
+    ShapeStatistics(String shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * Adds the measurements of a statement.
+     *
+     * @param metrics the measurements
+     */
+    void add(StatementMetrics metrics) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(metrics.getTotalNanos());
+        latencies.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        failed += metrics.isFailed() ? 1 : 0;
+        rows += metrics.getRows();
+        bytesWritten += metrics.getBytesWritten();
+        totalNanos += metrics.getTotalNanos();
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the common shape of the statements
+     */
+    String getShape() {
+        return shape;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the executed statements
+     */
+    long getCount() {
+        return latencies.getTotalCount();
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the failed statements
+     */
+    long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the rows fetched or affected by the statements
+     */
+    long getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the bytes written by the statements
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return sum of the latencies in nanoseconds
+     */
+    long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return mean latency in milliseconds
+     */
+    double getMeanMillis() {
+        return latencies.getMean() / 1000.0;
+    }
+
+    /**
+     * Returns a percentile of the latencies.
+     *
+     * @param percentile the percentile, e.g. 99.9
+     * @return the latency in milliseconds
+     */
+    double getPercentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the highest latency in milliseconds
+     */
+    double getMaxMillis() {
+        return latencies.getMaxValue() / 1000.0;
+    }
+}
@@ -0,0 +1,263 @@
+package com.remal.sqlrunner.metrics;
+
+import com.remal.sqlrunner.domain.StatementType;
+
+import java.util.List;
+
+/**
+ * Measurements of one executed statement. The object is created when the
+ * statement is read from the script and travels with the statement until it
+ * is executed, so it is filled by the thread that executes the statement.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class StatementMetrics {
+
+    private final long index;
+    private final String sql;
+    private final StatementType type;
+    private final long parseNanos;
+    private final int batchSize;
+    private long executeNanos;
+    private long fetchNanos;
+    private long rows;
+    private long bytesWritten;
+    private boolean failed;
+    private boolean resultStarted;
+    private int retries;
+
+    /**
+     * Constructor.
+     *
+     * @param index position of the statement in the script, starts from 1
+     * @param sql the SQL statement
+     * @param type kind of the SQL statement
+     * @param parseNanos time spent to read the statement from the script
+     */
+    public StatementMetrics(long index, String sql, StatementType type, long parseNanos) {
+        this(index, sql, type, parseNanos, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param index position of the statement in the script, starts from 1
+     * @param sql the SQL statement
+     * @param type kind of the SQL statement
+     * @param parseNanos time spent to read the statement from the script
+     * @param batchSize number of the statements sent in one batch, 0 if the statement was not batched
+     */
+    private StatementMetrics(long index, String sql, StatementType type, long parseNanos, int batchSize) {
+        this.index = index;
+        this.sql = sql;
+        this.type = type;
+        this.parseNanos = parseNanos;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates the measurements of a batch execution. The statements of the
+     * batch are recorded one by one when they are added to the batch, the
+     * round trip of the batch is recorded separately.
+     *
+     * @param batch the SQL statements of the batch
+     * @return the measurements of the batch
+     */
+    public static StatementMetrics ofBatch(List<String> batch) {
+        String sql = String.format("batch of %d statements, first: %s", batch.size(), batch.get(0));
+        return new StatementMetrics(0, sql, StatementType.DML, 0, batch.size());
+    }
+
+    /**
+     * Creates an empty copy of the measurements for a statement that is
+     * executed more than once, e.g. a COMMIT sent to every parallel worker.
+     * The parse time belongs to the original.
+     *
+     * @return the copy
+     */
+    public StatementMetrics copy() {
+        return new StatementMetrics(index, sql, type, 0, batchSize);
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return position of the statement in the script, 0 for batches
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the SQL statement
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return kind of the SQL statement
+     */
+    public StatementType getType() {
+        return type;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the statements sent in one batch, 0 if this is not a batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return time spent to read the statement from the script in nanoseconds
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return time spent in the database in nanoseconds, without the fetch of the result
+     */
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return time spent to fetch and write the result in nanoseconds
+     */
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the latency of the statement: parse, execute and fetch time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return parseNanos + executeNanos + fetchNanos;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the rows fetched or affected by the statement
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the bytes of the result written to the output
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return true if the statement failed
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return true if the writing of the result to the output has started
+     */
+    public boolean isResultStarted() {
+        return resultStarted;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the former failed attempts of the statement
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Adds execution time.
+     *
+     * @param nanos time spent in the database in nanoseconds
+     */
+    public void addExecuteNanos(long nanos) {
+        executeNanos += nanos;
+    }
+
+    /**
+     * Adds fetch time.
+     *
+     * @param nanos time spent to fetch and write the result in nanoseconds
+     */
+    public void addFetchNanos(long nanos) {
+        fetchNanos += nanos;
+    }
+
+    /**
+     * Setter method.
+     *
+     * @param rows number of the rows fetched or affected by the statement
+     */
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Adds written bytes.
+     *
+     * @param bytes number of the bytes of the result written to the output
+     */
+    public void addBytesWritten(long bytes) {
+        bytesWritten += bytes;
+    }
+
+    /**
+     * Setter method.
+     *
+     * @param failed true if the statement failed
+     */
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Setter method.
+     *
+     * @param resultStarted true if the writing of the result to the output has started
+     */
+    public void setResultStarted(boolean resultStarted) {
+        this.resultStarted = resultStarted;
+    }
+
+    /**
+     * Setter method.
+     *
+     * @param retries number of the former failed attempts of the statement
+     */
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+}
@@ -0,0 +1,455 @@
+package com.remal.sqlrunner.output;
+
+import com.remal.sqlrunner.util.FetchSizeTuner;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the result of a query as an Apache Arrow IPC stream. The values are
+ * read with the typed getters of the result set into column vectors and the
+ * vectors are written in record batches of {@link #RECORD_BATCH_SIZE} rows,
+ * so the numbers and the dates are never converted to text.
+ *
+ * <p>The stream has one schema, so the writer only accepts the result of one
+ * query: schema, record batches and the end of stream marker. The timestamps
+ * are written without time zone, as the wall clock time read from the
+ * database.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class ArrowResultSetWriter implements ResultSetWriter {
+
+    private static final int RECORD_BATCH_SIZE = 4096;
+    private static final int MAX_LONG_PRECISION = 18;
+    private static final int MAX_DECIMAL_PRECISION = 38;
+    private static final int DECIMAL_BIT_WIDTH = 128;
+
+    private final OutputStream out;
+    private final boolean dateWithTime;
+    private BufferAllocator allocator;
+    private boolean resultWritten;
+
+    /**
+     * Writes one value of the current row into the column vector.
+     */
+    @FunctionalInterface
+    private interface ColumnWriter {
+
+        /**
+         * Copies the value.
+         *
+         * @param resultSet the result set positioned on the row
+         * @param index index of the row in the record batch
+         * @throws SQLException if the value can not be read
+         */
+        void write(ResultSet resultSet, int index) throws SQLException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out the target of the stream, it is not closed by the writer
+     * @param dateWithTime true writes the DATE columns as timestamps, e.g. the Oracle DATE holds the time as well
+     */
+    public ArrowResultSetWriter(OutputStream out, boolean dateWithTime) {
+        this.dateWithTime = dateWithTime;
+        this.out = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                this.out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Writes the rows of the result set as a complete Arrow IPC stream.
+     *
+     * @param resultSet the result set
+     * @param tuner moves the cursor and measures the fetches
+     * @return number of the rows that have been written
+     * @throws SQLException if the rows can not be read
+     * @throws IOException if the rows can not be written or a result has already been written
+     */
+    @Override
+    public long write(ResultSet resultSet, FetchSizeTuner tuner) throws SQLException, IOException {
+        if (resultWritten) {
+            throw new IOException("the ARROW output can only hold the result of one query");
+        }
+        resultWritten = true;
+        if (Objects.isNull(allocator)) {
+            allocator = new RootAllocator(Long.MAX_VALUE);
+        }
+
+        ResultSetMetaData metadata = resultSet.getMetaData();
+        long rowCount = 0;
+
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(getSchema(metadata, dateWithTime), allocator);
+             ArrowStreamWriter writer = new ArrowStreamWriter(
+                     root, new DictionaryProvider.MapDictionaryProvider(), out)) {
+
+            List<ColumnWriter> columnWriters = getColumnWriters(metadata, root, dateWithTime);
+            writer.start();
+
+            root.allocateNew();
+            int index = 0;
+            while (tuner.next(resultSet)) {
+                for (int i = 0; i < columnWriters.size(); i++) {
+                    columnWriters.get(i).write(resultSet, index);
+                }
+                index++;
+                rowCount++;
+
+                if (index == RECORD_BATCH_SIZE) {
+                    root.setRowCount(index);
+                    writer.writeBatch();
+                    root.allocateNew();
+                    index = 0;
+                }
+            }
+
+            if (index > 0) {
+                root.setRowCount(index);
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+
+        return rowCount;
+    }
+
+    /**
+     * Writes the buffered data to the output stream.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered data to the output stream and releases the memory
+     * of the vectors, the stream is not closed.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+        if (Objects.nonNull(allocator)) {
+            allocator.close();
+            allocator = null;
+        }
+    }
+
+    /**
+     * Builds the Arrow schema of the result set.
+     *
+     * @param metadata result set metadata
+     * @param dateWithTime true maps the DATE columns to timestamps
+     * @return the schema
+     * @throws SQLException if the metadata can not be read
+     */
+    private static Schema getSchema(ResultSetMetaData metadata, boolean dateWithTime) throws SQLException {
+        List<Field> fields = new ArrayList<>();
+        for (int i = 1; i <= metadata.getColumnCount(); i++) {
+            FieldType fieldType = FieldType.nullable(getArrowType(metadata, i, dateWithTime));
+            fields.add(new Field(metadata.getColumnLabel(i), fieldType, Collections.emptyList()));
+        }
+
+        return new Schema(fields);
+    }
+
+    /**
+     * Maps the SQL type of a column to an Arrow type. The numbers without a
+     * declared precision, for example the Oracle NUMBER, are written as text to
+     * keep all of their digits.
+     *
+     * @param metadata result set metadata
+     * @param column index of the column
+     * @param dateWithTime true maps the DATE columns to timestamps
+     * @return the Arrow type
+     * @throws SQLException if the metadata can not be read
+     */
+    private static ArrowType getArrowType(ResultSetMetaData metadata, int column, boolean dateWithTime)
+            throws SQLException {
+
+        ArrowType type;
+        switch (metadata.getColumnType(column)) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                type = ArrowType.Bool.INSTANCE;
+                break;
+
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                type = new ArrowType.Int(Integer.SIZE, true);
+                break;
+
+            case Types.BIGINT:
+                type = new ArrowType.Int(Long.SIZE, true);
+                break;
+
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                type = new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+                break;
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                type = getDecimalType(metadata.getPrecision(column), metadata.getScale(column));
+                break;
+
+            case Types.DATE:
+                type = dateWithTime
+                        ? new ArrowType.Timestamp(org.apache.arrow.vector.types.TimeUnit.MICROSECOND, null)
+                        : new ArrowType.Date(DateUnit.DAY);
+                break;
+
+            case Types.TIMESTAMP:
+                type = new ArrowType.Timestamp(org.apache.arrow.vector.types.TimeUnit.MICROSECOND, null);
+                break;
+
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                type = ArrowType.Binary.INSTANCE;
+                break;
+
+            default:
+                type = ArrowType.Utf8.INSTANCE;
+        }
+
+        return type;
+    }
+
+    /**
+     * Maps a decimal column to an Arrow type.
+     *
+     * @param precision declared precision of the column
+     * @param scale declared scale of the column
+     * @return 64-bit integer, decimal or text type
+     */
+    private static ArrowType getDecimalType(int precision, int scale) {
+        ArrowType type;
+        if (scale == 0 && precision > 0 && precision <= MAX_LONG_PRECISION) {
+            type = new ArrowType.Int(Long.SIZE, true);
+        } else if (scale >= 0 && precision > 0 && precision <= MAX_DECIMAL_PRECISION) {
+            type = new ArrowType.Decimal(precision, scale, DECIMAL_BIT_WIDTH);
+        } else {
+            type = ArrowType.Utf8.INSTANCE;
+        }
+
+        return type;
+    }
+
+    /**
+     * Chooses the typed getter of the result set and the setter of the vector
+     * for each column.
+     *
+     * @param metadata result set metadata
+     * @param root the vectors of the columns
+     * @param dateWithTime true reads the DATE columns as timestamps
+     * @return writers of the columns
+     * @throws SQLException if the metadata can not be read
+     */
+    private static List<ColumnWriter> getColumnWriters(ResultSetMetaData metadata, VectorSchemaRoot root,
+                                                       boolean dateWithTime) throws SQLException {
+
+        List<ColumnWriter> writers = new ArrayList<>();
+        for (int i = 1; i <= metadata.getColumnCount(); i++) {
+            writers.add(getColumnWriter(root, i, getArrowType(metadata, i, dateWithTime)));
+        }
+
+        return writers;
+    }
+
+    /**
+     * Chooses the typed getter of the result set and the setter of the vector.
+     *
+     * @param root the vectors of the columns
+     * @param column index of the column in the result set
+     * @param type Arrow type of the column
+     * @return the writer of the column
+     */
+    private static ColumnWriter getColumnWriter(VectorSchemaRoot root, int column, ArrowType type) {
+        ColumnWriter writer;
+        switch (type.getTypeID()) {
+            case Bool:
+                BitVector bitVector = (BitVector) root.getVector(column - 1);
+                writer = (rs, index) -> {
+                    boolean value = rs.getBoolean(column);
+                    if (rs.wasNull()) {
+                        bitVector.setNull(index);
+                    } else {
+                        bitVector.setSafe(index, value ? 1 : 0);
+                    }
+                };
+                break;
+
+            case Int:
+                writer = getIntegerWriter(root, column, (ArrowType.Int) type);
+                break;
+
+            case FloatingPoint:
+                Float8Vector float8Vector = (Float8Vector) root.getVector(column - 1);
+                writer = (rs, index) -> {
+                    double value = rs.getDouble(column);
+                    if (rs.wasNull()) {
+                        float8Vector.setNull(index);
+                    } else {
+                        float8Vector.setSafe(index, value);
+                    }
+                };
+                break;
+
+            case Decimal:
+                DecimalVector decimalVector = (DecimalVector) root.getVector(column - 1);
+                int scale = ((ArrowType.Decimal) type).getScale();
+                writer = (rs, index) -> {
+                    BigDecimal value = rs.getBigDecimal(column);
+                    if (Objects.isNull(value)) {
+                        decimalVector.setNull(index);
+                    } else {
+                        decimalVector.setSafe(index, value.setScale(scale, RoundingMode.HALF_UP));
+                    }
+                };
+                break;
+
+            case Date:
+                DateDayVector dateVector = (DateDayVector) root.getVector(column - 1);
+                writer = (rs, index) -> {
+                    Date value = rs.getDate(column);
+                    if (Objects.isNull(value)) {
+                        dateVector.setNull(index);
+                    } else {
+                        dateVector.setSafe(index, (int) value.toLocalDate().toEpochDay());
+                    }
+                };
+                break;
+
+            case Timestamp:
+                TimeStampMicroVector timestampVector = (TimeStampMicroVector) root.getVector(column - 1);
+                writer = (rs, index) -> {
+                    Timestamp value = rs.getTimestamp(column);
+                    if (Objects.isNull(value)) {
+                        timestampVector.setNull(index);
+                    } else {
+                        LocalDateTime dateTime = value.toLocalDateTime();
+                        long micros = TimeUnit.SECONDS.toMicros(dateTime.toEpochSecond(ZoneOffset.UTC))
+                                + TimeUnit.NANOSECONDS.toMicros(dateTime.getNano());
+                        timestampVector.setSafe(index, micros);
+                    }
+                };
+                break;
+
+            case Binary:
+                VarBinaryVector binaryVector = (VarBinaryVector) root.getVector(column - 1);
+                writer = (rs, index) -> {
+                    byte[] value = rs.getBytes(column);
+                    if (Objects.isNull(value)) {
+                        binaryVector.setNull(index);
+                    } else {
+                        binaryVector.setSafe(index, value);
+                    }
+                };
+                break;
+
+            default:
+                VarCharVector textVector = (VarCharVector) root.getVector(column - 1);
+                writer = (rs, index) -> {
+                    String value = rs.getString(column);
+                    if (Objects.isNull(value)) {
+                        textVector.setNull(index);
+                    } else {
+                        textVector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+                    }
+                };
+        }
+
+        return writer;
+    }
+
+    /**
+     * Chooses the writer of an integer column.
+     *
+     * @param root the vectors of the columns
+     * @param column index of the column in the result set
+     * @param type Arrow type of the column
+     * @return the writer of the column
+     */
+    private static ColumnWriter getIntegerWriter(VectorSchemaRoot root, int column, ArrowType.Int type) {
+        ColumnWriter writer;
+        if (type.getBitWidth() == Integer.SIZE) {
+            IntVector intVector = (IntVector) root.getVector(column - 1);
+            writer = (rs, index) -> {
+                int value = rs.getInt(column);
+                if (rs.wasNull()) {
+                    intVector.setNull(index);
+                } else {
+                    intVector.setSafe(index, value);
+                }
+            };
+        } else {
+            BigIntVector bigIntVector = (BigIntVector) root.getVector(column - 1);
+            writer = (rs, index) -> {
+                long value = rs.getLong(column);
+                if (rs.wasNull()) {
+                    bigIntVector.setNull(index);
+                } else {
+                    bigIntVector.setSafe(index, value);
+                }
+            };
+        }
+
+        return writer;
+    }
+}
@@ -0,0 +1,129 @@
+package com.remal.sqlrunner.output;
+
+import java.io.OutputStream;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Writes the rows in RFC 4180 CSV format. The values that contain a comma, a
+ * double quote or a line break are enclosed in double quotes and the double
+ * quotes inside them are doubled. The SQL NULL is written as an empty field
+ * and the empty string as two double quotes, so the two can be told apart,
+ * the same way as the load command reads them.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class CsvResultSetWriter extends TypedTextResultSetWriter {
+
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    private static final byte[] LINE_SEPARATOR = {'\r', '\n'};
+
+    private final boolean showHeader;
+
+    /**
+     * Constructor.
+     *
+     * @param out the target of the rows, it is not closed by the writer
+     * @param showHeader true writes the name of the fields before the rows
+     */
+    public CsvResultSetWriter(OutputStream out, boolean showHeader) {
+        super(out);
+        this.showHeader = showHeader;
+    }
+
+    /**
+     * Writes the name of the fields if the header is turned on.
+     *
+     * @param metadata result set metadata
+     * @throws SQLException if the metadata can not be read
+     */
+    @Override
+    protected void startResult(ResultSetMetaData metadata) throws SQLException {
+        if (showHeader) {
+            for (int i = 1; i <= metadata.getColumnCount(); i++) {
+                startValue(i - 1);
+                appendString(metadata.getColumnLabel(i));
+            }
+            endRow();
+        }
+    }
+
+    /**
+     * Nothing is written before the rows.
+     */
+    @Override
+    protected void startRow() {
+        // do nothing
+    }
+
+    /**
+     * Writes the separator between the values.
+     *
+     * @param index zero based index of the column
+     */
+    @Override
+    protected void startValue(int index) {
+        if (index > 0) {
+            buffer.append(SEPARATOR);
+        }
+    }
+
+    /**
+     * Writes the line separator.
+     */
+    @Override
+    protected void endRow() {
+        buffer.append(LINE_SEPARATOR);
+    }
+
+    /**
+     * The SQL NULL is an empty field.
+     */
+    @Override
+    protected void appendNull() {
+        // do nothing
+    }
+
+    /**
+     * Appends the string, quoted if needed.
+     *
+     * @param value the string
+     */
+    @Override
+    protected void appendString(String value) {
+        if (needsQuotes(value)) {
+            buffer.append(QUOTE);
+            int from = 0;
+            int quote = value.indexOf(QUOTE);
+            while (quote >= 0) {
+                buffer.appendUtf8(value, from, quote + 1);
+                buffer.append(QUOTE);
+                from = quote + 1;
+                quote = value.indexOf(QUOTE, from);
+            }
+            buffer.appendUtf8(value, from, value.length());
+            buffer.append(QUOTE);
+        } else {
+            buffer.appendUtf8(value, 0, value.length());
+        }
+    }
+
+    /**
+     * Checks whether the value must be enclosed in double quotes.
+     *
+     * @param value the string
+     * @return true if the value is empty or it contains a separator, a double quote or a line break
+     */
+    private static boolean needsQuotes(String value) {
+        boolean needsQuotes = value.isEmpty();
+        for (int i = 0; !needsQuotes && i < value.length(); i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == SEPARATOR || c == QUOTE || c == '\r' || c == '\n';
+        }
+
+        return needsQuotes;
+    }
+}
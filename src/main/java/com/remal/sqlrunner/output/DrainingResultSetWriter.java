@@ -0,0 +1,53 @@
+package com.remal.sqlrunner.output;
+
+import com.remal.sqlrunner.util.FetchSizeTuner;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Moves the cursor through the rows without reading the values, used in quiet
+ * mode when the query results are not written anywhere. The rows are still
+ * fetched, so the errors of the fetch are reported and the number of the
+ * rows is known.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class DrainingResultSetWriter implements ResultSetWriter {
+
+    /**
+     * Moves the cursor to the end of the result set.
+     *
+     * @param resultSet the result set
+     * @param tuner moves the cursor and measures the fetches
+     * @return number of the rows
+     * @throws SQLException if the rows can not be fetched
+     */
+    @Override
+    public long write(ResultSet resultSet, FetchSizeTuner tuner) throws SQLException {
+        long rows = 0;
+        while (tuner.next(resultSet)) {
+            rows++;
+        }
+
+        return rows;
+    }
+
+    /**
+     * Nothing is buffered.
+     */
+    @Override
+    public void flush() {
+        // do nothing
+    }
+
+    /**
+     * Nothing to release.
+     */
+    @Override
+    public void close() {
+        // do nothing
+    }
+}
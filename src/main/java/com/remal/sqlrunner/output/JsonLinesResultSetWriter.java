@@ -0,0 +1,170 @@
+package com.remal.sqlrunner.output;
+
+import com.remal.sqlrunner.util.JsonStrings;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes every row as a JSON object in a separate line. The keys are the
+ * names of the fields, the numbers and the booleans are JSON numbers and
+ * booleans, the dates are ISO-8601 strings and the SQL NULL is null.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class JsonLinesResultSetWriter extends TypedTextResultSetWriter {
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_VALUE = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte QUOTE = '"';
+
+    private byte[][] keys;
+
+    /**
+     * Constructor.
+     *
+     * @param out the target of the rows, it is not closed by the writer
+     */
+    public JsonLinesResultSetWriter(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Encodes the keys of the objects, they are the same for every row.
+     *
+     * @param metadata result set metadata
+     * @throws SQLException if the metadata can not be read
+     */
+    @Override
+    protected void startResult(ResultSetMetaData metadata) throws SQLException {
+        keys = new byte[metadata.getColumnCount()][];
+        for (int i = 0; i < keys.length; i++) {
+            String prefix = (i > 0 ? "," : "{") + JsonStrings.quote(metadata.getColumnLabel(i + 1)) + ":";
+            keys[i] = prefix.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Opens the object of a result without columns, otherwise the opening brace
+     * is the part of the first key.
+     */
+    @Override
+    protected void startRow() {
+        if (keys.length == 0) {
+            buffer.append((byte) '{');
+        }
+    }
+
+    /**
+     * Writes the key of the value.
+     *
+     * @param index zero based index of the column
+     */
+    @Override
+    protected void startValue(int index) {
+        buffer.append(keys[index]);
+    }
+
+    /**
+     * Closes the object and the line.
+     */
+    @Override
+    protected void endRow() {
+        buffer.append((byte) '}');
+        buffer.append((byte) '\n');
+    }
+
+    /**
+     * Appends the JSON null.
+     */
+    @Override
+    protected void appendNull() {
+        buffer.append(NULL_VALUE);
+    }
+
+    /**
+     * Appends a JSON string.
+     *
+     * @param value the string
+     */
+    @Override
+    protected void appendString(String value) {
+        buffer.append(QUOTE);
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                buffer.appendUtf8(value, from, i);
+                appendEscaped(c);
+                from = i + 1;
+            }
+        }
+        buffer.appendUtf8(value, from, value.length());
+        buffer.append(QUOTE);
+    }
+
+    /**
+     * Appends the date as a JSON string.
+     *
+     * @param value the date-time
+     * @param dateOnly true appends only the date part of the value
+     */
+    @Override
+    protected void appendTemporal(LocalDateTime value, boolean dateOnly) {
+        buffer.append(QUOTE);
+        super.appendTemporal(value, dateOnly);
+        buffer.append(QUOTE);
+    }
+
+    /**
+     * Appends a number, JSON has no representation of NaN and infinity, they
+     * are written as null.
+     *
+     * @param value the number
+     */
+    @Override
+    protected void appendDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            appendNull();
+        } else {
+            super.appendDouble(value);
+        }
+    }
+
+    /**
+     * Appends the escape sequence of a character.
+     *
+     * @param c the character
+     */
+    private void appendEscaped(char c) {
+        buffer.append((byte) '\\');
+        switch (c) {
+            case '"':
+            case '\\':
+                buffer.append((byte) c);
+                break;
+
+            case '\n':
+                buffer.append((byte) 'n');
+                break;
+
+            case '\r':
+                buffer.append((byte) 'r');
+                break;
+
+            case '\t':
+                buffer.append((byte) 't');
+                break;
+
+            default:
+                buffer.appendAscii("u00");
+                buffer.append(HEX_DIGITS[c >> 4]);
+                buffer.append(HEX_DIGITS[c & 0xF]);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.remal.sqlrunner.output;
+
+import com.remal.sqlrunner.util.FetchSizeTuner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes the result of the queries to an output stream in a given format.
+ * The implementations stream the rows while the cursor moves forward, so the
+ * result set does not need to be kept in the memory.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public interface ResultSetWriter extends Closeable {
+
+    /**
+     * Writes the rows of the result set.
+     *
+     * @param resultSet the result set
+     * @param tuner moves the cursor and measures the fetches
+     * @return number of the rows that have been written
+     * @throws SQLException if the rows can not be read
+     * @throws IOException if the rows can not be written
+     */
+    long write(ResultSet resultSet, FetchSizeTuner tuner) throws SQLException, IOException;
+
+    /**
+     * Writes the buffered data to the output stream.
+     *
+     * @throws IOException in case of error
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flushes the buffered data and releases the resources held by the writer.
+     * The underlying output stream is not closed.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,58 @@
+package com.remal.sqlrunner.output;
+
+import com.remal.sqlrunner.domain.Dialect;
+import com.remal.sqlrunner.domain.OutputFormat;
+
+import java.io.OutputStream;
+
+/**
+ * Creates the result set writer of the output formats.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class ResultSetWriters {
+
+    /**
+     * Creates a writer.
+     *
+     * @param format the output format
+     * @param out the target of the rows, it is not closed by the writer
+     * @param showHeader true writes the name of the fields if the format has a header
+     * @param dialect the SQL dialect of the database, decides the type of the DATE columns in binary formats
+     * @return the writer
+     */
+    public static ResultSetWriter create(OutputFormat format, OutputStream out, boolean showHeader,
+                                         Dialect dialect) {
+        ResultSetWriter writer;
+        switch (format) {
+            case CSV:
+                writer = new CsvResultSetWriter(out, showHeader);
+                break;
+
+            case TSV:
+                writer = new TsvResultSetWriter(out, showHeader);
+                break;
+
+            case JSONL:
+                writer = new JsonLinesResultSetWriter(out);
+                break;
+
+            case ARROW:
+                writer = new ArrowResultSetWriter(out, dialect.hasTimeInDate());
+                break;
+
+            default:
+                writer = new TextResultSetWriter(out, showHeader);
+        }
+
+        return writer;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private ResultSetWriters() {
+    }
+}
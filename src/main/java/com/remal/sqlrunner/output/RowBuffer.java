@@ -0,0 +1,238 @@
+package com.remal.sqlrunner.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer the text writers encode the rows into. The numbers and
+ * the dates are written digit by digit and the strings are encoded to UTF-8
+ * in place, so no intermediate string is created for them. The buffer is
+ * reused for all the rows.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+final class RowBuffer {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final byte[] MIN_LONG = String.valueOf(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final int NANOS_PER_MICRO = 1000;
+    private static final int NANOS_PER_MILLI = 1000_000;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Getter method.
+     *
+     * @return number of the bytes in the buffer
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a byte.
+     *
+     * @param value the byte
+     */
+    void append(byte value) {
+        ensureCapacity(size + 1);
+        bytes[size++] = value;
+    }
+
+    /**
+     * Appends bytes.
+     *
+     * @param values the bytes
+     */
+    void append(byte[] values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, bytes, size, values.length);
+        size += values.length;
+    }
+
+    /**
+     * Appends a string that contains only ASCII characters.
+     *
+     * @param value the string
+     */
+    void appendAscii(String value) {
+        int length = value.length();
+        ensureCapacity(size + length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * Appends a part of a string encoded to UTF-8.
+     *
+     * @param value the string
+     * @param from index of the first character
+     * @param to index after the last character
+     */
+    void appendUtf8(String value, int from, int to) {
+        ensureCapacity(size + (to - from) * 3);
+        int i = from;
+        while (i < to) {
+            char c = value.charAt(i++);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | c >> 6);
+                bytes[size++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i < to && Character.isLowSurrogate(value.charAt(i))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(i++));
+                bytes[size++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[size++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
+            } else {
+                bytes[size++] = (byte) (0xE0 | c >> 12);
+                bytes[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[size++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    /**
+     * Appends the decimal digits of a number.
+     *
+     * @param value the number
+     */
+    void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            append(MIN_LONG);
+        } else {
+            long remaining = value;
+            if (remaining < 0) {
+                append((byte) '-');
+                remaining = -remaining;
+            }
+
+            int digits = 1;
+            for (long limit = 10; digits < 19 && remaining >= limit; limit *= 10) {
+                digits++;
+            }
+
+            ensureCapacity(size + digits);
+            for (int i = size + digits - 1; i >= size; i--) {
+                bytes[i] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            }
+            size += digits;
+        }
+    }
+
+    /**
+     * Appends a date in ISO-8601 format: yyyy-MM-dd.
+     *
+     * @param date the date
+     */
+    void appendDate(LocalDate date) {
+        int year = date.getYear();
+        if (year < 0) {
+            append((byte) '-');
+        }
+        appendPadded(Math.abs(year), 4);
+        append((byte) '-');
+        appendPadded(date.getMonthValue(), 2);
+        append((byte) '-');
+        appendPadded(date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Appends a timestamp in ISO-8601 format: yyyy-MM-ddTHH:mm:ss followed by
+     * the fraction of the second in milli, micro or nano second precision if
+     * it is not zero.
+     *
+     * @param dateTime the timestamp
+     */
+    void appendDateTime(LocalDateTime dateTime) {
+        appendDate(dateTime.toLocalDate());
+        append((byte) 'T');
+        appendPadded(dateTime.getHour(), 2);
+        append((byte) ':');
+        appendPadded(dateTime.getMinute(), 2);
+        append((byte) ':');
+        appendPadded(dateTime.getSecond(), 2);
+
+        int nanos = dateTime.getNano();
+        if (nanos > 0) {
+            append((byte) '.');
+            if (nanos % NANOS_PER_MILLI == 0) {
+                appendPadded(nanos / NANOS_PER_MILLI, 3);
+            } else if (nanos % NANOS_PER_MICRO == 0) {
+                appendPadded(nanos / NANOS_PER_MICRO, 6);
+            } else {
+                appendPadded(nanos, 9);
+            }
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the stream and empties the buffer.
+     *
+     * @param out the target stream
+     * @throws IOException in case of error
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+        size = 0;
+    }
+
+    /**
+     * Appends a non-negative number padded with leading zeros.
+     *
+     * @param value the number
+     * @param digits minimum number of the digits
+     */
+    private void appendPadded(int value, int digits) {
+        int remaining = value;
+        int length = digits;
+        for (long limit = pow10(digits); remaining >= limit; limit *= 10) {
+            length++;
+        }
+
+        ensureCapacity(size + length);
+        for (int i = size + length - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        size += length;
+    }
+
+    /**
+     * Calculates a power of ten.
+     *
+     * @param exponent the exponent
+     * @return ten to the power of the exponent
+     */
+    private static long pow10(int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+
+        return value;
+    }
+
+    /**
+     * Grows the buffer if needed.
+     *
+     * @param capacity the required capacity
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.remal.sqlrunner.output;
+
+import com.remal.sqlrunner.util.FetchSizeTuner;
+import com.remal.sqlrunner.util.ResultSetConverter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes the values as text separated by semicolons, see {@link ResultSetConverter}.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class TextResultSetWriter implements ResultSetWriter {
+
+    private final Writer writer;
+    private final boolean showHeader;
+
+    /**
+     * Constructor.
+     *
+     * @param out the target of the rows
+     * @param showHeader true writes the name of the fields before the rows
+     */
+    public TextResultSetWriter(OutputStream out, boolean showHeader) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out));
+        this.showHeader = showHeader;
+    }
+
+    /**
+     * Writes the rows of the result set.
+     *
+     * @param resultSet the result set
+     * @param tuner moves the cursor and measures the fetches
+     * @return number of the rows that have been written
+     * @throws SQLException if the rows can not be read
+     * @throws IOException if the rows can not be written
+     */
+    @Override
+    public long write(ResultSet resultSet, FetchSizeTuner tuner) throws SQLException, IOException {
+        return ResultSetConverter.write(resultSet, showHeader, writer, tuner);
+    }
+
+    /**
+     * Writes the buffered rows to the output stream.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Writes the buffered rows to the output stream, the stream is not closed.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
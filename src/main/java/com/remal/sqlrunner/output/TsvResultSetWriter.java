@@ -0,0 +1,140 @@
+package com.remal.sqlrunner.output;
+
+import java.io.OutputStream;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Writes the rows as tab separated values. The tab, the line breaks and the
+ * backslash inside the values are written as \t, \n, \r and \\ escape
+ * sequences, so every row is exactly one line. The SQL NULL is written as \N.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class TsvResultSetWriter extends TypedTextResultSetWriter {
+
+    private static final byte SEPARATOR = '\t';
+    private static final byte ESCAPE = '\\';
+    private static final byte LINE_SEPARATOR = '\n';
+    private static final byte[] NULL_VALUE = {'\\', 'N'};
+
+    private final boolean showHeader;
+
+    /**
+     * Constructor.
+     *
+     * @param out the target of the rows, it is not closed by the writer
+     * @param showHeader true writes the name of the fields before the rows
+     */
+    public TsvResultSetWriter(OutputStream out, boolean showHeader) {
+        super(out);
+        this.showHeader = showHeader;
+    }
+
+    /**
+     * Writes the name of the fields if the header is turned on.
+     *
+     * @param metadata result set metadata
+     * @throws SQLException if the metadata can not be read
+     */
+    @Override
+    protected void startResult(ResultSetMetaData metadata) throws SQLException {
+        if (showHeader) {
+            for (int i = 1; i <= metadata.getColumnCount(); i++) {
+                startValue(i - 1);
+                appendString(metadata.getColumnLabel(i));
+            }
+            endRow();
+        }
+    }
+
+    /**
+     * Nothing is written before the rows.
+     */
+    @Override
+    protected void startRow() {
+        // do nothing
+    }
+
+    /**
+     * Writes the separator between the values.
+     *
+     * @param index zero based index of the column
+     */
+    @Override
+    protected void startValue(int index) {
+        if (index > 0) {
+            buffer.append(SEPARATOR);
+        }
+    }
+
+    /**
+     * Writes the line separator.
+     */
+    @Override
+    protected void endRow() {
+        buffer.append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the SQL NULL as \N.
+     */
+    @Override
+    protected void appendNull() {
+        buffer.append(NULL_VALUE);
+    }
+
+    /**
+     * Appends the string with the special characters escaped.
+     *
+     * @param value the string
+     */
+    @Override
+    protected void appendString(String value) {
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            byte escaped = getEscapeCharacter(value.charAt(i));
+            if (escaped != 0) {
+                buffer.appendUtf8(value, from, i);
+                buffer.append(ESCAPE);
+                buffer.append(escaped);
+                from = i + 1;
+            }
+        }
+        buffer.appendUtf8(value, from, value.length());
+    }
+
+    /**
+     * Finds the character written after the backslash.
+     *
+     * @param c the character
+     * @return the escape character or 0 if the character does not need escaping
+     */
+    private static byte getEscapeCharacter(char c) {
+        byte escaped;
+        switch (c) {
+            case '\t':
+                escaped = 't';
+                break;
+
+            case '\n':
+                escaped = 'n';
+                break;
+
+            case '\r':
+                escaped = 'r';
+                break;
+
+            case '\\':
+                escaped = '\\';
+                break;
+
+            default:
+                escaped = 0;
+        }
+
+        return escaped;
+    }
+}
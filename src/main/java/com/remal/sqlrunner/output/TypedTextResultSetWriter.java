@@ -0,0 +1,356 @@
+package com.remal.sqlrunner.output;
+
+import com.remal.sqlrunner.util.FetchSizeTuner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Base class of the text writers that read the values with the typed getters
+ * of the result set. The getter of each column is chosen once from the
+ * metadata of the result set, then the values are encoded straight into a
+ * reusable {@link RowBuffer}. The subclasses define the layout of the rows
+ * and how the strings are escaped.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+abstract class TypedTextResultSetWriter implements ResultSetWriter {
+
+    private static final int FLUSH_THRESHOLD = 32 * 1024;
+    private static final int MAX_LONG_PRECISION = 18;
+
+    /**
+     * The encoded rows.
+     */
+    protected final RowBuffer buffer = new RowBuffer();
+
+    private final OutputStream out;
+
+    /**
+     * Reads one value of the current row and appends it to the buffer.
+     */
+    @FunctionalInterface
+    private interface ColumnAccessor {
+
+        /**
+         * Appends the value.
+         *
+         * @param resultSet the result set positioned on the row
+         * @param column index of the column
+         * @throws SQLException if the value can not be read
+         */
+        void append(ResultSet resultSet, int column) throws SQLException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param out the target of the rows, it is not closed by the writer
+     */
+    protected TypedTextResultSetWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the rows of the result set.
+     *
+     * @param resultSet the result set
+     * @param tuner moves the cursor and measures the fetches
+     * @return number of the rows that have been written
+     * @throws SQLException if the rows can not be read
+     * @throws IOException if the rows can not be written
+     */
+    @Override
+    public long write(ResultSet resultSet, FetchSizeTuner tuner) throws SQLException, IOException {
+        ResultSetMetaData metadata = resultSet.getMetaData();
+        int columnCount = metadata.getColumnCount();
+        ColumnAccessor[] accessors = new ColumnAccessor[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            accessors[i] = getAccessor(metadata, i + 1);
+        }
+
+        startResult(metadata);
+        long rowCount = 0;
+        while (tuner.next(resultSet)) {
+            int rowStart = buffer.size();
+            startRow();
+            for (int i = 0; i < columnCount; i++) {
+                startValue(i);
+                accessors[i].append(resultSet, i + 1);
+            }
+            endRow();
+            tuner.addRowWidth(buffer.size() - rowStart);
+            rowCount++;
+
+            if (buffer.size() >= FLUSH_THRESHOLD) {
+                buffer.writeTo(out);
+            }
+        }
+
+        return rowCount;
+    }
+
+    /**
+     * Writes the buffered rows to the output stream.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered rows to the output stream, the stream is not closed.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Called before the first row of the result set, e.g. to write a header.
+     *
+     * @param metadata result set metadata
+     * @throws SQLException if the metadata can not be read
+     */
+    protected abstract void startResult(ResultSetMetaData metadata) throws SQLException;
+
+    /**
+     * Called before the first value of each row.
+     */
+    protected abstract void startRow();
+
+    /**
+     * Called before each value of the row, e.g. to write the separator.
+     *
+     * @param index zero based index of the column
+     */
+    protected abstract void startValue(int index);
+
+    /**
+     * Called after the last value of each row.
+     */
+    protected abstract void endRow();
+
+    /**
+     * Appends an SQL NULL value.
+     */
+    protected abstract void appendNull();
+
+    /**
+     * Appends a string value, escaped as the format requires.
+     *
+     * @param value the string
+     */
+    protected abstract void appendString(String value);
+
+    /**
+     * Appends a date or a timestamp. The value is ASCII text and never needs
+     * escaping, the formats that quote the dates override this method.
+     *
+     * @param value the date-time
+     * @param dateOnly true appends only the date part of the value
+     */
+    protected void appendTemporal(LocalDateTime value, boolean dateOnly) {
+        if (dateOnly) {
+            buffer.appendDate(value.toLocalDate());
+        } else {
+            buffer.appendDateTime(value);
+        }
+    }
+
+    /**
+     * Appends a floating point number.
+     *
+     * @param value the number
+     */
+    protected void appendDouble(double value) {
+        buffer.appendAscii(Double.toString(value));
+    }
+
+    /**
+     * Chooses the typed getter of a column.
+     *
+     * @param metadata result set metadata
+     * @param column index of the column
+     * @return the accessor of the column
+     * @throws SQLException if the metadata can not be read
+     */
+    private ColumnAccessor getAccessor(ResultSetMetaData metadata, int column) throws SQLException {
+        ColumnAccessor accessor;
+        switch (metadata.getColumnType(column)) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                accessor = this::appendBoolean;
+                break;
+
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                accessor = this::appendLong;
+                break;
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                boolean integer = metadata.getScale(column) == 0
+                        && metadata.getPrecision(column) > 0
+                        && metadata.getPrecision(column) <= MAX_LONG_PRECISION;
+                accessor = integer ? this::appendLong : this::appendBigDecimal;
+                break;
+
+            case Types.FLOAT:
+                // the Oracle FLOAT is a decimal number with up to 38 digits
+                accessor = this::appendBigDecimal;
+                break;
+
+            case Types.REAL:
+            case Types.DOUBLE:
+                accessor = this::appendDouble;
+                break;
+
+            case Types.DATE:
+                accessor = this::appendDate;
+                break;
+
+            case Types.TIMESTAMP:
+                accessor = this::appendTimestamp;
+                break;
+
+            default:
+                accessor = this::appendString;
+        }
+
+        return accessor;
+    }
+
+    /**
+     * Reads and appends a boolean value.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param column index of the column
+     * @throws SQLException if the value can not be read
+     */
+    private void appendBoolean(ResultSet resultSet, int column) throws SQLException {
+        boolean value = resultSet.getBoolean(column);
+        if (resultSet.wasNull()) {
+            appendNull();
+        } else {
+            buffer.appendAscii(value ? "true" : "false");
+        }
+    }
+
+    /**
+     * Reads and appends an integer value.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param column index of the column
+     * @throws SQLException if the value can not be read
+     */
+    private void appendLong(ResultSet resultSet, int column) throws SQLException {
+        long value = resultSet.getLong(column);
+        if (resultSet.wasNull()) {
+            appendNull();
+        } else {
+            buffer.appendLong(value);
+        }
+    }
+
+    /**
+     * Reads and appends a decimal value.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param column index of the column
+     * @throws SQLException if the value can not be read
+     */
+    private void appendBigDecimal(ResultSet resultSet, int column) throws SQLException {
+        BigDecimal value = resultSet.getBigDecimal(column);
+        if (Objects.isNull(value)) {
+            appendNull();
+        } else {
+            buffer.appendAscii(value.toPlainString());
+        }
+    }
+
+    /**
+     * Reads and appends a floating point value.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param column index of the column
+     * @throws SQLException if the value can not be read
+     */
+    private void appendDouble(ResultSet resultSet, int column) throws SQLException {
+        double value = resultSet.getDouble(column);
+        if (resultSet.wasNull()) {
+            appendNull();
+        } else {
+            appendDouble(value);
+        }
+    }
+
+    /**
+     * Reads and appends a date value. The value is read as a timestamp, because
+     * the DATE of some databases, e.g. Oracle, holds the time as well; the time
+     * is only written if it is not midnight.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param column index of the column
+     * @throws SQLException if the value can not be read
+     */
+    private void appendDate(ResultSet resultSet, int column) throws SQLException {
+        Timestamp value = resultSet.getTimestamp(column);
+        if (Objects.isNull(value)) {
+            appendNull();
+        } else {
+            LocalDateTime dateTime = value.toLocalDateTime();
+            appendTemporal(dateTime, LocalTime.MIDNIGHT.equals(dateTime.toLocalTime()));
+        }
+    }
+
+    /**
+     * Reads and appends a timestamp value.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param column index of the column
+     * @throws SQLException if the value can not be read
+     */
+    private void appendTimestamp(ResultSet resultSet, int column) throws SQLException {
+        Timestamp value = resultSet.getTimestamp(column);
+        if (Objects.isNull(value)) {
+            appendNull();
+        } else {
+            appendTemporal(value.toLocalDateTime(), false);
+        }
+    }
+
+    /**
+     * Reads and appends a value as string.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param column index of the column
+     * @throws SQLException if the value can not be read
+     */
+    private void appendString(ResultSet resultSet, int column) throws SQLException {
+        String value = resultSet.getString(column);
+        if (Objects.isNull(value)) {
+            appendNull();
+        } else {
+            appendString(value);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.remal.sqlrunner.picocli;
+
+import com.remal.sqlrunner.domain.Dialect;
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Option;
+
+import java.util.Objects;
+
+/**
+ * The command line options that tell how to connect to the database. The
+ * commands of the tool share them as a picocli mixin.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class ConnectionOptions {
+
+    @Option(names = {"-c", "--dialect"},
+            defaultValue = Dialect.ORACLE_VALUE,
+            description = "SQL dialect used during the execution of the SQL statement. "
+                    + "Supported SQL dialects: ${COMPLETION-CANDIDATES}.%n"
+                    + "  Default: " + Dialect.ORACLE_VALUE)
+    private Dialect dialect;
+
+    @Option(names = {"-U", "--user"},
+            required = true,
+            description = "Name for the login.")
+    private String user;
+
+    @ArgGroup(multiplicity = "1",
+            heading = "%nSpecify a password for the connecting user:%n")
+    PasswordArgGroup passwordArgGroup;
+
+    @ArgGroup(multiplicity = "1",
+            heading = "%nProvide a JDBC URL:%n")
+    MainArgGroup mainArgGroup;
+
+    /**
+     * A parameter group for password.
+     * Password can be provided on two different ways:
+     *    (1) via a parameter
+     *    (1) use the interactive mode where user needs to type the password
+     */
+    static class PasswordArgGroup {
+        @Option(names = {"-P", "--password"},
+                required = true,
+                description = "Password for the connecting user.")
+        private String password;
+
+        @Option(names = {"-I", "--iPassword"},
+                required = true,
+                interactive = true,
+                description = "Interactive way to get the password for the connecting user.")
+        private String interactivePassword;
+    }
+
+    /**
+     * Two exclusive command line parameters:
+     *    (1) JDBC URL parameter
+     *    (2) Custom connection parameters
+     */
+    static class MainArgGroup {
+        /**
+         * JDBC URL option (only one parameter).
+         */
+        @Option(names = {"-j", "--jdbcUrl"},
+                arity = "1",
+                description = "JDBC URL, example: jdbc:oracle:<drivertype>:@//<host>:<port>/<database>. "
+                        + "The dialect of a known database is detected from the URL.")
+        private String jdbcUrl;
+
+        /**
+         * Custom connection parameters group.
+         */
+        @ArgGroup(exclusive = false,
+                multiplicity = "1",
+                heading = "%nCustom configuration:%n")
+        private CustomConfigurationGroup customConfigurationGroup;
+    }
+
+    /**
+     * Custom connection parameters.
+     */
+    static class CustomConfigurationGroup {
+        private static final String DEFAULT_HOST = "localhost";
+
+        @Option(names = {"-h", "--host"},
+                required = true,
+                defaultValue = DEFAULT_HOST,
+                description = "Name of the database server.%n"
+                + "  Default: " + DEFAULT_HOST)
+        private String host;
+
+        @Option(names = {"-p", "--port"},
+                description = "Number of the port where the server listens for requests.%n"
+                        + "  Default: the default port of the dialect, e.g. 1521 for ORACLE")
+        private Integer port;
+
+        @Option(names = {"-d", "--database"},
+                required = true,
+                description = "Name of the particular database on the server. Also known as the SID in Oracle "
+                        + "terminology.")
+        private String database;
+    }
+
+    /**
+     * Getter method.
+     * If a JDBC URL of a known database is given then the dialect is detected
+     * from the URL, otherwise the --dialect option decides.
+     *
+     * @return the SQL dialect of the database
+     */
+    public Dialect getDialect() {
+        Dialect detected = Objects.isNull(mainArgGroup.jdbcUrl) ? null : Dialect.fromJdbcUrl(mainArgGroup.jdbcUrl);
+        return Objects.isNull(detected) ? dialect : detected;
+    }
+
+    /**
+     * Getter method.
+     * If no JDBC URL is given then the URL is built from the host, the port and
+     * the database. The port defaults to the default port of the dialect.
+     *
+     * @return the JDBC URL
+     */
+    public String getJdbcUrl() {
+        String jdbcUrl = mainArgGroup.jdbcUrl;
+        if (Objects.isNull(jdbcUrl)) {
+            Integer port = mainArgGroup.customConfigurationGroup.port;
+            jdbcUrl = dialect.getJdbcUrl(
+                    mainArgGroup.customConfigurationGroup.host,
+                    Objects.isNull(port) ? dialect.getDefaultPort() : port,
+                    mainArgGroup.customConfigurationGroup.database);
+        }
+
+        return jdbcUrl;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return name for the login
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the password given as a parameter or typed in the interactive mode
+     */
+    public String getPassword() {
+        String password = passwordArgGroup.password;
+        if (Objects.isNull(password)) {
+            password = passwordArgGroup.interactivePassword;
+        }
+
+        return password;
+    }
+}
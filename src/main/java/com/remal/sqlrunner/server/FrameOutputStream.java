@@ -0,0 +1,73 @@
+package com.remal.sqlrunner.server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Wraps the bytes written to it into protocol frames of the given type.
+ * The standard output and error streams of the same request share the
+ * socket, so the frames are written under the lock of the socket stream.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class FrameOutputStream extends OutputStream {
+
+    private final DataOutputStream out;
+    private final byte frameType;
+
+    /**
+     * Constructor.
+     *
+     * @param out the output of the socket
+     * @param frameType type of the frames
+     */
+    public FrameOutputStream(DataOutputStream out, byte frameType) {
+        this.out = out;
+        this.frameType = frameType;
+    }
+
+    /**
+     * Writes one byte in its own frame.
+     *
+     * @param b the byte
+     * @throws IOException in case of communication error
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    /**
+     * Writes the bytes in one frame.
+     *
+     * @param b the data
+     * @param off the start offset in the data
+     * @param len the number of bytes to write
+     * @throws IOException in case of communication error
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > 0) {
+            synchronized (out) {
+                out.writeByte(frameType);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+    }
+
+    /**
+     * Flushes the socket stream.
+     *
+     * @throws IOException in case of communication error
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+}
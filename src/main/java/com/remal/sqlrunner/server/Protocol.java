@@ -0,0 +1,163 @@
+package com.remal.sqlrunner.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The wire protocol used between the SQL-Runner client and server.
+ *
+ * <p>The client sends the token of the server, see {@link ServerToken}, then
+ * the number of the command line arguments followed by the arguments, all as
+ * length-prefixed UTF-8 strings. The server limits the number and the size of
+ * the arguments, so a request can not exhaust its memory. The server answers with frames,
+ * each frame starts with a type byte: the output frames carry the length and
+ * the bytes written to the standard output or error, the last frame carries
+ * the exit code.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class Protocol {
+
+    /**
+     * Default TCP port of the server.
+     */
+    public static final int DEFAULT_PORT = 7175;
+
+    /**
+     * Frame that contains bytes of the standard output.
+     */
+    public static final byte STDOUT_FRAME = 'O';
+
+    /**
+     * Frame that contains bytes of the standard error.
+     */
+    public static final byte STDERR_FRAME = 'E';
+
+    /**
+     * Last frame of the response, contains the exit code.
+     */
+    public static final byte EXIT_CODE_FRAME = 'X';
+
+    private static final int MAX_TOKEN_BYTES = 1024;
+    private static final int MAX_ARGUMENTS = 4096;
+    private static final int MAX_REQUEST_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Sends the token and the command line arguments to the server.
+     *
+     * @param out the output of the socket
+     * @param token the token of the server
+     * @param args the command line arguments
+     * @throws IOException in case of communication error
+     */
+    public static void writeRequest(DataOutputStream out, String token, String[] args) throws IOException {
+        writeString(out, token);
+        out.writeInt(args.length);
+        for (String arg : args) {
+            writeString(out, arg);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the token sent by the client.
+     *
+     * @param in the input of the socket
+     * @return the token
+     * @throws IOException in case of communication error or if the token is too long
+     */
+    public static String readToken(DataInputStream in) throws IOException {
+        return readString(in, MAX_TOKEN_BYTES);
+    }
+
+    /**
+     * Reads the command line arguments sent by the client.
+     *
+     * @param in the input of the socket
+     * @return the command line arguments
+     * @throws IOException in case of communication error or if the request is too big
+     */
+    public static String[] readArguments(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("invalid number of arguments: " + count);
+        }
+
+        String[] args = new String[count];
+        int remainingBytes = MAX_REQUEST_BYTES;
+        for (int i = 0; i < args.length; i++) {
+            byte[] bytes = readBytes(in, remainingBytes);
+            remainingBytes -= bytes.length;
+            args[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return args;
+    }
+
+    /**
+     * Parses the port from the "--option=port" form of the server and client
+     * command line options.
+     *
+     * @param arg the command line argument
+     * @return the port given after the equal sign or the default port
+     */
+    public static int getPort(String arg) {
+        int separator = arg.indexOf('=');
+        return separator < 0 ? DEFAULT_PORT : Integer.parseInt(arg.substring(separator + 1).trim());
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     *
+     * @param out the output of the socket
+     * @param value the string
+     * @throws IOException in case of communication error
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @param in the input of the socket
+     * @param maxBytes maximum length of the string in bytes
+     * @return the string
+     * @throws IOException in case of communication error or if the string is too long
+     */
+    private static String readString(DataInputStream in, int maxBytes) throws IOException {
+        return new String(readBytes(in, maxBytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads length-prefixed bytes. The length is checked before the buffer is
+     * allocated.
+     *
+     * @param in the input of the socket
+     * @param maxBytes maximum number of the bytes
+     * @return the bytes
+     * @throws IOException in case of communication error or if there are too many bytes
+     */
+    private static byte[] readBytes(DataInputStream in, int maxBytes) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxBytes) {
+            throw new IOException("invalid length of a request string: " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private Protocol() {
+    }
+}
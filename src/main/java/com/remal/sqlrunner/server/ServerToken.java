@@ -0,0 +1,120 @@
+package com.remal.sqlrunner.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Set;
+
+/**
+ * Shared secret of the server and its clients. The server creates a random
+ * token at startup and writes it to a file that only the owner can read, the
+ * client reads the file and sends the token with every request. So only the
+ * OS user that started the server, or root, can send requests to it.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class ServerToken {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final String DIRECTORY = ".sql-runner";
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    /**
+     * Creates a new token and writes it to the token file of the port. The
+     * file is created with owner-only permissions, a former file is replaced.
+     *
+     * @param port the TCP port of the server
+     * @return the token
+     * @throws IOException if the token file can not be written
+     */
+    public static String create(int port) throws IOException {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        StringBuilder token = new StringBuilder();
+        for (byte b : random) {
+            token.append(String.format("%02x", b));
+        }
+
+        Path file = getPath(port);
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (!Files.isDirectory(file.getParent())) {
+            if (posix) {
+                Files.createDirectories(file.getParent(), PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+            } else {
+                Files.createDirectories(file.getParent());
+            }
+        }
+
+        Files.deleteIfExists(file);
+        if (posix) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+        } else {
+            Files.createFile(file);
+        }
+        Files.write(file, token.toString().getBytes(StandardCharsets.US_ASCII));
+        return token.toString();
+    }
+
+    /**
+     * Reads the token of the server that listens on the port.
+     *
+     * @param port the TCP port of the server
+     * @return the token
+     * @throws IOException if the token file can not be read, e.g. the server is not running
+     */
+    public static String read(int port) throws IOException {
+        return new String(Files.readAllBytes(getPath(port)), StandardCharsets.US_ASCII).trim();
+    }
+
+    /**
+     * Deletes the token file of the port, the errors are ignored.
+     *
+     * @param port the TCP port of the server
+     */
+    public static void delete(int port) {
+        try {
+            Files.deleteIfExists(getPath(port));
+        } catch (IOException e) {
+            // the next server replaces the file anyway
+        }
+    }
+
+    /**
+     * Compares the token sent by a client with the token of the server in
+     * constant time.
+     *
+     * @param expected the token of the server
+     * @param actual the token sent by the client
+     * @return true if the tokens are equal
+     */
+    public static boolean matches(String expected, String actual) {
+        return MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.US_ASCII), actual.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Path of the token file that belongs to the port.
+     *
+     * @param port the TCP port of the server
+     * @return path to the token file in the home directory of the user
+     */
+    public static Path getPath(int port) {
+        return Paths.get(System.getProperty("user.home"), DIRECTORY, "server-" + port + ".token");
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private ServerToken() {
+    }
+}
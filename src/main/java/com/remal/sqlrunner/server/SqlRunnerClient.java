@@ -0,0 +1,184 @@
+package com.remal.sqlrunner.server;
+
+import com.remal.sqlrunner.domain.ExitCode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Console;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Thin client that forwards the command line arguments to a running
+ * SQL-Runner server and prints the output of the execution. The request is
+ * authorized by the token of the server, and the relative paths of the file
+ * options are resolved against the working directory of the client, because
+ * the server has its own working directory.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class SqlRunnerClient {
+
+    /**
+     * Command line option that forwards the execution to the server.
+     */
+    public static final String REMOTE_OPTION = "--remote";
+
+    private static final String INTERACTIVE_PASSWORD_SHORT_OPTION = "-I";
+    private static final String INTERACTIVE_PASSWORD_LONG_OPTION = "--iPassword";
+    private static final String PASSWORD_OPTION = "-P";
+
+    /**
+     * Options whose value is a file or directory path.
+     */
+    private static final Set<String> PATH_OPTIONS = new HashSet<>(Arrays.asList(
+            "-f", "--file", "-o", "--output", "-O", "--metrics-out", "-V", "--cache-dir"));
+
+    /**
+     * Options whose value is passed as it is, even if it looks like an option.
+     */
+    private static final Set<String> VERBATIM_OPTIONS = new HashSet<>(Arrays.asList(
+            "-P", "--password", "-s", "--sql", "-U", "--user"));
+
+    private final int port;
+
+    /**
+     * Constructor.
+     *
+     * @param port the TCP port where the server listens for requests
+     */
+    public SqlRunnerClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Sends the arguments to the server and streams back the output.
+     *
+     * @param args command line parameters
+     * @return the exit code of the execution
+     */
+    public int run(String[] args) {
+        int exitCode;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            String token = ServerToken.read(port);
+            Protocol.writeRequest(out, token, resolvePaths(resolveInteractivePassword(args)));
+            exitCode = readResponse(in);
+
+        } catch (IOException e) {
+            System.err.println(String.format(
+                    "ERROR: can not execute the request on the server at port %d: %s", port, e));
+            exitCode = ExitCode.INTERNAL_ERROR.getExitCode();
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Reads the frames sent by the server until the exit code arrives.
+     *
+     * @param in the input of the socket
+     * @return the exit code
+     * @throws IOException in case of communication error
+     */
+    private static int readResponse(DataInputStream in) throws IOException {
+        Integer exitCode = null;
+        byte[] buffer = new byte[0];
+        while (Objects.isNull(exitCode)) {
+            byte frameType = in.readByte();
+            if (frameType == Protocol.EXIT_CODE_FRAME) {
+                exitCode = in.readInt();
+            } else {
+                int length = in.readInt();
+                if (buffer.length < length) {
+                    buffer = new byte[length];
+                }
+                in.readFully(buffer, 0, length);
+
+                PrintStream target = frameType == Protocol.STDERR_FRAME ? System.err : System.out;
+                target.write(buffer, 0, length);
+                target.flush();
+            }
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Replaces the relative paths of the file options with absolute paths,
+     * both in the "-f path" and in the "-f=path" form.
+     *
+     * @param args command line parameters
+     * @return the arguments to be sent to the server
+     */
+    private static String[] resolvePaths(String[] args) {
+        String[] resolved = args.clone();
+        for (int i = 0; i < resolved.length; i++) {
+            String arg = resolved[i];
+            int separator = arg.indexOf('=');
+            String option = separator < 0 ? arg : arg.substring(0, separator);
+            if (PATH_OPTIONS.contains(option)) {
+                if (separator >= 0) {
+                    resolved[i] = option + "=" + toAbsolutePath(arg.substring(separator + 1));
+                } else if (i + 1 < resolved.length) {
+                    i++;
+                    resolved[i] = toAbsolutePath(resolved[i]);
+                }
+            } else if (separator < 0 && VERBATIM_OPTIONS.contains(arg)) {
+                i++;
+            }
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Converts a path to an absolute path in the working directory of the client.
+     *
+     * @param path the path
+     * @return the absolute path
+     */
+    private static String toAbsolutePath(String path) {
+        return Paths.get(path).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * The server can not ask for the password, so the interactive password is read
+     * by the client and forwarded as a normal password.
+     *
+     * @param args command line parameters
+     * @return the arguments to be sent to the server
+     */
+    private static String[] resolveInteractivePassword(String[] args) {
+        List<String> resolved = new ArrayList<>();
+        for (String arg : args) {
+            if (INTERACTIVE_PASSWORD_SHORT_OPTION.equals(arg) || INTERACTIVE_PASSWORD_LONG_OPTION.equals(arg)) {
+                Console console = System.console();
+                char[] password = Objects.isNull(console)
+                        ? new char[0]
+                        : console.readPassword("Enter value for %s: ", INTERACTIVE_PASSWORD_LONG_OPTION);
+                resolved.add(PASSWORD_OPTION);
+                resolved.add(new String(password));
+            } else {
+                resolved.add(arg);
+            }
+        }
+
+        return resolved.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,156 @@
+package com.remal.sqlrunner.server;
+
+import com.remal.sqlrunner.SqlRunner;
+import com.remal.sqlrunner.connection.ConnectionPools;
+import com.remal.sqlrunner.domain.ExitCode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running server that executes the requests of the SQL-Runner clients
+ * within one JVM, so the JVM startup, the loading of the JDBC driver and the
+ * database logon is paid only once. The connection pools are shared between
+ * the requests. The server only listens on the loopback interface and only
+ * executes the requests that carry its token, see {@link ServerToken}, so
+ * the other OS users of the host can not use its files and its logins.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class SqlRunnerServer {
+
+    /**
+     * Command line option that starts the server.
+     */
+    public static final String SERVER_OPTION = "--server";
+
+    private static final int BACKLOG = 50;
+    private static final int MAX_CONCURRENT_REQUESTS = 32;
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+    private final int port;
+    private final PrintStream logWriter;
+    private final PrintStream errorWriter;
+    private String token;
+
+    /**
+     * Constructor.
+     *
+     * @param port the TCP port where the server listens for requests
+     * @param logWriter the log of the server
+     * @param errorWriter the error log of the server
+     */
+    public SqlRunnerServer(int port, PrintStream logWriter, PrintStream errorWriter) {
+        this.port = port;
+        this.logWriter = logWriter;
+        this.errorWriter = errorWriter;
+    }
+
+    /**
+     * Accepts and executes the requests until the JVM is stopped.
+     *
+     * @return exit code, only returns if the server can not be started
+     */
+    public int run() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ServerToken.delete(port);
+            ConnectionPools.closeAll();
+        }));
+        ExecutorService executorService = Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS);
+
+        try (ServerSocket serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress())) {
+            token = ServerToken.create(port);
+            logWriter.printf("SQL-Runner server is listening on %s%n", serverSocket.getLocalSocketAddress());
+            logWriter.printf("token file: %s%n", ServerToken.getPath(port));
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket socket = serverSocket.accept();
+                executorService.execute(() -> handle(socket));
+            }
+        } catch (IOException e) {
+            errorWriter.printf("ERROR: the server can not accept requests: %s%n", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return ExitCode.INTERNAL_ERROR.getExitCode();
+    }
+
+    /**
+     * Executes one request and sends back the output and the exit code.
+     * The token and the arguments of the request must arrive in time, so an
+     * idle connection can not hold a request thread; the execution itself
+     * has no time limit.
+     *
+     * @param socket connection of the client
+     */
+    private void handle(Socket socket) {
+        try (Socket client = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()))) {
+
+            client.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+            if (ServerToken.matches(token, Protocol.readToken(in))) {
+                String[] args = Protocol.readArguments(in);
+                client.setSoTimeout(0);
+                execute(args, out);
+            } else {
+                reject(out);
+            }
+        } catch (IOException e) {
+            errorWriter.printf("ERROR: request failed: %s%n", e);
+        }
+    }
+
+    /**
+     * Executes the command line arguments of an authorized request.
+     *
+     * @param args the command line arguments
+     * @param out the output of the socket
+     * @throws IOException in case of communication error
+     */
+    private static void execute(String[] args, DataOutputStream out) throws IOException {
+        PrintStream stdout = new PrintStream(
+                new BufferedOutputStream(new FrameOutputStream(out, Protocol.STDOUT_FRAME)), true);
+        PrintStream stderr = new PrintStream(
+                new BufferedOutputStream(new FrameOutputStream(out, Protocol.STDERR_FRAME)), true);
+
+        int exitCode = SqlRunner.run(args, stdout, stderr);
+        stdout.flush();
+        stderr.flush();
+
+        synchronized (out) {
+            out.writeByte(Protocol.EXIT_CODE_FRAME);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+
+    /**
+     * Answers a request that does not carry the token of the server.
+     *
+     * @param out the output of the socket
+     * @throws IOException in case of communication error
+     */
+    private static void reject(DataOutputStream out) throws IOException {
+        byte[] message = String.format("ERROR: the request was rejected, the token is invalid.%n")
+                .getBytes(StandardCharsets.UTF_8);
+        out.writeByte(Protocol.STDERR_FRAME);
+        out.writeInt(message.length);
+        out.write(message);
+        out.writeByte(Protocol.EXIT_CODE_FRAME);
+        out.writeInt(ExitCode.CLI_ERROR.getExitCode());
+        out.flush();
+    }
+}
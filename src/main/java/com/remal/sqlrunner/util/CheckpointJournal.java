@@ -0,0 +1,185 @@
+package com.remal.sqlrunner.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the commit points of a script execution, kept next
+ * to the script file. Every line records the number of the statements
+ * executed so far, the byte offset of the script file where the next
+ * statement starts and the delimiter in effect at that offset. The first line
+ * identifies the script by its size and checksum, so the journal of a
+ * modified script is not used.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class CheckpointJournal implements Closeable {
+
+    private static final String FILE_EXTENSION = ".checkpoint";
+    private static final String SCRIPT_PREFIX = "script ";
+    private static final int MAX_WINDOW_SIZE = 1 << 30;
+
+    private final Path path;
+    private final BufferedWriter writer;
+    private long statementIndex;
+    private long position;
+    private String delimiter;
+
+    /**
+     * Opens the journal of the script. The last checkpoint of an existing
+     * journal is loaded if it belongs to the same script, otherwise a new
+     * journal is started.
+     *
+     * @param sqlScriptFile path to the SQL script file
+     * @throws IOException if the script or the journal can not be read or written
+     */
+    public CheckpointJournal(Path sqlScriptFile) throws IOException {
+        this.path = Paths.get(sqlScriptFile.toString() + FILE_EXTENSION);
+        String script = SCRIPT_PREFIX + Files.size(sqlScriptFile) + " " + checksum(sqlScriptFile);
+
+        boolean sameScript = false;
+        if (Files.exists(path)) {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            sameScript = !lines.isEmpty() && script.equals(lines.get(0));
+            for (int i = 1; sameScript && i < lines.size(); i++) {
+                readCheckpoint(lines.get(i));
+            }
+        }
+
+        if (sameScript) {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } else {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            writer.write(script);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return path to the journal file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the statements executed before the last checkpoint, 0 if there is no checkpoint
+     */
+    public long getStatementIndex() {
+        return statementIndex;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return byte offset of the script file where the execution continues
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return delimiter in effect at the position, or null if there is no checkpoint
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Records a commit point. The line is written to the file before the
+     * method returns, so it survives the end of the process.
+     *
+     * @param statementIndex number of the statements executed so far
+     * @param position byte offset of the script file where the next statement starts
+     * @param delimiter the delimiter in effect at the position
+     * @throws IOException if the journal can not be written
+     */
+    public void append(long statementIndex, long position, String delimiter) throws IOException {
+        this.statementIndex = statementIndex;
+        this.position = position;
+        this.delimiter = delimiter;
+        writer.write(statementIndex + " " + position + " " + delimiter);
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * Closes and deletes the journal after the script has been executed
+     * completely.
+     *
+     * @throws IOException if the file can not be deleted
+     */
+    public void delete() throws IOException {
+        writer.close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Closes the journal file.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Loads a checkpoint line. A partially written last line is ignored.
+     *
+     * @param line the line of the journal
+     */
+    private void readCheckpoint(String line) {
+        String[] fields = line.split(" ");
+        if (fields.length == 3) {
+            try {
+                long index = Long.parseLong(fields[0]);
+                long offset = Long.parseLong(fields[1]);
+                statementIndex = index;
+                position = offset;
+                delimiter = fields[2];
+            } catch (NumberFormatException e) {
+                // incomplete line
+            }
+        }
+    }
+
+    /**
+     * Calculates the CRC-32 checksum of the file, the file is mapped into the
+     * memory in large windows.
+     *
+     * @param file path to the file
+     * @return the checksum in hexadecimal format
+     * @throws IOException if the file can not be read
+     */
+    private static String checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long offset = 0; offset < size; offset += MAX_WINDOW_SIZE) {
+                long length = Math.min(size - offset, MAX_WINDOW_SIZE);
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+            }
+        }
+
+        return Long.toHexString(crc.getValue());
+    }
+}
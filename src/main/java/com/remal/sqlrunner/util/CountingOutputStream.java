@@ -0,0 +1,63 @@
+package com.remal.sqlrunner.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that counts the bytes written through it. Used to measure the
+ * size of the query results written by each statement.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    /**
+     * Constructor.
+     *
+     * @param out the underlying stream
+     */
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the bytes written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes a byte.
+     *
+     * @param b the byte
+     * @throws IOException in case of error
+     */
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    /**
+     * Writes a part of a byte array. Unlike the parent class the bytes are
+     * passed to the underlying stream in one call.
+     *
+     * @param b the bytes
+     * @param off index of the first byte
+     * @param len number of the bytes
+     * @throws IOException in case of error
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+}
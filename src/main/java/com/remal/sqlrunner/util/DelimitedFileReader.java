@@ -0,0 +1,305 @@
+package com.remal.sqlrunner.util;
+
+import com.remal.sqlrunner.domain.InputFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the records of a CSV or TSV file one by one, so only the record under
+ * construction is kept in the memory. The file is read in the format the CSV
+ * and TSV result set writers produce: a CSV value may be enclosed in double
+ * quotes and span more lines, a TSV value may contain the \t, \n, \r and \\
+ * escape sequences. The NULL values are returned as null. Empty lines are
+ * skipped.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class DelimitedFileReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int END_OF_FILE = -1;
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+
+    private final Reader reader;
+    private final boolean csv;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private final List<String> values = new ArrayList<>();
+    private final StringBuilder value = new StringBuilder();
+
+    /**
+     * Opens the file.
+     *
+     * @param file path to the UTF-8 encoded file
+     * @param format format of the file
+     * @throws IOException if the file can not be opened
+     */
+    public DelimitedFileReader(Path file, InputFormat format) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.csv = format == InputFormat.CSV;
+        this.separator = csv ? ',' : '\t';
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the values of the record or null at the end of the file
+     * @throws IOException if the file can not be read or a CSV value is not closed
+     */
+    public String[] next() throws IOException {
+        String[] record = null;
+        int c = peek();
+        while (c == '\r' || c == '\n') {
+            skipLineBreak();
+            c = peek();
+        }
+
+        if (c != END_OF_FILE) {
+            recordLine = line;
+            values.clear();
+            boolean endOfRecord = false;
+            while (!endOfRecord) {
+                values.add(csv ? readCsvValue() : readTsvValue());
+                c = read();
+                if (c == '\r' || c == '\n') {
+                    unread();
+                    skipLineBreak();
+                    endOfRecord = true;
+                } else if (c == END_OF_FILE) {
+                    endOfRecord = true;
+                }
+            }
+            record = values.toArray(new String[0]);
+        }
+
+        return record;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the line where the last record starts
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads a CSV value up to the next separator or line break, which are not consumed.
+     *
+     * @return the value or null if the value is empty and it is not enclosed in double quotes
+     * @throws IOException if the file can not be read or the quoted value is not closed
+     */
+    private String readCsvValue() throws IOException {
+        value.setLength(0);
+        String result;
+        if (peek() == QUOTE) {
+            read();
+            long startLine = line;
+            boolean closed = false;
+            while (!closed) {
+                int c = read();
+                if (c == END_OF_FILE) {
+                    throw new IOException(String.format(
+                            "the quoted value started in line %d is not closed", startLine));
+                } else if (c == QUOTE && peek() == QUOTE) {
+                    read();
+                    value.append(QUOTE);
+                } else if (c == QUOTE) {
+                    closed = true;
+                } else {
+                    countLine(c);
+                    value.append((char) c);
+                }
+            }
+            result = value.toString();
+            readUnquotedValue();
+        } else {
+            readUnquotedValue();
+            result = value.length() == 0 ? null : value.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a TSV value up to the next separator or line break, which are not consumed.
+     *
+     * @return the value with the escape sequences resolved or null if the value is \N
+     * @throws IOException if the file can not be read
+     */
+    private String readTsvValue() throws IOException {
+        value.setLength(0);
+        boolean nullValue = false;
+        int c = read();
+        while (c != separator && c != '\r' && c != '\n' && c != END_OF_FILE) {
+            if (c == ESCAPE) {
+                int escaped = read();
+                nullValue = escaped == 'N' && value.length() == 0 && isEndOfValue(peek());
+                value.append(getEscapedCharacter(escaped));
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+        unread(c);
+
+        return nullValue ? null : value.toString();
+    }
+
+    /**
+     * Appends the characters to the value up to the next separator or line break.
+     *
+     * @throws IOException if the file can not be read
+     */
+    private void readUnquotedValue() throws IOException {
+        int c = read();
+        while (!isEndOfValue(c)) {
+            value.append((char) c);
+            c = read();
+        }
+        unread(c);
+    }
+
+    /**
+     * Checks whether a character closes the value.
+     *
+     * @param c the character
+     * @return true if it is the separator, a line break or the end of the file
+     */
+    private boolean isEndOfValue(int c) {
+        return c == separator || c == '\r' || c == '\n' || c == END_OF_FILE;
+    }
+
+    /**
+     * Resolves a TSV escape sequence.
+     *
+     * @param c the character after the backslash
+     * @return the character the sequence stands for
+     */
+    private static char getEscapedCharacter(int c) {
+        char resolved;
+        switch (c) {
+            case 't':
+                resolved = '\t';
+                break;
+
+            case 'n':
+                resolved = '\n';
+                break;
+
+            case 'r':
+                resolved = '\r';
+                break;
+
+            case END_OF_FILE:
+                resolved = ESCAPE;
+                break;
+
+            default:
+                resolved = (char) c;
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Consumes a \n, \r or \r\n line break.
+     *
+     * @throws IOException if the file can not be read
+     */
+    private void skipLineBreak() throws IOException {
+        if (read() == '\r' && peek() == '\n') {
+            read();
+        }
+        line++;
+    }
+
+    /**
+     * Counts the line breaks inside the quoted CSV values.
+     *
+     * @param c the character of the value
+     * @throws IOException if the file can not be read
+     */
+    private void countLine(int c) throws IOException {
+        if (c == '\n' || (c == '\r' && peek() != '\n')) {
+            line++;
+        }
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return the character or -1 at the end of the file
+     * @throws IOException if the file can not be read
+     */
+    private int read() throws IOException {
+        int c = peek();
+        if (c != END_OF_FILE) {
+            position++;
+        }
+
+        return c;
+    }
+
+    /**
+     * Returns the next character without consuming it.
+     *
+     * @return the character or -1 at the end of the file
+     * @throws IOException if the file can not be read
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit < 0) {
+                limit = 0;
+            }
+        }
+
+        return position < limit ? buffer[position] : END_OF_FILE;
+    }
+
+    /**
+     * Steps back before the last character read. It is always in the buffer,
+     * because the buffer is only refilled when the next character is needed.
+     */
+    private void unread() {
+        position--;
+    }
+
+    /**
+     * Steps back before the last character read unless it was the end of the file.
+     *
+     * @param c the last character read
+     */
+    private void unread(int c) {
+        if (c != END_OF_FILE) {
+            unread();
+        }
+    }
+}
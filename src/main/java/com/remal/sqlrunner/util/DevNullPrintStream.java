@@ -13,17 +13,17 @@ import java.io.PrintStream;
  */
 public final class DevNullPrintStream {
 
+    private static final PrintStream PRINT_STREAM = new PrintStream(new NullOutputStream());
+
     /**
      * Print stream that  prints to dev/null.
+     * The callers should check whether the output is enabled before they
+     * format a message, this stream only saves the copying of the bytes.
      *
      * @return the dev/null print stream
      */
     public static PrintStream getPrintStream() {
-        return new PrintStream(new OutputStream() {
-            public void write(int b) {
-                // do nothing
-            }
-        });
+        return PRINT_STREAM;
     }
 
     /**
@@ -31,4 +31,43 @@ public final class DevNullPrintStream {
      */
     private DevNullPrintStream() {
     }
+
+    /**
+     * Output stream that throws away the bytes, the bulk writes are not split
+     * into single byte writes.
+     */
+    private static class NullOutputStream extends OutputStream {
+
+        /**
+         * Throws away a byte.
+         *
+         * @param b the byte
+         */
+        @Override
+        public void write(int b) {
+            // do nothing
+        }
+
+        /**
+         * Throws away the bytes.
+         *
+         * @param b the bytes
+         */
+        @Override
+        public void write(byte[] b) {
+            // do nothing
+        }
+
+        /**
+         * Throws away a part of a byte array.
+         *
+         * @param b the bytes
+         * @param off index of the first byte
+         * @param len number of the bytes
+         */
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // do nothing
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.remal.sqlrunner.util;
+
+import com.remal.sqlrunner.domain.ExitCode;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+
+/**
+ * Messages shown at the end of an execution and after an error, shared by
+ * the commands of the tool.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class ExecutionMessages {
+
+    private static final String NEW_LINE = "\r|\n";
+    private static final String NOTHING = "";
+
+    /**
+     * Show the exit code of the application.
+     *
+     * @param logWriter the log
+     * @param exitCode the exit code
+     */
+    public static void showExitCode(PrintStream logWriter, ExitCode exitCode) {
+        String color;
+        switch (exitCode) {
+            case OK:
+                color = AnsiColor.GREEN_BOLD_BRIGHT;
+                break;
+
+            case SQL_EXECUTION_ERROR:
+            case CLI_ERROR:
+                color = AnsiColor.RED_BOLD_BRIGHT;
+                break;
+
+            default: color = AnsiColor.DEFAULT;
+        }
+
+        logWriter.printf("%sReturn code: %d", color, exitCode.getExitCode());
+        logWriter.printf(AnsiColor.DEFAULT);
+        logWriter.printf("%n%n");
+    }
+
+    /**
+     * Builds the message of an error appeared while executing the application.
+     *
+     * @param e the exception was thrown
+     * @return the message
+     */
+    public static String getInternalError(Exception e) {
+        String internalErrorMessage = AnsiColor.RED_BOLD_BRIGHT
+                + "ERROR: An internal error occurred while executing the tool.%n"
+                + "Message: %s"
+                + AnsiColor.DEFAULT;
+
+        return String.format(internalErrorMessage, e.toString().replaceAll(NEW_LINE, NOTHING));
+    }
+
+    /**
+     * Builds the message of an error appeared while executing an SQL statement.
+     *
+     * @param sql the SQL statement that was executed
+     * @param e the exception was thrown
+     * @return the message
+     */
+    public static String getSqlError(String sql, SQLException e) {
+        String sqlErrorMessage = AnsiColor.RED_BOLD_BRIGHT
+                + "ERROR: An error occurred while executing the sql statement.%n"
+                + "Message: %s%n"
+                + "SQL: %s"
+                + AnsiColor.DEFAULT;
+
+        return String.format(sqlErrorMessage, e.toString().replaceAll(NEW_LINE, NOTHING), sql);
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private ExecutionMessages() {
+    }
+}
@@ -0,0 +1,181 @@
+package com.remal.sqlrunner.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Moves the cursor of a result set forward and estimates the round trips the
+ * JDBC driver makes to fetch the rows. The round trips are not measured: it
+ * is assumed that the driver fetches the rows in chunks of the fetch size,
+ * so every fetch-size rows the cursor movement waits for the network. Some
+ * drivers read the whole result at once regardless of the fetch size, e.g.
+ * PostgreSQL in auto-commit mode or MySQL without cursor fetch, so the
+ * estimate is only reported if the fetch size of the result set is known.
+ *
+ * <p>In adaptive mode the fetch size is doubled while waiting for the next
+ * chunk takes longer than processing the rows of the previous chunk, so a
+ * large extract is limited by the bandwidth instead of the latency. The fetch
+ * size is capped by the measured width of the rows, so the chunk held in the
+ * memory of the driver stays under {@link #MAX_FETCH_BUFFER_BYTES}.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class FetchSizeTuner {
+
+    /**
+     * The fetch size used when the driver does not tell its default.
+     */
+    private static final int DEFAULT_FETCH_SIZE = 10;
+    private static final int MAX_FETCH_SIZE = 50_000;
+    private static final long MAX_FETCH_BUFFER_BYTES = 8L * 1024 * 1024;
+
+    private final boolean adaptive;
+    private final boolean fetchSizeKnown;
+    private int fetchSize;
+    private int chunkSize;
+    private int nextChunkSize;
+    private int rowsSinceFetch;
+    private long rows;
+    private long roundTrips;
+    private long rowWidthSum;
+    private long fetchEnd;
+
+    /**
+     * Constructor.
+     *
+     * @param resultSet the result set, its fetch size is the initial fetch size. In adaptive mode the
+     *                  fetch size of a result set without a known fetch size is set to 10
+     * @param adaptive true turns on the adaptive fetch size
+     * @throws SQLException if the fetch size can not be read
+     */
+    public FetchSizeTuner(ResultSet resultSet, boolean adaptive) throws SQLException {
+        this.adaptive = adaptive;
+        if (adaptive && resultSet.getFetchSize() <= 0) {
+            resultSet.setFetchSize(DEFAULT_FETCH_SIZE);
+        }
+        this.fetchSizeKnown = resultSet.getFetchSize() > 0;
+        this.fetchSize = fetchSizeKnown ? resultSet.getFetchSize() : DEFAULT_FETCH_SIZE;
+        this.chunkSize = fetchSize;
+        this.nextChunkSize = fetchSize;
+        this.rowsSinceFetch = fetchSize;
+        this.fetchEnd = System.nanoTime();
+    }
+
+    /**
+     * Moves the cursor to the next row, the same way as {@link ResultSet#next()}.
+     *
+     * @param resultSet the result set
+     * @return true if the new current row is valid
+     * @throws SQLException in case of error
+     */
+    public boolean next(ResultSet resultSet) throws SQLException {
+        boolean fetching = rowsSinceFetch >= chunkSize;
+        long start = System.nanoTime();
+        boolean hasRow = resultSet.next();
+
+        if (fetching) {
+            long end = System.nanoTime();
+            roundTrips++;
+            rowsSinceFetch = 0;
+            // this fetch used the size requested before it, a new size only applies to the following fetch
+            chunkSize = nextChunkSize;
+            if (adaptive && hasRow) {
+                adjust(resultSet, start - fetchEnd, end - start);
+            }
+            nextChunkSize = fetchSize;
+            fetchEnd = end;
+        }
+
+        if (hasRow) {
+            rows++;
+            rowsSinceFetch++;
+        }
+
+        return hasRow;
+    }
+
+    /**
+     * Registers the size of the current row, it is used to calculate the upper
+     * limit of the fetch size.
+     *
+     * @param width the approximate size of the row in bytes
+     */
+    public void addRowWidth(int width) {
+        rowWidthSum += width;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the rows read
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return estimated number of the round trips made by the driver, see {@link #isFetchSizeKnown()}
+     */
+    public long getRoundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return true if the result set reported its fetch size, otherwise the driver default is unknown
+     *         and the round trips can not be estimated
+     */
+    public boolean isFetchSizeKnown() {
+        return fetchSizeKnown;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the current fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Summary of the fetch.
+     *
+     * @return human readable form of the statistics
+     */
+    @Override
+    public String toString() {
+        double rowsPerRoundTrip = roundTrips == 0 ? 0 : (double) rows / roundTrips;
+        return fetchSizeKnown
+                ? String.format("rows: %d, estimated round trips: %d, estimated rows per round trip: %.1f, "
+                        + "fetch size: %d", rows, roundTrips, rowsPerRoundTrip, fetchSize)
+                : String.format("rows: %d, fetch size: driver default", rows);
+    }
+
+    /**
+     * Doubles the fetch size if the last round trip took longer than processing
+     * the rows of the previous chunk.
+     *
+     * @param resultSet the result set
+     * @param processingNanos time spent with the rows of the previous chunk
+     * @param roundTripNanos time spent with waiting for the current chunk
+     * @throws SQLException if the fetch size can not be changed
+     */
+    private void adjust(ResultSet resultSet, long processingNanos, long roundTripNanos) throws SQLException {
+        int limit = MAX_FETCH_SIZE;
+        if (rows > 0 && rowWidthSum > 0) {
+            long averageRowWidth = Math.max(rowWidthSum / rows, 1);
+            limit = (int) Math.min(limit, Math.max(MAX_FETCH_BUFFER_BYTES / averageRowWidth, 1));
+        }
+
+        if (roundTripNanos > processingNanos && fetchSize < limit) {
+            fetchSize = Math.min(fetchSize * 2, limit);
+            resultSet.setFetchSize(fetchSize);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.remal.sqlrunner.util;
+
+/**
+ * Helper methods for the JSON documents written by the tool.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class JsonStrings {
+
+    /**
+     * Converts the string to a JSON string.
+     *
+     * @param value the string
+     * @return the quoted and escaped string
+     */
+    public static String quote(String value) {
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+
+        return json.append('"').toString();
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private JsonStrings() {
+    }
+}
@@ -0,0 +1,390 @@
+package com.remal.sqlrunner.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Parses the Oracle SQL Script and cut it to SQL statements, the same way as
+ * {@link SqlScriptParser} does, but the script file is mapped into the memory
+ * and the bytes of the file are scanned directly. The lines are not converted
+ * to strings, a string is only created for each complete SQL statement, so
+ * this parser is suitable for very large script files. The file must be UTF-8
+ * encoded.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class MappedSqlScriptParser implements Iterator<String>, Closeable {
+
+    private static final int MAX_WINDOW_SIZE = 1 << 30;
+    private static final int INITIAL_STATEMENT_SIZE = 1024;
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte SPACE = ' ';
+    private static final byte[] LINE_COMMENT = "--".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ALTERNATIVE_LINE_COMMENT = "//".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SET_DEFINE_OFF = "set define off".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STORED_PROCEDURE_DELIMITER = "/".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final byte[] originalDelimiter;
+    private final boolean fullLineDelimiter;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int lineEnd;
+    private long position;
+    private long statementEnd;
+    private byte[] delimiter;
+    private byte[] statement = new byte[INITIAL_STATEMENT_SIZE];
+    private int statementLength;
+    private String nextStatement;
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param sqlScriptFile path to the SQL Script file
+     * @param delimiter a non-alphanumeric character used to separate multiple SQL statements
+     * @param fullLineDelimiter set it true if a line contains only delimiter cn be skipped
+     * @throws IOException if the file can not be opened
+     */
+    public MappedSqlScriptParser(Path sqlScriptFile, String delimiter, boolean fullLineDelimiter) throws IOException {
+        this.channel = FileChannel.open(sqlScriptFile, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.originalDelimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.delimiter = originalDelimiter;
+        this.fullLineDelimiter = fullLineDelimiter;
+    }
+
+    /**
+     * Checks whether there is more SQL statement in the script.
+     *
+     * @return true if the script has more statements
+     */
+    @Override
+    public boolean hasNext() {
+        if (Objects.isNull(nextStatement) && !finished) {
+            try {
+                nextStatement = readStatement();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (Objects.isNull(nextStatement)) {
+                finished = true;
+                nextStatement = "commit";
+            }
+        }
+
+        return Objects.nonNull(nextStatement);
+    }
+
+    /**
+     * Returns with the next SQL statement of the script.
+     *
+     * @return the SQL statement
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        String sql = nextStatement;
+        nextStatement = null;
+        return sql;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the byte offset in the script file right after the last statement that has been read
+     */
+    public long getPosition() {
+        return statementEnd;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return the delimiter in effect after the last statement that has been read, it differs from the
+     *         original delimiter within the definition of a stored procedure
+     */
+    public String getDelimiter() {
+        return new String(delimiter, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Continues the parsing at the given byte offset of the script file, e.g.
+     * at a position returned by {@link #getPosition()} in a former execution.
+     * The statement that has been read ahead is dropped.
+     *
+     * @param offset the byte offset of the script file where the next statement starts
+     * @param delimiter the delimiter in effect at the offset, as returned by {@link #getDelimiter()}
+     */
+    public void seek(long offset, String delimiter) {
+        this.position = Math.min(offset, fileSize);
+        this.statementEnd = position;
+        this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.statementLength = 0;
+        this.nextStatement = null;
+        this.finished = false;
+    }
+
+    /**
+     * Closes the script file.
+     *
+     * @throws IOException in case of error
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Scans the lines of the script until the next SQL statement is complete.
+     *
+     * @return the next SQL statement or null at the end of the script
+     * @throws IOException if the file can not be read
+     */
+    private String readStatement() throws IOException {
+        String sql = null;
+        while (Objects.isNull(sql) && position < fileSize) {
+            int lineStart = mapLine(position);
+            position = windowStart + lineEnd + 1;
+
+            int contentEnd = Math.min(lineEnd, window.limit());
+            if (contentEnd > lineStart && window.get(contentEnd - 1) == CARRIAGE_RETURN) {
+                contentEnd--;
+            }
+
+            int trimmedStart = lineStart;
+            while (trimmedStart < contentEnd && isWhitespace(window.get(trimmedStart))) {
+                trimmedStart++;
+            }
+
+            int trimmedEnd = contentEnd;
+            while (trimmedEnd > trimmedStart && isWhitespace(window.get(trimmedEnd - 1))) {
+                trimmedEnd--;
+            }
+
+            if (isCommentLine(trimmedStart, trimmedEnd)) {
+                // do nothing
+
+            } else if (startsWithIgnoreCase(trimmedStart, trimmedEnd, SET_DEFINE_OFF)) {
+                // stored procedure definition starts from here
+                delimiter = STORED_PROCEDURE_DELIMITER;
+
+            } else if (!fullLineDelimiter && endsWith(trimmedStart, trimmedEnd, delimiter)
+                    || fullLineDelimiter && trimmedEnd - trimmedStart == delimiter.length
+                    && endsWith(trimmedStart, trimmedEnd, delimiter)) {
+
+                boolean delimiterOnly = trimmedEnd - trimmedStart == delimiter.length;
+                appendToStatement(lineStart, trimmedEnd - delimiter.length);
+                sql = new String(statement, 0, statementLength, StandardCharsets.UTF_8);
+                statementLength = 0;
+                statementEnd = position;
+
+                if (delimiterOnly) {
+                    // end of the definition of the stored procedure
+                    delimiter = originalDelimiter;
+                }
+
+            } else {
+                appendToStatement(lineStart, contentEnd);
+            }
+        }
+
+        if (Objects.isNull(sql)) {
+            statementEnd = Math.min(position, fileSize);
+        }
+
+        return sql;
+    }
+
+    /**
+     * Makes sure that the line starting at the given file offset is completely
+     * inside the mapped window and finds the end of the line.
+     *
+     * @param lineOffset file offset of the first byte of the line
+     * @return index of the first byte of the line within the window
+     * @throws IOException if the file can not be mapped or the line is too long
+     */
+    private int mapLine(long lineOffset) throws IOException {
+        boolean mapped = Objects.nonNull(window)
+                && lineOffset >= windowStart
+                && lineOffset < windowStart + window.limit();
+
+        if (mapped) {
+            lineEnd = indexOf(NEW_LINE, (int) (lineOffset - windowStart));
+            boolean lastWindow = windowStart + window.limit() == fileSize;
+            if (!lastWindow && lineEnd == window.limit()) {
+                // the end of the line is not in the window
+                mapped = false;
+            }
+        }
+
+        if (!mapped) {
+            long size = Math.min(fileSize - lineOffset, MAX_WINDOW_SIZE);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, lineOffset, size);
+            windowStart = lineOffset;
+
+            lineEnd = indexOf(NEW_LINE, 0);
+            boolean lastWindow = lineOffset + size == fileSize;
+            if (!lastWindow && lineEnd == window.limit()) {
+                throw new IOException(String.format("line at byte %d is longer than %d bytes", lineOffset, size));
+            }
+        }
+
+        return (int) (lineOffset - windowStart);
+    }
+
+    /**
+     * Finds the given byte in the mapped window.
+     *
+     * @param value the byte to find
+     * @param from index where the search starts
+     * @return index of the byte or the limit of the window if it was not found
+     */
+    private int indexOf(byte value, int from) {
+        int limit = window.limit();
+        int index = from;
+        while (index < limit && window.get(index) != value) {
+            index++;
+        }
+
+        return index;
+    }
+
+    /**
+     * Copies a part of the current line to the statement under construction and
+     * appends a space after it. The buffer methods are called through their Java 8
+     * declaring types, because Java 9 and newer override them with covariant
+     * return types that do not exist on Java 8.
+     *
+     * @param from index of the first byte to copy
+     * @param to index after the last byte to copy
+     */
+    private void appendToStatement(int from, int to) {
+        int length = to - from;
+        ensureStatementCapacity(statementLength + length + 1);
+
+        ByteBuffer source = ((ByteBuffer) window).duplicate();
+        ((Buffer) source).position(from);
+        source.get(statement, statementLength, length);
+        statementLength += length;
+        statement[statementLength++] = SPACE;
+    }
+
+    /**
+     * Grows the statement buffer if needed.
+     *
+     * @param capacity the required capacity
+     */
+    private void ensureStatementCapacity(int capacity) {
+        if (capacity > statement.length) {
+            statement = Arrays.copyOf(statement, Math.max(capacity, statement.length * 2));
+        }
+    }
+
+    /**
+     * Checks whether the trimmed line is a comment or empty.
+     *
+     * @param from index of the first byte of the trimmed line
+     * @param to index after the last byte of the trimmed line
+     * @return true if the line is comment
+     */
+    private boolean isCommentLine(int from, int to) {
+        return from == to
+                || startsWith(from, to, LINE_COMMENT)
+                || startsWith(from, to, ALTERNATIVE_LINE_COMMENT);
+    }
+
+    /**
+     * Checks whether the given part of the window starts with the prefix.
+     *
+     * @param from index of the first byte
+     * @param to index after the last byte
+     * @param prefix the prefix
+     * @return true if the bytes start with the prefix
+     */
+    private boolean startsWith(int from, int to, byte[] prefix) {
+        boolean matches = to - from >= prefix.length;
+        for (int i = 0; matches && i < prefix.length; i++) {
+            matches = window.get(from + i) == prefix[i];
+        }
+
+        return matches;
+    }
+
+    /**
+     * Checks whether the given part of the window starts with the prefix ignoring
+     * the case of the ASCII letters.
+     *
+     * @param from index of the first byte
+     * @param to index after the last byte
+     * @param prefix the prefix in lower case
+     * @return true if the bytes start with the prefix
+     */
+    private boolean startsWithIgnoreCase(int from, int to, byte[] prefix) {
+        boolean matches = to - from >= prefix.length;
+        for (int i = 0; matches && i < prefix.length; i++) {
+            matches = toLowerCase(window.get(from + i)) == prefix[i];
+        }
+
+        return matches;
+    }
+
+    /**
+     * Checks whether the given part of the window ends with the suffix.
+     *
+     * @param from index of the first byte
+     * @param to index after the last byte
+     * @param suffix the suffix
+     * @return true if the bytes end with the suffix
+     */
+    private boolean endsWith(int from, int to, byte[] suffix) {
+        boolean matches = to - from >= suffix.length;
+        int start = to - suffix.length;
+        for (int i = 0; matches && i < suffix.length; i++) {
+            matches = window.get(start + i) == suffix[i];
+        }
+
+        return matches;
+    }
+
+    /**
+     * The same characters are treated as whitespace as by {@link String#trim()}.
+     *
+     * @param value the byte to check
+     * @return true if it is a whitespace
+     */
+    private static boolean isWhitespace(byte value) {
+        return (value & 0xFF) <= SPACE;
+    }
+
+    /**
+     * Converts an ASCII letter to lower case.
+     *
+     * @param value the byte to convert
+     * @return the lower case letter or the original value
+     */
+    private static byte toLowerCase(byte value) {
+        return value >= 'A' && value <= 'Z' ? (byte) (value + ('a' - 'A')) : value;
+    }
+}
@@ -0,0 +1,127 @@
+package com.remal.sqlrunner.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used cache of the prepared statements of one connection,
+ * keyed by the SQL text of the statement. The evicted statements are closed.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class PreparedStatementCache implements AutoCloseable {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor.
+     *
+     * @param connection the connection used to prepare the statements
+     * @param maxSize maximum number of the cached statements
+     */
+    public PreparedStatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                boolean evict = size() > maxSize;
+                if (evict) {
+                    evictions++;
+                    closeQuietly(eldest.getValue());
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Returns with the cached prepared statement or prepares a new one.
+     *
+     * @param sql SQL statement with bind parameters
+     * @return the prepared statement
+     * @throws SQLException if the statement can not be prepared
+     */
+    public PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (Objects.isNull(statement)) {
+            misses++;
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            hits++;
+        }
+
+        return statement;
+    }
+
+    /**
+     * Checks whether the statement is in the cache without touching its position.
+     *
+     * @param sql SQL statement with bind parameters
+     * @return true if the statement has already been prepared
+     */
+    public boolean contains(String sql) {
+        return statements.containsKey(sql);
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the requests served from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the requests that prepared a new statement
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return number of the statements removed from the cache
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Closes all the cached statements.
+     */
+    @Override
+    public void close() {
+        statements.values().forEach(PreparedStatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    /**
+     * Closes the statement, the errors are ignored.
+     *
+     * @param statement the statement to close
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // the statement is not used anymore
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.remal.sqlrunner.util;
+
+import com.remal.sqlrunner.domain.Dialect;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Rewrites a query into sub-queries that return disjoint parts of its result,
+ * so the parts can be read on parallel connections. The original query is
+ * wrapped into an inline view, so any query can be split as long as the
+ * split column appears in its select list.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class QueryPartitioner {
+
+    private static final String INLINE_VIEW = "SELECT * FROM (%s) partitioned_query WHERE %s";
+
+    /**
+     * Builds the query that returns the smallest and the largest value of the
+     * split column.
+     *
+     * @param sql the original query
+     * @param column the split column
+     * @return the probe query
+     */
+    public static String getRangeProbe(String sql, String column) {
+        return String.format("SELECT MIN(%s), MAX(%s) FROM (%s) partitioned_query", column, column, sql);
+    }
+
+    /**
+     * Splits the query into key ranges of equal width. The rows where the split
+     * column is NULL belong to the first partition.
+     *
+     * @param sql the original query
+     * @param column the split column, its values must be numbers
+     * @param min the smallest value of the split column
+     * @param max the largest value of the split column
+     * @param partitions number of the partitions
+     * @return the sub-queries in the order of their key ranges
+     */
+    public static List<String> getRangeQueries(String sql, String column, BigDecimal min, BigDecimal max,
+                                               int partitions) {
+        List<String> queries = new ArrayList<>();
+        if (Objects.isNull(min) || Objects.isNull(max)) {
+            // the result is empty or the split column is always NULL
+            queries.add(sql);
+        } else {
+            BigDecimal width = max.subtract(min).divide(BigDecimal.valueOf(partitions), 10, RoundingMode.CEILING);
+            BigDecimal lower = min;
+            for (int i = 0; i < partitions; i++) {
+                boolean last = i == partitions - 1;
+                BigDecimal upper = last ? max : min.add(width.multiply(BigDecimal.valueOf(i + 1L)));
+                String condition = String.format("%s >= %s AND %s %s %s",
+                        column, lower.toPlainString(), column, last ? "<=" : "<", upper.toPlainString());
+                if (i == 0) {
+                    condition = String.format("(%s OR %s IS NULL)", condition, column);
+                }
+                queries.add(String.format(INLINE_VIEW, sql, condition));
+                lower = upper;
+            }
+        }
+
+        return queries;
+    }
+
+    /**
+     * Splits the query by the hash value of the split column. It is used when
+     * the split column is not a number, the partitions are not ordered by the
+     * split column. The rows where the split column is NULL belong to the
+     * first partition.
+     *
+     * @param sql the original query
+     * @param column the split column
+     * @param partitions number of the partitions
+     * @param dialect the SQL dialect, it provides the hash function of the database
+     * @return the sub-queries
+     */
+    public static List<String> getHashQueries(String sql, String column, int partitions, Dialect dialect) {
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < partitions; i++) {
+            String condition = String.format("%s = %d", dialect.getHashBucket(column, partitions), i);
+            if (i == 0) {
+                condition = String.format("(%s OR %s IS NULL)", condition, column);
+            }
+            queries.add(String.format(INLINE_VIEW, sql, condition));
+        }
+
+        return queries;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private QueryPartitioner() {
+    }
+}
@@ -1,5 +1,7 @@
 package com.remal.sqlrunner.util;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -14,57 +16,90 @@ import java.util.Objects;
  */
 public class ResultSetConverter {
 
-    private static final String LAST_CHAR_REGEX = ".$";
-    private static final String EMPTY_STRING = "";
+    private static final char FIELD_SEPARATOR = ';';
+    private static final String NULL_VALUE = "<NULL>";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
 
     /**
-     * JDBC ResultSet to string converter.
+     * Writes the content of the JDBC ResultSet to the given writer row by row
+     * while the cursor moves forward, so the rows do not need to be kept in
+     * the memory.
+     *
+     * <p>The values are copied straight into the buffer of the writer and the
+     * separator is written between the values, so apart from the values
+     * returned by the JDBC driver nothing is allocated per row.</p>
      *
      * @param resultSet JDBC ResultSet
      * @param showHeader flag to control whether the name of the fields from the SQL result set is displayed or not
-     * @return the string representation of the JDBC ResultSet
+     * @param writer the target of the rows, it is not flushed and not closed by this method
+     * @return number of the rows that have been written
      * @throws SQLException in case of any error appears during the conversation
+     * @throws IOException if the rows can not be written
      */
-    public static String toString(ResultSet resultSet, boolean showHeader) throws SQLException {
+    public static long write(ResultSet resultSet, boolean showHeader, Writer writer) throws SQLException, IOException {
+        return write(resultSet, showHeader, writer, new FetchSizeTuner(resultSet, false));
+    }
+
+    /**
+     * Writes the content of the JDBC ResultSet to the given writer row by row,
+     * the cursor is moved by the fetch size tuner.
+     *
+     * @param resultSet JDBC ResultSet
+     * @param showHeader flag to control whether the name of the fields from the SQL result set is displayed or not
+     * @param writer the target of the rows, it is not flushed and not closed by this method
+     * @param tuner moves the cursor and measures the fetches
+     * @return number of the rows that have been written
+     * @throws SQLException in case of any error appears during the conversation
+     * @throws IOException if the rows can not be written
+     */
+    public static long write(ResultSet resultSet, boolean showHeader, Writer writer, FetchSizeTuner tuner)
+            throws SQLException, IOException {
+
         ResultSetMetaData metadata = resultSet.getMetaData();
-        StringBuilder result = new StringBuilder();
+        long rowCount = 0;
 
         if (showHeader) {
-            result.append(getFieldNames(metadata));
+            writeFieldNames(metadata, writer);
         }
 
         int fieldNumber = metadata.getColumnCount();
         if (fieldNumber > 0) {
-            StringBuilder row = new StringBuilder();
-            while (resultSet.next()) {
+            while (tuner.next(resultSet)) {
+                int rowWidth = 0;
                 for (int i = 1; i <= fieldNumber; i++) {
+                    if (i > 1) {
+                        writer.write(FIELD_SEPARATOR);
+                    }
                     String value = resultSet.getString(i);
-                    String formattedValue = Objects.nonNull(value) ? value : "<NULL>";
-                    row.append(formattedValue).append(";");
+                    writer.write(Objects.nonNull(value) ? value : NULL_VALUE);
+                    rowWidth += Objects.nonNull(value) ? value.length() : 0;
                 }
-                String s = row.toString().replaceAll(LAST_CHAR_REGEX, EMPTY_STRING) + System.lineSeparator();
-                result.append(s);
+                writer.write(LINE_SEPARATOR);
+                tuner.addRowWidth(rowWidth + fieldNumber);
+                rowCount++;
             }
         }
 
-        return result.toString().trim();
+        return rowCount;
     }
 
     /**
-     * Converts the field names appears in the SQL result set to string.
+     * Writes the field names appears in the SQL result set to the writer.
      *
      * @param metadata result set metadata
-     * @return the name of the fields as a string
+     * @param writer the target of the field names
      * @throws SQLException in case of any error appears during the conversation
+     * @throws IOException if the field names can not be written
      */
-    private static String getFieldNames(ResultSetMetaData metadata) throws SQLException {
-        StringBuilder sb = new StringBuilder();
+    private static void writeFieldNames(ResultSetMetaData metadata, Writer writer) throws SQLException, IOException {
         int fieldNumbers = metadata.getColumnCount();
         for (int i = 1; i <= fieldNumbers; i++) {
-            sb.append(metadata.getColumnName(i)).append(";");
+            if (i > 1) {
+                writer.write(FIELD_SEPARATOR);
+            }
+            writer.write(metadata.getColumnName(i));
         }
-        // remove the last character and return the value
-        return sb.toString().replaceAll(LAST_CHAR_REGEX, "") + System.lineSeparator();
+        writer.write(LINE_SEPARATOR);
     }
 
     /**
@@ -0,0 +1,152 @@
+package com.remal.sqlrunner.util;
+
+import com.remal.sqlrunner.domain.Dialect;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a failed database operation is worth trying again and how
+ * long to wait before the next attempt.
+ *
+ * <p>An error is temporary if the JDBC driver reports it as a transient or
+ * recoverable exception, if its SQL state is a connection exception (class
+ * 08), a serialization failure or deadlock (40001, 40P01), a shutdown of the
+ * server (57P) or too many connections (53300), or if the dialect or the user
+ * declares its vendor error code temporary.</p>
+ *
+ * <p>The wait time grows exponentially from the initial delay and a random
+ * jitter is applied, so the clients that failed at the same moment do not
+ * come back at the same moment.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public class RetryPolicy {
+
+    private static final long MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_CAUSES = 10;
+    private static final String[] TRANSIENT_SQL_STATES = {"08", "40001", "40P01", "57P", "53300"};
+
+    private final Dialect dialect;
+    private final int statementRetries;
+    private final int connectionRetries;
+    private final long initialDelayMillis;
+    private final Set<Integer> errorCodes;
+
+    /**
+     * Constructor.
+     *
+     * @param dialect the dialect that knows the temporary vendor error codes
+     * @param statementRetries maximum number of the retries of one statement, 0 turns off the retries
+     * @param connectionRetries maximum number of the retries on one connection during the whole execution,
+     *                          including the attempts to connect again
+     * @param initialDelayMillis wait time before the first retry, it is doubled before each further retry
+     * @param errorCodes further vendor error codes that are handled as temporary errors
+     */
+    public RetryPolicy(Dialect dialect, int statementRetries, int connectionRetries, long initialDelayMillis,
+                       List<Integer> errorCodes) {
+        this.dialect = dialect;
+        this.statementRetries = statementRetries;
+        this.connectionRetries = connectionRetries;
+        this.initialDelayMillis = initialDelayMillis;
+        this.errorCodes = new HashSet<>(errorCodes);
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return true if the failed operations are tried again
+     */
+    public boolean isEnabled() {
+        return statementRetries > 0 && connectionRetries > 0;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return maximum number of the retries of one statement
+     */
+    public int getStatementRetries() {
+        return statementRetries;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @return maximum number of the retries on one connection
+     */
+    public int getConnectionRetries() {
+        return connectionRetries;
+    }
+
+    /**
+     * Checks whether the error, or any exception chained to it, is temporary.
+     *
+     * @param e the exception thrown by the JDBC driver
+     * @return true if the failed operation may succeed if it is tried again
+     */
+    public boolean isTransient(SQLException e) {
+        boolean transientError = false;
+        Throwable cause = e;
+        for (int i = 0; !transientError && Objects.nonNull(cause) && i < MAX_CAUSES; i++) {
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                transientError = sqlException instanceof SQLTransientException
+                        || sqlException instanceof SQLRecoverableException
+                        || isTransientSqlState(sqlException.getSQLState())
+                        || errorCodes.contains(sqlException.getErrorCode())
+                        || Objects.nonNull(dialect) && dialect.isTransientErrorCode(sqlException.getErrorCode());
+                cause = Objects.isNull(sqlException.getNextException())
+                        ? sqlException.getCause()
+                        : sqlException.getNextException();
+            } else {
+                cause = cause.getCause();
+            }
+        }
+
+        return transientError;
+    }
+
+    /**
+     * Calculates the wait time before a retry: the initial delay is doubled
+     * for each former attempt up to 30 seconds, then a random value between
+     * the half and the whole of it is taken.
+     *
+     * @param attempt the number of the retry, starts from 1
+     * @return the wait time in milliseconds
+     */
+    public long getDelayMillis(int attempt) {
+        int shift = Math.min(attempt - 1, Long.SIZE - 2);
+        long delay = initialDelayMillis > MAX_DELAY_MILLIS >> shift
+                ? MAX_DELAY_MILLIS
+                : initialDelayMillis << shift;
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * Checks whether the SQL state means a temporary failure.
+     *
+     * @param sqlState the SQL state of the exception, may be null
+     * @return true if the SQL state belongs to a temporary failure
+     */
+    private static boolean isTransientSqlState(String sqlState) {
+        boolean transientState = false;
+        if (Objects.nonNull(sqlState)) {
+            for (String prefix : TRANSIENT_SQL_STATES) {
+                transientState = transientState || sqlState.startsWith(prefix);
+            }
+        }
+
+        return transientState;
+    }
+}
@@ -0,0 +1,582 @@
+package com.remal.sqlrunner.util;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Objects;
+
+/**
+ * Forward only, read only result set view over rows that have already been
+ * read from the database into object arrays. It lets the output writers
+ * consume rows that come from another thread or from several cursors the same
+ * way as they consume a JDBC result set.
+ *
+ * <p>The values are stored as standard Java types, see {@link #readRow(ResultSet, int[])},
+ * and the typed getters convert them the same way as the JDBC drivers do. The
+ * values whose text depends on the driver, e.g. the booleans, the floating
+ * point numbers and the date-times, keep the text of the driver as well, so
+ * {@code getString} returns the same text as on the original result set.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class RowArrayResultSet {
+
+    /**
+     * Supplies the rows of the result set.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+
+        /**
+         * Returns with the next row.
+         *
+         * @return values of the row or null after the last row
+         * @throws SQLException if the row can not be read
+         */
+        Object[] next() throws SQLException;
+    }
+
+    /**
+     * A value read with a typed getter together with the text the driver
+     * returns for it, see {@link #readRow(ResultSet, int[])}.
+     */
+    public static final class DriverValue {
+
+        private final Object value;
+        private final String text;
+
+        /**
+         * Constructor.
+         *
+         * @param value the value read with the typed getter
+         * @param text the value read with getString
+         */
+        public DriverValue(Object value, String text) {
+            this.value = value;
+            this.text = text;
+        }
+
+        /**
+         * Getter method.
+         *
+         * @return the value read with the typed getter
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * Getter method.
+         *
+         * @return the value read with getString
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * Creates the result set view.
+     *
+     * @param metadata metadata of the rows, see {@link #copyMetaData(ResultSetMetaData)}
+     * @param rows supplies the rows
+     * @return the result set
+     */
+    public static ResultSet create(ResultSetMetaData metadata, RowSource rows) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class}, new Handler(metadata, rows));
+    }
+
+    /**
+     * Copies the metadata of a result set, so it can be used after the
+     * original result set has been closed.
+     *
+     * @param metadata the original metadata
+     * @return the copy
+     * @throws SQLException if the metadata can not be read
+     */
+    public static ResultSetMetaData copyMetaData(ResultSetMetaData metadata) throws SQLException {
+        RowSetMetaDataImpl copy = new RowSetMetaDataImpl();
+        int columnCount = metadata.getColumnCount();
+        copy.setColumnCount(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            copy.setColumnName(i, metadata.getColumnName(i));
+            copy.setColumnLabel(i, metadata.getColumnLabel(i));
+            copy.setColumnType(i, metadata.getColumnType(i));
+            copy.setColumnTypeName(i, metadata.getColumnTypeName(i));
+            // e.g. the Oracle NUMBER without precision reports negative scale
+            copy.setPrecision(i, Math.max(metadata.getPrecision(i), 0));
+            copy.setScale(i, Math.max(metadata.getScale(i), 0));
+            copy.setNullable(i, metadata.isNullable(i));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Getter method.
+     *
+     * @param metadata result set metadata
+     * @return the SQL types of the columns
+     * @throws SQLException if the metadata can not be read
+     */
+    public static int[] getColumnTypes(ResultSetMetaData metadata) throws SQLException {
+        int[] types = new int[metadata.getColumnCount()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = metadata.getColumnType(i + 1);
+        }
+
+        return types;
+    }
+
+    /**
+     * Reads the current row of the result set into an array. The values are
+     * read with the typed getter of the column, so the driver specific types,
+     * e.g. oracle.sql.TIMESTAMP, are converted to the standard Java types.
+     * The Java types do not format these values the same way as the drivers,
+     * e.g. a double as 1.0E10 or a PostgreSQL boolean as true instead of t, so
+     * they are stored with the text of the driver in a {@link DriverValue}.
+     * A DATE is read as a timestamp, because the Oracle DATE has a time part.
+     *
+     * @param resultSet the result set positioned on the row
+     * @param columnTypes the SQL types of the columns
+     * @return values of the row
+     * @throws SQLException if the row can not be read
+     */
+    public static Object[] readRow(ResultSet resultSet, int[] columnTypes) throws SQLException {
+        Object[] row = new Object[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            int column = i + 1;
+            Object value;
+            boolean driverText = true;
+            switch (columnTypes[i]) {
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    value = resultSet.getBoolean(column);
+                    break;
+
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    value = resultSet.getLong(column);
+                    driverText = false;
+                    break;
+
+                case Types.REAL:
+                case Types.DOUBLE:
+                    value = resultSet.getDouble(column);
+                    break;
+
+                case Types.FLOAT:
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    value = resultSet.getBigDecimal(column);
+                    break;
+
+                case Types.DATE:
+                case Types.TIMESTAMP:
+                    value = resultSet.getTimestamp(column);
+                    break;
+
+                case Types.TIME:
+                    value = resultSet.getTime(column);
+                    break;
+
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    value = resultSet.getBytes(column);
+                    driverText = false;
+                    break;
+
+                default:
+                    value = resultSet.getString(column);
+                    driverText = false;
+            }
+
+            if (resultSet.wasNull()) {
+                row[i] = null;
+            } else {
+                row[i] = driverText ? new DriverValue(value, resultSet.getString(column)) : value;
+            }
+        }
+
+        return row;
+    }
+
+    /**
+     * Implements the methods of the result set.
+     */
+    private static class Handler implements InvocationHandler {
+
+        private final ResultSetMetaData metadata;
+        private final RowSource rows;
+        private Object[] row;
+        private Object lastValue;
+        private boolean closed;
+
+        /**
+         * Constructor.
+         *
+         * @param metadata metadata of the rows
+         * @param rows supplies the rows
+         */
+        Handler(ResultSetMetaData metadata, RowSource rows) {
+            this.metadata = metadata;
+            this.rows = rows;
+        }
+
+        /**
+         * Dispatches the method calls of the result set.
+         *
+         * @param proxy the proxy instance
+         * @param method the called method
+         * @param args arguments of the method
+         * @return the result of the method
+         * @throws Throwable in case of error
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            String name = method.getName();
+            switch (name) {
+                case "next":
+                    row = closed ? null : rows.next();
+                    result = Objects.nonNull(row);
+                    break;
+
+                case "getMetaData":
+                    result = metadata;
+                    break;
+
+                case "wasNull":
+                    result = Objects.isNull(lastValue);
+                    break;
+
+                case "findColumn":
+                    result = findColumn((String) args[0]);
+                    break;
+
+                case "close":
+                    closed = true;
+                    row = null;
+                    result = null;
+                    break;
+
+                case "isClosed":
+                    result = closed;
+                    break;
+
+                case "getFetchSize":
+                    result = 0;
+                    break;
+
+                case "setFetchSize":
+                case "clearWarnings":
+                case "getWarnings":
+                    result = null;
+                    break;
+
+                case "getType":
+                    result = ResultSet.TYPE_FORWARD_ONLY;
+                    break;
+
+                case "getConcurrency":
+                    result = ResultSet.CONCUR_READ_ONLY;
+                    break;
+
+                case "isWrapperFor":
+                    result = false;
+                    break;
+
+                case "hashCode":
+                    result = System.identityHashCode(proxy);
+                    break;
+
+                case "equals":
+                    result = proxy == args[0];
+                    break;
+
+                case "toString":
+                    result = "RowArrayResultSet";
+                    break;
+
+                default:
+                    if (name.startsWith("get") && Objects.nonNull(args) && args.length == 1) {
+                        result = getValue(name, args[0]);
+                    } else {
+                        throw new SQLFeatureNotSupportedException(name);
+                    }
+            }
+
+            return result;
+        }
+
+        /**
+         * Reads a value of the current row.
+         *
+         * @param getter name of the getter method
+         * @param column index or label of the column
+         * @return the converted value
+         * @throws SQLException if the value can not be converted
+         */
+        private Object getValue(String getter, Object column) throws SQLException {
+            if (Objects.isNull(row)) {
+                throw new SQLException("the result set is not positioned on a row");
+            }
+
+            int index = column instanceof String ? findColumn((String) column) : (Integer) column;
+            if (index < 1 || index > row.length) {
+                throw new SQLException("invalid column index: " + index);
+            }
+
+            Object stored = row[index - 1];
+            Object result;
+            if (stored instanceof DriverValue) {
+                lastValue = ((DriverValue) stored).getValue();
+                boolean text = "getString".equals(getter) || "getNString".equals(getter);
+                result = text ? ((DriverValue) stored).getText() : convert(getter, lastValue);
+            } else {
+                lastValue = stored;
+                result = convert(getter, lastValue);
+            }
+
+            return result;
+        }
+
+        /**
+         * Finds the column by label.
+         *
+         * @param label label of the column
+         * @return index of the column
+         * @throws SQLException if there is no such column
+         */
+        private int findColumn(String label) throws SQLException {
+            int index = 0;
+            for (int i = 1; index == 0 && i <= metadata.getColumnCount(); i++) {
+                if (metadata.getColumnLabel(i).equalsIgnoreCase(label)) {
+                    index = i;
+                }
+            }
+
+            if (index == 0) {
+                throw new SQLException("invalid column label: " + label);
+            }
+            return index;
+        }
+
+        /**
+         * Converts a value to the type of the getter.
+         *
+         * @param getter name of the getter method
+         * @param value the stored value
+         * @return the converted value
+         * @throws SQLException if the getter is not supported
+         */
+        private static Object convert(String getter, Object value) throws SQLException {
+            Object result;
+            switch (getter) {
+                case "getObject":
+                    result = value;
+                    break;
+
+                case "getString":
+                case "getNString":
+                    result = toText(value);
+                    break;
+
+                case "getBoolean":
+                    result = toBoolean(value);
+                    break;
+
+                case "getByte":
+                    result = (byte) toLong(value);
+                    break;
+
+                case "getShort":
+                    result = (short) toLong(value);
+                    break;
+
+                case "getInt":
+                    result = (int) toLong(value);
+                    break;
+
+                case "getLong":
+                    result = toLong(value);
+                    break;
+
+                case "getFloat":
+                    result = (float) toDouble(value);
+                    break;
+
+                case "getDouble":
+                    result = toDouble(value);
+                    break;
+
+                case "getBigDecimal":
+                    result = toBigDecimal(value);
+                    break;
+
+                case "getDate":
+                    result = Objects.isNull(value) || value instanceof Date
+                            ? value
+                            : new Date(((java.util.Date) value).getTime());
+                    break;
+
+                case "getTime":
+                    result = Objects.isNull(value) || value instanceof Time
+                            ? value
+                            : new Time(((java.util.Date) value).getTime());
+                    break;
+
+                case "getTimestamp":
+                    result = Objects.isNull(value) || value instanceof Timestamp
+                            ? value
+                            : new Timestamp(((java.util.Date) value).getTime());
+                    break;
+
+                case "getBytes":
+                    result = Objects.isNull(value) || value instanceof byte[]
+                            ? value
+                            : value.toString().getBytes(StandardCharsets.UTF_8);
+                    break;
+
+                default:
+                    throw new SQLFeatureNotSupportedException(getter);
+            }
+
+            return result;
+        }
+
+        /**
+         * Converts a value to string.
+         *
+         * @param value the value
+         * @return the string or null
+         */
+        private static String toText(Object value) {
+            String text;
+            if (Objects.isNull(value)) {
+                text = null;
+            } else if (value instanceof BigDecimal) {
+                text = ((BigDecimal) value).toPlainString();
+            } else if (value instanceof byte[]) {
+                StringBuilder hex = new StringBuilder();
+                for (byte b : (byte[]) value) {
+                    hex.append(String.format("%02X", b));
+                }
+                text = hex.toString();
+            } else {
+                text = value.toString();
+            }
+
+            return text;
+        }
+
+        /**
+         * Converts a value to boolean.
+         *
+         * @param value the value
+         * @return the boolean, false for null
+         */
+        private static boolean toBoolean(Object value) {
+            boolean result;
+            if (value instanceof Boolean) {
+                result = (Boolean) value;
+            } else if (value instanceof Number) {
+                result = ((Number) value).doubleValue() != 0;
+            } else {
+                String text = Objects.toString(value, "").trim();
+                result = "1".equals(text) || "true".equalsIgnoreCase(text);
+            }
+
+            return result;
+        }
+
+        /**
+         * Converts a value to long.
+         *
+         * @param value the value
+         * @return the number, 0 for null
+         */
+        private static long toLong(Object value) {
+            long result;
+            if (Objects.isNull(value)) {
+                result = 0;
+            } else if (value instanceof Number) {
+                result = ((Number) value).longValue();
+            } else if (value instanceof Boolean) {
+                result = (Boolean) value ? 1 : 0;
+            } else {
+                result = new BigDecimal(value.toString().trim()).longValue();
+            }
+
+            return result;
+        }
+
+        /**
+         * Converts a value to double.
+         *
+         * @param value the value
+         * @return the number, 0 for null
+         */
+        private static double toDouble(Object value) {
+            double result;
+            if (Objects.isNull(value)) {
+                result = 0;
+            } else if (value instanceof Number) {
+                result = ((Number) value).doubleValue();
+            } else if (value instanceof Boolean) {
+                result = (Boolean) value ? 1 : 0;
+            } else {
+                result = Double.parseDouble(value.toString().trim());
+            }
+
+            return result;
+        }
+
+        /**
+         * Converts a value to big decimal.
+         *
+         * @param value the value
+         * @return the number or null
+         */
+        private static BigDecimal toBigDecimal(Object value) {
+            BigDecimal result;
+            if (Objects.isNull(value) || value instanceof BigDecimal) {
+                result = (BigDecimal) value;
+            } else if (value instanceof Double || value instanceof Float) {
+                result = BigDecimal.valueOf(((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                result = BigDecimal.valueOf(((Number) value).longValue());
+            } else if (value instanceof Boolean) {
+                result = (Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO;
+            } else {
+                result = new BigDecimal(value.toString().trim());
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private RowArrayResultSet() {
+    }
+}
@@ -0,0 +1,276 @@
+package com.remal.sqlrunner.util;
+
+import com.remal.sqlrunner.domain.NormalizedSql;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Replaces the string and number literals of an SQL statement with bind
+ * parameters, so the statements that only differ in their literals share the
+ * same shape and the same prepared statement. The runs of whitespaces outside
+ * of the literals are collapsed to one space.
+ *
+ * <p>Literals that are part of the syntax are kept, e.g. the literals after
+ * DATE, TIMESTAMP and INTERVAL and the numbers of the type modifiers such as
+ * {@code VARCHAR2(10)}, {@code NUMBER(10,2)} or {@code DAY(3)}. Statements that can not be normalized safely,
+ * e.g. statements with bind variables, prefixed string literals or ORDER BY /
+ * GROUP BY clauses that may refer to column positions, are not normalized.</p>
+ *
+ * <p>Integer literals become long parameters, so the integer arithmetic and
+ * the comparisons with integer columns keep their integer type. The other
+ * numbers become big decimals and the strings are bound as strings, so the
+ * database may resolve their types differently than the types of the
+ * literals.</p>
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class SqlLiteralNormalizer {
+
+    private static final char QUOTE = '\'';
+    private static final char DOUBLE_QUOTE = '"';
+    private static final char PLACEHOLDER = '?';
+    private static final Set<String> TYPE_NAMES = new HashSet<>(Arrays.asList(
+            "BINARY", "BIT", "CHAR", "CHARACTER", "DATETIME2", "DATETIMEOFFSET", "DAY", "DEC", "DECIMAL", "FLOAT",
+            "HOUR", "MINUTE", "MONTH", "NCHAR", "NUMBER", "NUMERIC", "NVARCHAR", "NVARCHAR2", "RAW", "SECOND",
+            "TIME", "TIMESTAMP", "UROWID", "VARBINARY", "VARCHAR", "VARCHAR2", "VARYING", "YEAR"));
+
+    /**
+     * Normalizes the SQL statement.
+     *
+     * @param sql the SQL statement
+     * @return the normalized statement or null if the statement can not be normalized
+     */
+    public static NormalizedSql normalize(String sql) {
+        String upperCaseSql = sql.toUpperCase(Locale.ENGLISH);
+        if (upperCaseSql.contains("ORDER BY") || upperCaseSql.contains("GROUP BY")) {
+            return null;
+        }
+
+        StringBuilder shape = new StringBuilder(sql.length());
+        List<Object> parameters = new ArrayList<>();
+        String previousWord = "";
+        boolean typeModifier = false;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            int end;
+
+            if (c == QUOTE) {
+                end = findClosingQuote(sql, i);
+                if (end < 0 || (i > 0 && isIdentifierPart(sql.charAt(i - 1)))) {
+                    // unterminated or prefixed literal, e.g. N'...' or q'[...]'
+                    return null;
+                }
+
+                if (isTypedLiteralPrefix(previousWord)) {
+                    shape.append(sql, i, end);
+                } else {
+                    shape.append(PLACEHOLDER);
+                    parameters.add(sql.substring(i + 1, end - 1).replace("''", "'"));
+                }
+                previousWord = "";
+
+            } else if (c == DOUBLE_QUOTE) {
+                end = sql.indexOf(DOUBLE_QUOTE, i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                end++;
+                shape.append(sql, i, end);
+                previousWord = "";
+
+            } else if (sql.startsWith("--", i)) {
+                end = sql.indexOf('\n', i);
+                end = end < 0 ? length : end + 1;
+                shape.append(sql, i, end);
+
+            } else if (sql.startsWith("/*", i)) {
+                end = sql.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return null;
+                }
+                end += 2;
+                shape.append(sql, i, end);
+
+            } else if (c == PLACEHOLDER || c == ':') {
+                // the statement already has bind variables
+                return null;
+
+            } else if (Character.isWhitespace(c)) {
+                end = i + 1;
+                while (end < length && Character.isWhitespace(sql.charAt(end))) {
+                    end++;
+                }
+                shape.append(' ');
+
+            } else if (isIdentifierStart(c)) {
+                end = i + 1;
+                while (end < length && isIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                previousWord = sql.substring(i, end).toUpperCase(Locale.ENGLISH);
+                shape.append(sql, i, end);
+
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                end = findNumberEnd(sql, i);
+                if (end < length && isIdentifierPart(sql.charAt(end))) {
+                    // number with a type suffix, e.g. 1.5f
+                    return null;
+                }
+
+                if (typeModifier) {
+                    shape.append(sql, i, end);
+                } else {
+                    shape.append(PLACEHOLDER);
+                    parameters.add(toNumber(sql.substring(i, end)));
+                }
+                previousWord = "";
+
+            } else {
+                end = i + 1;
+                shape.append(c);
+                if (c == '(') {
+                    typeModifier = TYPE_NAMES.contains(previousWord);
+                } else if (c == ')') {
+                    typeModifier = false;
+                }
+                previousWord = "";
+            }
+
+            i = end;
+        }
+
+        return new NormalizedSql(shape.toString().trim(), parameters);
+    }
+
+    /**
+     * Finds the end of the string literal, the doubled quotes are part of the literal.
+     *
+     * @param sql the SQL statement
+     * @param start position of the opening quote
+     * @return position after the closing quote or -1 if the literal is not terminated
+     */
+    private static int findClosingQuote(String sql, int start) {
+        int position = start + 1;
+        int end = -1;
+        while (end < 0 && position < sql.length()) {
+            if (sql.charAt(position) == QUOTE) {
+                if (position + 1 < sql.length() && sql.charAt(position + 1) == QUOTE) {
+                    position += 2;
+                } else {
+                    end = position + 1;
+                }
+            } else {
+                position++;
+            }
+        }
+
+        return end;
+    }
+
+    /**
+     * Converts a number literal to the type of its bind parameter.
+     *
+     * @param literal the number literal
+     * @return long for the integers that fit into a long, big decimal for the other numbers
+     */
+    private static Object toNumber(String literal) {
+        Object number;
+        boolean integer = literal.chars().allMatch(Character::isDigit);
+        try {
+            number = integer ? (Object) Long.parseLong(literal) : new BigDecimal(literal);
+        } catch (NumberFormatException e) {
+            number = new BigDecimal(literal);
+        }
+
+        return number;
+    }
+
+    /**
+     * Finds the end of the number literal: digits, optional fraction and exponent.
+     *
+     * @param sql the SQL statement
+     * @param start position of the first character of the number
+     * @return position after the number
+     */
+    private static int findNumberEnd(String sql, int start) {
+        int length = sql.length();
+        int position = skipDigits(sql, start);
+        if (position < length && sql.charAt(position) == '.') {
+            position = skipDigits(sql, position + 1);
+        }
+
+        if (position < length && (sql.charAt(position) == 'e' || sql.charAt(position) == 'E')) {
+            int exponent = position + 1;
+            if (exponent < length && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < length && Character.isDigit(sql.charAt(exponent))) {
+                position = skipDigits(sql, exponent);
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Skips the digits.
+     *
+     * @param sql the SQL statement
+     * @param start position where the scanning starts
+     * @return position of the first non-digit character
+     */
+    private static int skipDigits(String sql, int start) {
+        int position = start;
+        while (position < sql.length() && Character.isDigit(sql.charAt(position))) {
+            position++;
+        }
+
+        return position;
+    }
+
+    /**
+     * Checks whether the string literal after the given word is part of the syntax.
+     *
+     * @param word the word before the literal in upper case
+     * @return true if the literal must be kept
+     */
+    private static boolean isTypedLiteralPrefix(String word) {
+        return "DATE".equals(word) || "TIMESTAMP".equals(word) || "INTERVAL".equals(word);
+    }
+
+    /**
+     * Checks whether the character can start an identifier.
+     *
+     * @param c the character
+     * @return true if the character starts an identifier
+     */
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    /**
+     * Checks whether the character can be part of an identifier.
+     *
+     * @param c the character
+     * @return true if the character is part of an identifier
+     */
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private SqlLiteralNormalizer() {
+    }
+}
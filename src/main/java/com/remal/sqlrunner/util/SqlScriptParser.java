@@ -2,8 +2,15 @@ package com.remal.sqlrunner.util;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Parses the Oracle SQL Script and cut it to SQL statements.
@@ -35,43 +42,25 @@ public class SqlScriptParser {
      * @throws IOException if there is an error reading from the Reader
      */
     public List<String> parse(BufferedReader reader) throws IOException {
-        List<String> sqlStatements = new ArrayList<>();
-        String originalDelimiter = delimiter;
-        StringBuilder sqlStatement = new StringBuilder();
-
-        while (reader.ready()) {
-            String line = reader.readLine();
-            String trimmedLine = line.trim();
-
-            if (isCommentLine(trimmedLine)) {
-                // do nothing
-
-            } else if (trimmedLine.toLowerCase().startsWith("set define off")) {
-                // stored procedure definition starts from here
-                delimiter = "/";
-
-            } else if (!fullLineDelimiter && trimmedLine.endsWith(delimiter)
-                    || fullLineDelimiter && trimmedLine.equals(delimiter)) {
-
-                sqlStatement.append(line.substring(0, line.lastIndexOf(delimiter)));
-                sqlStatement.append(" ");
-                sqlStatements.add(sqlStatement.toString());
-                sqlStatement = new StringBuilder();
-
-                if (trimmedLine.equals(delimiter)) {
-                    // end of the definition of the stored procedure
-                    delimiter = originalDelimiter;
-                }
-
-            } else {
-                sqlStatement.append(line);
-                sqlStatement.append(" ");
-            }
+        try {
+            return stream(reader).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+    }
 
-        sqlStatements.add("commit");
-
-        return sqlStatements;
+    /**
+     * Lazy version of the parser. The statements are cut from the script while
+     * the stream is consumed, so the execution of the first statement can start
+     * before the whole script is read and only the statement under construction
+     * is kept in the memory.
+     *
+     * @param reader the source of the script, it is not closed by the stream
+     * @return the SQL statements, an {@link UncheckedIOException} is thrown
+     *         while consuming the stream if the script can not be read
+     */
+    public Stream<String> stream(BufferedReader reader) {
+        return StreamSupport.stream(new StatementSpliterator(reader, delimiter, fullLineDelimiter), false);
     }
 
     /**
@@ -91,7 +80,7 @@ public class SqlScriptParser {
      * @param line line from the SQL Script file
      * @return true if the line is  comment
      */
-    private boolean isCommentLine(String line) {
+    private static boolean isCommentLine(String line) {
         boolean commentLine = false;
         if (line.startsWith("--") || line.startsWith("//") || (line.length() < 1)) {
             commentLine = true;
@@ -99,4 +88,111 @@ public class SqlScriptParser {
 
         return commentLine;
     }
+
+    /**
+     * Reads the script line by line and provides the SQL statements one by one.
+     */
+    private static class StatementSpliterator extends Spliterators.AbstractSpliterator<String> {
+
+        private final BufferedReader reader;
+        private final String originalDelimiter;
+        private final boolean fullLineDelimiter;
+        private final StringBuilder sqlStatement = new StringBuilder();
+        private String delimiter;
+        private boolean finished = false;
+
+        /**
+         * Constructor.
+         *
+         * @param reader the source of the script
+         * @param delimiter a non-alphanumeric character used to separate multiple SQL statements
+         * @param fullLineDelimiter set it true if a line contains only delimiter cn be skipped
+         */
+        StatementSpliterator(BufferedReader reader, String delimiter, boolean fullLineDelimiter) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.reader = reader;
+            this.originalDelimiter = delimiter;
+            this.delimiter = delimiter;
+            this.fullLineDelimiter = fullLineDelimiter;
+        }
+
+        /**
+         * Reads the lines until the next SQL statement is complete.
+         *
+         * @param action consumer of the statement
+         * @return false if there is no more statement in the script
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (finished) {
+                return false;
+            }
+
+            String sql = nextStatement();
+            if (Objects.isNull(sql)) {
+                finished = true;
+                sql = "commit";
+            }
+
+            action.accept(sql);
+            return true;
+        }
+
+        /**
+         * Cuts the next statement from the script.
+         *
+         * @return the next SQL statement or null at the end of the script
+         */
+        private String nextStatement() {
+            String sql = null;
+            String line = readLine();
+            while (Objects.isNull(sql) && Objects.nonNull(line)) {
+                String trimmedLine = line.trim();
+
+                if (isCommentLine(trimmedLine)) {
+                    // do nothing
+
+                } else if (trimmedLine.toLowerCase().startsWith("set define off")) {
+                    // stored procedure definition starts from here
+                    delimiter = "/";
+
+                } else if (!fullLineDelimiter && trimmedLine.endsWith(delimiter)
+                        || fullLineDelimiter && trimmedLine.equals(delimiter)) {
+
+                    sqlStatement.append(line, 0, line.lastIndexOf(delimiter));
+                    sqlStatement.append(" ");
+                    sql = sqlStatement.toString();
+                    sqlStatement.setLength(0);
+
+                    if (trimmedLine.equals(delimiter)) {
+                        // end of the definition of the stored procedure
+                        delimiter = originalDelimiter;
+                    }
+
+                } else {
+                    sqlStatement.append(line);
+                    sqlStatement.append(" ");
+                }
+
+                if (Objects.isNull(sql)) {
+                    line = readLine();
+                }
+            }
+
+            return sql;
+        }
+
+        /**
+         * Reads the next line of the script.
+         *
+         * @return the line or null at the end of the script
+         */
+        private String readLine() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
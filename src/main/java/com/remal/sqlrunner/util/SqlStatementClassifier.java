@@ -0,0 +1,259 @@
+package com.remal.sqlrunner.util;
+
+import com.remal.sqlrunner.domain.Dialect;
+import com.remal.sqlrunner.domain.StatementType;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Determines the kind of SQL statement based on its leading keyword, so the
+ * proper JDBC call can be chosen before the statement is sent to the database.
+ * Leading comments and opening parentheses are skipped. A statement that
+ * starts with common table expressions is classified by the keyword of its
+ * main statement, e.g. WITH ... INSERT is a DML statement.
+ *
+ * <p>Copyright 2021 Arnold Somogyi</p>
+ *
+ * @author arnold.somogyi@gmail.com
+ */
+public final class SqlStatementClassifier {
+
+    private static final String LINE_COMMENT = "--";
+    private static final String BLOCK_COMMENT_START = "/*";
+    private static final String BLOCK_COMMENT_END = "*/";
+    private static final String WITH = "WITH";
+    private static final Set<String> MAIN_KEYWORDS = new HashSet<>(
+            Arrays.asList("SELECT", "INSERT", "UPDATE", "DELETE", "MERGE"));
+
+    /**
+     * Classifies the given SQL statement.
+     *
+     * @param sql the SQL statement
+     * @param dialect the SQL dialect, it decides the meaning of the keywords that differ between the databases
+     * @return kind of the statement
+     */
+    public static StatementType classify(String sql, Dialect dialect) {
+        String keyword = getFirstKeyword(sql);
+        if (WITH.equals(keyword)) {
+            keyword = getMainKeyword(sql);
+        }
+
+        StatementType type = dialect.getStatementType(keyword);
+        if (Objects.isNull(type)) {
+            type = classify(keyword);
+        }
+
+        return type;
+    }
+
+    /**
+     * Classifies a statement by the meaning of its leading keyword that is
+     * common in the dialects.
+     *
+     * @param keyword the first keyword of the statement in upper case
+     * @return kind of the statement
+     */
+    private static StatementType classify(String keyword) {
+        StatementType type;
+        switch (keyword) {
+            case "SELECT":
+            case "WITH":
+                type = StatementType.QUERY;
+                break;
+
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "MERGE":
+                type = StatementType.DML;
+                break;
+
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+            case "TRUNCATE":
+            case "RENAME":
+            case "GRANT":
+            case "REVOKE":
+            case "COMMENT":
+                type = StatementType.DDL;
+                break;
+
+            case "BEGIN":
+            case "DECLARE":
+                type = StatementType.PLSQL;
+                break;
+
+            case "COMMIT":
+            case "ROLLBACK":
+            case "SAVEPOINT":
+                type = StatementType.TRANSACTION;
+                break;
+
+            default: type = StatementType.OTHER;
+        }
+
+        return type;
+    }
+
+    /**
+     * Finds the name of the table modified by a DML statement.
+     *
+     * @param sql the DML statement
+     * @return the name of the table in upper case, or an empty string if it can not be determined
+     */
+    public static String getTargetTable(String sql) {
+        int start = skipIgnorable(sql, 0);
+        int end = getTokenEnd(sql, start);
+        String keyword = sql.substring(start, end).toUpperCase(Locale.ENGLISH);
+
+        String table = "";
+        if ("INSERT".equals(keyword) || "UPDATE".equals(keyword)
+                || "DELETE".equals(keyword) || "MERGE".equals(keyword)) {
+
+            start = skipIgnorable(sql, end);
+            end = getTokenEnd(sql, start);
+            String token = sql.substring(start, end).toUpperCase(Locale.ENGLISH);
+            if ("INTO".equals(token) || "FROM".equals(token)) {
+                start = skipIgnorable(sql, end);
+                end = getTokenEnd(sql, start);
+                token = sql.substring(start, end).toUpperCase(Locale.ENGLISH);
+            }
+            table = token;
+        }
+
+        return table;
+    }
+
+    /**
+     * Finds the end of the word, e.g. a keyword or a table name, that starts at
+     * the given position.
+     *
+     * @param sql the SQL statement
+     * @param start position of the first character of the word
+     * @return position after the last character of the word
+     */
+    private static int getTokenEnd(String sql, int start) {
+        int length = sql.length();
+        int end = start;
+        while (end < length && !Character.isWhitespace(sql.charAt(end)) && sql.charAt(end) != '(') {
+            end++;
+        }
+
+        return end;
+    }
+
+    /**
+     * Returns with the first word of the SQL statement in upper case.
+     *
+     * @param sql the SQL statement
+     * @return the first keyword or an empty string
+     */
+    private static String getFirstKeyword(String sql) {
+        int start = skipIgnorable(sql, 0);
+        int length = sql.length();
+
+        int end = start;
+        while (end < length && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+
+        return sql.substring(start, end).toUpperCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Finds the keyword of the main statement after the common table
+     * expressions. The bodies of the expressions are in parentheses, so the
+     * first SELECT, INSERT, UPDATE, DELETE or MERGE outside the parentheses,
+     * the quoted texts and the comments starts the main statement.
+     *
+     * @param sql the SQL statement that starts with WITH
+     * @return the keyword of the main statement, or WITH if it can not be found
+     */
+    private static String getMainKeyword(String sql) {
+        int length = sql.length();
+        int position = skipIgnorable(sql, 0) + WITH.length();
+        int depth = 0;
+        String keyword = WITH;
+        while (WITH.equals(keyword) && position < length) {
+            char c = sql.charAt(position);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, position + 1);
+                position = end < 0 ? length : end + 1;
+            } else if (sql.startsWith(LINE_COMMENT, position) || sql.startsWith(BLOCK_COMMENT_START, position)) {
+                position = skipComment(sql, position);
+            } else if (c == '(' || c == ')') {
+                depth += c == '(' ? 1 : -1;
+                position++;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                int end = position;
+                while (end < length && (Character.isLetterOrDigit(sql.charAt(end))
+                        || sql.charAt(end) == '_' || sql.charAt(end) == '$')) {
+                    end++;
+                }
+                String word = sql.substring(position, end).toUpperCase(Locale.ENGLISH);
+                keyword = depth == 0 && MAIN_KEYWORDS.contains(word) ? word : WITH;
+                position = end;
+            } else {
+                position++;
+            }
+        }
+
+        return keyword;
+    }
+
+    /**
+     * Skips the whitespaces, comments and opening parentheses.
+     *
+     * @param sql the SQL statement
+     * @param from position where the scanning starts
+     * @return position of the first meaningful character
+     */
+    private static int skipIgnorable(String sql, int from) {
+        int length = sql.length();
+        int position = from;
+        boolean skipped = true;
+        while (skipped && position < length) {
+            char c = sql.charAt(position);
+            if (Character.isWhitespace(c) || c == '(') {
+                position++;
+            } else if (sql.startsWith(LINE_COMMENT, position) || sql.startsWith(BLOCK_COMMENT_START, position)) {
+                position = skipComment(sql, position);
+            } else {
+                skipped = false;
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Skips a line or a block comment.
+     *
+     * @param sql the SQL statement
+     * @param from position where the comment starts
+     * @return position after the comment
+     */
+    private static int skipComment(String sql, int from) {
+        int position;
+        if (sql.startsWith(LINE_COMMENT, from)) {
+            int end = sql.indexOf('\n', from);
+            position = end < 0 ? sql.length() : end + 1;
+        } else {
+            int end = sql.indexOf(BLOCK_COMMENT_END, from + BLOCK_COMMENT_START.length());
+            position = end < 0 ? sql.length() : end + BLOCK_COMMENT_END.length();
+        }
+
+        return position;
+    }
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private SqlStatementClassifier() {
+    }
+}